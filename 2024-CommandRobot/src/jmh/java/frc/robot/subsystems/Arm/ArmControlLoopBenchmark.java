@@ -0,0 +1,128 @@
+/**
+ * @file ArmControlLoopBenchmark.java
+ * @brief JMH benchmarks of the Arm control loop
+ */
+
+package frc.robot.subsystems.Arm;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.subsystems.Arm.ArmIO.ArmIOInputs;
+
+/**
+ * Measures the per-cycle latency, throughput and allocation of the Arm control loop on a 
+ * desktop JVM. Run with ./gradlew jmh, the results are written to build/results/jmh. 
+ * 
+ * controlDecision isolates the decision logic of ArmSubsystem.periodic() with an ArmIO that 
+ * does no work, simulatedCycle runs the full loop against ArmIOSim and simulatedUpdateInputs 
+ * measures the physics model on its own. The gc profiler reports the bytes allocated per cycle, 
+ * which must stay at zero (checked by ./gradlew jmhCheck).
+ */
+@State( Scope.Thread )
+@BenchmarkMode( { Mode.AverageTime, Mode.SampleTime, Mode.Throughput } )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ArmControlLoopBenchmark {
+    // Inside the envelope, a target outside it is clamped and the loop would not see these positions
+    private static final double TARGET_RADS = ArmConstants.SCORE_POSITION_RADS; 
+
+    /**
+     * ArmIO that replays a fixed set of positions, one per cycle, on both sides of every threshold 
+     * of the mode state machine around the target
+     */
+    static class ScriptedArmIO implements ArmIO {
+        private static final double[] POSITIONS_RADS = { TARGET_RADS - 0.5, TARGET_RADS - 0.05, TARGET_RADS - 0.005, 
+                                                         TARGET_RADS + 0.5, TARGET_RADS + 0.05, TARGET_RADS + 0.005 }; 
+        private int index; 
+        double lastSetpointRotations; 
+
+        @Override
+        public void updateInputs( ArmIOInputs inputs ) {
+            inputs.armEncoderPositionRads = POSITIONS_RADS[index]; 
+            index = ( index + 1 ) % POSITIONS_RADS.length; 
+        }
+
+        @Override
+        public void stop() {
+            lastSetpointRotations = 0.0; 
+        }
+
+        @Override
+        public void setPositionControl( double positionRotations, double feedforwardVolts ) {
+            lastSetpointRotations = positionRotations; 
+        }
+
+        @Override
+        public void setMotionControl( double positionRotations, double cruiseVelocity, double acceleration, double jerk, double feedforwardVolts ) {
+            lastSetpointRotations = positionRotations; 
+        }
+
+        @Override
+        public void setProfiledPositionControl( double positionRotations, double velocityRotationsPerSec, double feedforwardVolts ) {
+            lastSetpointRotations = positionRotations; 
+        }
+
+        @Override
+        public void setVoltage( double volts ) {
+            lastSetpointRotations = 0.0; 
+        }
+
+        @Override
+        public boolean applyConfig( ArmConfig config ) {
+            return true; 
+        }
+    }
+
+    // Decleration
+    private ScriptedArmIO scriptedIO; 
+    private ArmSubsystem scriptedSubsystem; 
+    private ArmSubsystem simulatedSubsystem; 
+    private ArmIOSim sim; 
+    private ArmIOInputs simInputs; 
+
+    @Setup
+    public void setup() {
+        // SubsystemBase registers with the CommandScheduler, which needs the HAL
+        HAL.initialize( 500, 0 ); 
+
+        scriptedIO = new ScriptedArmIO(); 
+        scriptedSubsystem = new ArmSubsystem( scriptedIO ); 
+        scriptedSubsystem.setTargetPosition( TARGET_RADS ); 
+        simulatedSubsystem = new ArmSubsystem( new ArmIOCached( new ArmIOSim() ) ); 
+        simulatedSubsystem.setTargetPosition( TARGET_RADS ); 
+        sim = new ArmIOSim(); 
+        simInputs = new ArmIOInputs(); 
+    }
+
+    @Benchmark
+    public double controlDecision() {
+        scriptedSubsystem.periodic(); 
+        return scriptedIO.lastSetpointRotations; 
+    }
+
+    @Benchmark
+    public void simulatedCycle() {
+        simulatedSubsystem.periodic(); 
+    }
+
+    @Benchmark
+    public void simulatedUpdateInputs( Blackhole blackhole ) {
+        sim.updateInputs( simInputs ); 
+        blackhole.consume( simInputs.armEncoderPositionRads ); 
+    }
+}
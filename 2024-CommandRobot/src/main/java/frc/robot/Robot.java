@@ -43,6 +43,10 @@ public class Robot extends TimedRobot {
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    // The status signals of every mechanism are refreshed first, in one batch, so the subsystems
+    // never wait on the CAN bus themselves. That read is timed on its own (Arm/LoopTiming/CANRefresh),
+    // the UpdateInputs timing of the arm does not include it.
+    m_robotContainer.refreshSignals();
     CommandScheduler.getInstance().run();
   }
 
@@ -7,8 +7,25 @@ package frc.robot;
 import frc.robot.commands.Autos;
 import frc.robot.commands.ExampleCommand;
 import frc.robot.subsystems.ExampleSubsystem;
-import frc.robot.subsystems.Arm.ArmReal;
+import frc.robot.subsystems.Arm.ArmConstants;
+import frc.robot.subsystems.Arm.ArmDefinition;
+import frc.robot.subsystems.Arm.ArmConfig;
+import frc.robot.subsystems.Arm.ArmConfigReloader;
+import frc.robot.subsystems.Arm.ArmConstraintScheduler;
+import frc.robot.subsystems.Arm.ArmIO;
+import frc.robot.subsystems.Arm.ArmIOCached;
+import frc.robot.subsystems.Arm.ArmIOReplay;
+import frc.robot.subsystems.Arm.ArmIOSim;
+import frc.robot.subsystems.Arm.ArmProfileConstraints;
 import frc.robot.subsystems.Arm.ArmSubsystem;
+import frc.robot.subsystems.Arm.ArmTelemetryLogger;
+import frc.robot.util.CANSignalRefresher;
+import frc.robot.util.InputLatencyTracer;
+import java.io.IOException;
+import java.nio.file.Path;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
@@ -22,7 +39,15 @@ import edu.wpi.first.wpilibj2.command.button.Trigger;
 public class RobotContainer {
   // The robot's subsystems and commands are defined here...
   private final ExampleSubsystem m_exampleSubsystem = new ExampleSubsystem();
-  private final ArmSubsystem m_armSubsystem = new ArmSubsystem( new ArmReal() );
+  // Every mechanism registers its status signals here, they are all refreshed in one batch per loop
+  private final CANSignalRefresher m_signalRefresher = new CANSignalRefresher();
+  private final ArmConfig m_armConfig = ArmConfig.loadAtBoot();
+  private final ArmIO m_armIO = createArmIO(m_armConfig, m_signalRefresher);
+  private final ArmSubsystem m_armSubsystem = new ArmSubsystem( m_armIO, m_armConfig );
+  // Times a button press through the scheduler, the arm and the CAN bus to the arm moving
+  private final InputLatencyTracer m_latencyTracer =
+      new InputLatencyTracer(
+          NetworkTableInstance.getDefault().getTable("InputLatency"), RobotBase.isReal());
 
   // Replace with CommandPS4Controller or CommandJoystick if needed
   private final CommandXboxController m_driverController =
@@ -31,10 +56,90 @@ public class RobotContainer {
 
   /** The container for the robot. Contains subsystems, OI devices, and commands. */
   public RobotContainer() {
+    // The CAN read of the arm happens in refreshSignals, before its periodic() is timed
+    m_armSubsystem.getLoopTiming().setCANRefreshStats(m_signalRefresher.getTiming());
+
+    // Record every arm loop on the robot so match issues can be replayed
+    if (RobotBase.isReal()) {
+      m_armSubsystem.setTelemetryLogger(ArmTelemetryLogger.openDefault());
+    }
+
+    // A replayed log also drives the arm target and config, in place of the commands and reloads
+    // from the match
+    if (m_armIO instanceof ArmIOReplay replay) {
+      replay.setConfigListener(m_armSubsystem::setConfig);
+      replay.setTargetListener(
+          targetRads -> {
+            if (Double.isNaN(targetRads)) {
+              m_armSubsystem.clearTarget();
+            } else {
+              m_armSubsystem.setTargetPosition(targetRads);
+            }
+          });
+    }
+
+    // Streaming the arm profiles, generated up front for the named positions
+    if (ArmConstants.PROFILE_STREAMING_ENABLED) {
+      m_armSubsystem.setProfileStreaming(ArmProfileConstraints.STREAMED);
+      m_armSubsystem.precomputeProfiles(
+          ArmConstants.STOW_POSITION_RADS, ArmConstants.SCORE_POSITION_RADS);
+    }
+
+    // Reloading the arm gains and constraints from the deploy directory when asked on the dashboard,
+    // a replay takes them from the log instead
+    if (!(m_armIO instanceof ArmIOReplay)) {
+      m_armSubsystem.setConfigReloader(
+          new ArmConfigReloader(
+              m_armIO,
+              m_armConfig,
+              ArmConfig::load,
+              NetworkTableInstance.getDefault().getTable("Arm").getSubTable("Config")));
+    }
+
+    // Correcting the arm feedforward with the online kG/kS estimate
+    m_armSubsystem.setFeedforwardEstimation(ArmConstants.FF_ESTIMATION_ENABLED);
+
+    // Fitting the Motion Magic constraints of each move to the current, supply and temperature budget
+    if (ArmConstants.MOTION_SCHEDULER_ENABLED) {
+      m_armSubsystem.setConstraintScheduler(
+          new ArmConstraintScheduler(
+              NetworkTableInstance.getDefault().getTable("Arm").getSubTable("Constraints")));
+    }
+
+    // Tracing the latency of the arm buttons, from the Driver Station packet to the encoder
+    m_latencyTracer.startPacketListener();
+    m_armSubsystem.setLatencyTracer(m_latencyTracer);
+
     // Configure the trigger bindings
     configureBindings();
   }
 
+  /**
+   * Picks the arm IO: the real devices on the robot, the physics model in simulation, or a
+   * recorded telemetry log when the ARM_REPLAY_LOG environment variable points at one in
+   * simulation.
+   *
+   * @param config the gains and Motion Magic constraints to bring the arm motors up with
+   * @param signalRefresher the refresher the real devices register their status signals with
+   * @return the arm IO
+   */
+  private static ArmIO createArmIO(ArmConfig config, CANSignalRefresher signalRefresher) {
+    if (RobotBase.isReal()) {
+      return new ArmIOCached(new ArmDefinition(config, signalRefresher));
+    }
+
+    String replayLog = System.getenv("ARM_REPLAY_LOG");
+    if (replayLog != null) {
+      try {
+        // Not cached, every replayed request is checked against the recording
+        return new ArmIOReplay(Path.of(replayLog));
+      } catch (IOException e) {
+        DriverStation.reportError("Arm replay log could not be opened: " + e.getMessage(), false);
+      }
+    }
+    return new ArmIOCached(new ArmIOSim(config));
+  }
+
   /**
    * Use this method to define your trigger->command mappings. Triggers can be created via the
    * {@link Trigger#Trigger(java.util.function.BooleanSupplier)} constructor with an arbitrary
@@ -50,13 +155,31 @@ public class RobotContainer {
         .onTrue(new ExampleCommand(m_exampleSubsystem));
 
     // Binding Definition
-    // m_driverController.a().whileTrue( m_armSubsystem.moveArm( Units.degreesToRadians(30) ) ).whileFalse( m_armSubsystem.moveArm( 0 ) );
+    // Holding A raises the arm, releasing it stows the arm. Pressing it is traced.
+    new Trigger(m_latencyTracer.trace(m_driverController.a()))
+        .onTrue(m_armSubsystem.moveTo(ArmConstants.SCORE_POSITION_RADS))
+        .onFalse(m_armSubsystem.stow());
+    // Holding the arm wherever it is
+    m_driverController.x().onTrue(m_armSubsystem.hold());
+    // Characterizing the arm while Back and Start are both held, letting go stops the arm
+    m_driverController
+        .back()
+        .and(m_driverController.start())
+        .whileTrue(m_armSubsystem.sysIdRoutine());
 
     // Schedule `exampleMethodCommand` when the Xbox controller's B button is pressed,
     // cancelling on release.
     m_driverController.b().whileTrue(m_exampleSubsystem.exampleMethodCommand());
   }
 
+  /**
+   * Refreshes the status signals of every mechanism in one batched call per CAN bus. Must run
+   * every loop before the scheduler, so the subsystems read this loop's values.
+   */
+  public void refreshSignals() {
+    m_signalRefresher.refreshAll();
+  }
+
   /**
    * Use this to pass the autonomous command to the main {@link Robot} class.
    *
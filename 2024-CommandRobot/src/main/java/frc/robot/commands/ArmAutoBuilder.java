@@ -0,0 +1,330 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import edu.wpi.first.networktables.BooleanArrayPublisher;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import frc.robot.subsystems.Arm.ArmSubsystem;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds an autonomous routine whose arm moves overlap with the actions of the other subsystems,
+ * instead of waiting for the arm to settle before doing the next thing.
+ *
+ * <p>The routine is a sequence of steps. Each step may start an arm move, then runs its action
+ * once the predicted time for the arm to settle is at most the lead of the step: the part of the
+ * action that can run before the arm has to be at its target. A drive to the goal with a lead of
+ * its whole duration starts with the arm move and arrives as the arm settles, a release with a
+ * lead of 0 waits for the arm to settle, and a lead of {@code Double.POSITIVE_INFINITY} does not
+ * wait for the arm at all. The prediction comes from the profile the arm is running, see {@link
+ * ArmSubsystem#getPredictedTimeToSettleSecs()}. A step waits at most its predicted wait plus
+ * {@link #WAIT_MARGIN_SECS}, then runs its action anyway and is marked as timed out, so a move that
+ * never settles (e.g. with a game piece, or with the drive of the arm disabled) does not hang the
+ * routine.
+ *
+ * <p>When the routine starts, its whole timeline is predicted from the position of the arm and
+ * the expected duration of each action, along with the time the same steps would take one after
+ * the other. When it ends (or is interrupted) the predicted and actual timelines are reported to
+ * the Driver Station and published, so the leads and durations can be tuned to shave time off the
+ * routine.
+ */
+public class ArmAutoBuilder {
+  /** How much longer than predicted a step waits for the arm before running its action anyway. */
+  public static final double WAIT_MARGIN_SECS = 1.0;
+
+  /** A step of the routine, with its predicted and actual timeline (Seconds from the start). */
+  private static final class Step {
+    private final String name;
+    private final double positionRads; // NaN when the step does not move the arm
+    private final Command action;
+    private final double actionSecs;
+    private final double leadSecs;
+
+    private double predictedWaitSecs;
+    private double predictedActionStartSecs;
+    private double predictedSettleSecs;
+    private double predictedEndSecs;
+    private double actualWaitStartSecs;
+    private double actualActionStartSecs;
+    private double actualSettleSecs;
+    private double actualEndSecs;
+    private boolean timedOut; // The action started before the arm was predicted to settle
+
+    private Step(
+        String name, double positionRads, Command action, double actionSecs, double leadSecs) {
+      this.name = name;
+      this.positionRads = positionRads;
+      this.action = action;
+      this.actionSecs = actionSecs;
+      this.leadSecs = leadSecs;
+    }
+
+    private boolean movesArm() {
+      return !Double.isNaN(positionRads);
+    }
+  }
+
+  private final String m_name;
+  private final ArmSubsystem m_arm;
+  private final List<Step> m_steps = new ArrayList<>();
+  private boolean m_built;
+
+  // Timeline of the running routine
+  private double m_startSecs;
+  private Step m_movingStep; // The step whose arm move has not settled yet, null when settled
+  private double m_predictedSecs;
+  private double m_sequentialSecs;
+
+  // Dashboard - null when not publishing
+  private final DoublePublisher m_predictedPublisher;
+  private final DoublePublisher m_actualPublisher;
+  private final DoublePublisher m_sequentialPublisher;
+  private final DoubleArrayPublisher m_predictedEndsPublisher;
+  private final DoubleArrayPublisher m_actualEndsPublisher;
+  private final BooleanArrayPublisher m_timedOutPublisher;
+
+  /**
+   * Creates a builder for one routine.
+   *
+   * @param name The name of the routine, used in the report.
+   * @param arm The arm the steps move.
+   * @param table The table to publish the timelines to (under the name), or null to only report
+   *     them to the Driver Station.
+   */
+  public ArmAutoBuilder(String name, ArmSubsystem arm, NetworkTable table) {
+    m_name = name;
+    m_arm = arm;
+    if (table == null) {
+      m_predictedPublisher = null;
+      m_actualPublisher = null;
+      m_sequentialPublisher = null;
+      m_predictedEndsPublisher = null;
+      m_actualEndsPublisher = null;
+      m_timedOutPublisher = null;
+      return;
+    }
+    NetworkTable routineTable = table.getSubTable(name);
+    m_predictedPublisher = routineTable.getDoubleTopic("PredictedSecs").publish();
+    m_actualPublisher = routineTable.getDoubleTopic("ActualSecs").publish();
+    m_sequentialPublisher = routineTable.getDoubleTopic("SequentialSecs").publish();
+    m_predictedEndsPublisher = routineTable.getDoubleArrayTopic("PredictedStepEndsSecs").publish();
+    m_actualEndsPublisher = routineTable.getDoubleArrayTopic("ActualStepEndsSecs").publish();
+    m_timedOutPublisher = routineTable.getBooleanArrayTopic("StepTimedOut").publish();
+  }
+
+  /**
+   * Adds a step that moves the arm, and runs an action once the arm is predicted to settle within
+   * the lead.
+   *
+   * @param name The name of the step, used in the report.
+   * @param positionRads The target of the arm move (Radians).
+   * @param action The action of the other subsystems, the step ends when it does.
+   * @param actionSecs The expected duration of the action (Seconds).
+   * @param leadSecs How much of the action can run before the arm has to be settled (Seconds).
+   * @return This builder.
+   */
+  public ArmAutoBuilder move(
+      String name, double positionRads, Command action, double actionSecs, double leadSecs) {
+    return addStep(new Step(name, positionRads, action, actionSecs, leadSecs));
+  }
+
+  /**
+   * Adds a step that runs an action once the arm move that is running is predicted to settle
+   * within the lead.
+   *
+   * @param name The name of the step, used in the report.
+   * @param action The action of the other subsystems, the step ends when it does.
+   * @param actionSecs The expected duration of the action (Seconds).
+   * @param leadSecs How much of the action can run before the arm has to be settled (Seconds).
+   * @return This builder.
+   */
+  public ArmAutoBuilder run(String name, Command action, double actionSecs, double leadSecs) {
+    return addStep(new Step(name, Double.NaN, action, actionSecs, leadSecs));
+  }
+
+  /**
+   * Builds the routine. The actions are composed into it, so it can only be built once.
+   *
+   * @return The routine, it requires the arm and the subsystems of every action.
+   */
+  public Command build() {
+    if (m_built) {
+      throw new IllegalStateException(m_name + " has already been built");
+    }
+    m_built = true;
+
+    List<Command> sequence = new ArrayList<>();
+    sequence.add(Commands.runOnce(this::start));
+    for (Step step : m_steps) {
+      if (step.movesArm()) {
+        sequence.add(
+            m_arm.runOnce(
+                () -> {
+                  m_arm.setTargetPosition(step.positionRads);
+                  m_movingStep = step;
+                }));
+      }
+      sequence.add(Commands.runOnce(() -> step.actualWaitStartSecs = elapsedSecs()));
+      sequence.add(Commands.waitUntil(() -> isWaitOver(step)));
+      sequence.add(Commands.runOnce(() -> step.actualActionStartSecs = elapsedSecs()));
+      sequence.add(step.action);
+      sequence.add(Commands.runOnce(() -> step.actualEndSecs = elapsedSecs()));
+    }
+
+    // The settling of each move is watched every loop, it may happen during a later step
+    return Commands.deadline(
+            Commands.sequence(sequence.toArray(new Command[0])),
+            Commands.run(this::watchSettle))
+        .finallyDo(this::report)
+        .withName(m_name);
+  }
+
+  private ArmAutoBuilder addStep(Step step) {
+    if (m_built) {
+      throw new IllegalStateException(m_name + " has already been built");
+    }
+    m_steps.add(step);
+    return this;
+  }
+
+  /** Starts the clock of the routine and predicts its timeline from where the arm is. */
+  private void start() {
+    m_startSecs = Timer.getFPGATimestamp();
+    m_movingStep = null;
+    for (Step step : m_steps) {
+      step.actualActionStartSecs = Double.NaN;
+      step.actualSettleSecs = Double.NaN;
+      step.actualEndSecs = Double.NaN;
+      step.actualWaitStartSecs = Double.NaN;
+      step.timedOut = false;
+    }
+    m_sequentialSecs = predict(false);
+    m_predictedSecs = predict(true);
+  }
+
+  /**
+   * Predicts the timeline of the steps, each move starting from the target of the one before.
+   *
+   * @param overlap True to run the actions early by their leads, false to wait for every move to
+   *     settle first.
+   * @return The predicted duration of the routine (Seconds).
+   */
+  private double predict(boolean overlap) {
+    double timeSecs = 0.0;
+    double settleSecs = 0.0;
+    double positionRads = m_arm.getPositionRads();
+    for (Step step : m_steps) {
+      if (step.movesArm()) {
+        settleSecs = timeSecs + m_arm.predictMoveSecs(positionRads, step.positionRads);
+        positionRads = step.positionRads;
+      }
+      double leadSecs = overlap ? step.leadSecs : 0.0;
+      double actionStartSecs = Math.max(timeSecs, settleSecs - leadSecs);
+      double waitSecs = actionStartSecs - timeSecs;
+      timeSecs = actionStartSecs + step.actionSecs;
+      if (overlap) {
+        step.predictedWaitSecs = waitSecs;
+        step.predictedActionStartSecs = actionStartSecs;
+        step.predictedSettleSecs = step.movesArm() ? settleSecs : Double.NaN;
+        step.predictedEndSecs = timeSecs;
+      }
+    }
+    return timeSecs;
+  }
+
+  /**
+   * Checks whether a step can run its action: once the arm is predicted to settle within its lead,
+   * or once it has waited {@link #WAIT_MARGIN_SECS} longer than predicted.
+   *
+   * @param step The step that is waiting.
+   * @return True to run the action.
+   */
+  private boolean isWaitOver(Step step) {
+    if (m_arm.getPredictedTimeToSettleSecs() <= step.leadSecs) {
+      return true;
+    }
+    if (elapsedSecs() - step.actualWaitStartSecs > step.predictedWaitSecs + WAIT_MARGIN_SECS) {
+      step.timedOut = true;
+      return true;
+    }
+    return false;
+  }
+
+  /** Stamps the arm settling at the target of the last move. */
+  private void watchSettle() {
+    if (m_movingStep != null && m_arm.isAtSetpoint()) {
+      m_movingStep.actualSettleSecs = elapsedSecs();
+      m_movingStep = null;
+    }
+  }
+
+  private double elapsedSecs() {
+    return Timer.getFPGATimestamp() - m_startSecs;
+  }
+
+  /**
+   * Reports the predicted and actual timelines of the routine to the Driver Station and publishes
+   * them.
+   *
+   * @param interrupted True if the routine did not finish.
+   */
+  private void report(boolean interrupted) {
+    double actualSecs = elapsedSecs();
+    StringBuilder summary =
+        new StringBuilder(m_name)
+            .append(
+                String.format(
+                    ": %.2f s%s, predicted %.2f s, %.2f s without overlapping",
+                    actualSecs,
+                    interrupted ? " (interrupted)" : "",
+                    m_predictedSecs,
+                    m_sequentialSecs));
+    summary.append(
+        String.format(
+            "%n  %-16s %24s %24s", "Step", "Predicted start/settle/end", "Actual start/settle/end"));
+    double[] predictedEnds = new double[m_steps.size()];
+    double[] actualEnds = new double[m_steps.size()];
+    boolean[] timedOut = new boolean[m_steps.size()];
+    for (int i = 0; i < m_steps.size(); i++) {
+      Step step = m_steps.get(i);
+      summary.append(
+          String.format(
+              "%n  %-16s %6.2f %6.2f %6.2f %9.2f %6.2f %6.2f",
+              step.name,
+              step.predictedActionStartSecs,
+              step.predictedSettleSecs,
+              step.predictedEndSecs,
+              step.actualActionStartSecs,
+              step.actualSettleSecs,
+              step.actualEndSecs));
+      if (step.timedOut) {
+        summary.append(
+            String.format(
+                " timed out after %.2f s",
+                step.actualActionStartSecs - step.actualWaitStartSecs));
+      }
+      predictedEnds[i] = step.predictedEndSecs;
+      actualEnds[i] = step.actualEndSecs;
+      timedOut[i] = step.timedOut;
+    }
+    DriverStation.reportWarning(summary.toString(), false);
+
+    if (m_predictedPublisher != null) {
+      m_predictedPublisher.set(m_predictedSecs);
+      m_actualPublisher.set(actualSecs);
+      m_sequentialPublisher.set(m_sequentialSecs);
+      m_predictedEndsPublisher.set(predictedEnds);
+      m_actualEndsPublisher.set(actualEnds);
+      m_timedOutPublisher.set(timedOut);
+    }
+  }
+}
@@ -5,6 +5,9 @@
 package frc.robot.commands;
 
 import frc.robot.subsystems.ExampleSubsystem;
+import frc.robot.subsystems.Arm.ArmConstants;
+import frc.robot.subsystems.Arm.ArmSubsystem;
+import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 
@@ -14,6 +17,30 @@ public final class Autos {
     return Commands.sequence(subsystem.exampleMethodCommand(), new ExampleCommand(subsystem));
   }
 
+  /**
+   * Example routine that overlaps the arm moves with the other subsystems: the arm raises while
+   * driving to the goal, the piece is released once it has settled, and it stows on the way back.
+   * The drive segments are stood in for by the example subsystem.
+   */
+  public static Command armCycleAuto(ArmSubsystem arm, ExampleSubsystem subsystem) {
+    return new ArmAutoBuilder(
+            "ArmCycleAuto", arm, NetworkTableInstance.getDefault().getTable("Autos"))
+        .move(
+            "DriveToGoal",
+            ArmConstants.SCORE_POSITION_RADS,
+            new ExampleCommand(subsystem).withTimeout(1.5),
+            1.5,
+            1.5)
+        .run("Release", subsystem.exampleMethodCommand(), 0.0, 0.0)
+        .move(
+            "DriveBack",
+            ArmConstants.STOW_POSITION_RADS,
+            new ExampleCommand(subsystem).withTimeout(1.5),
+            1.5,
+            Double.POSITIVE_INFINITY)
+        .build();
+  }
+
   private Autos() {
     throw new UnsupportedOperationException("This is a utility class!");
   }
@@ -0,0 +1,325 @@
+/**
+ * @file ArmConfig.java
+ * @brief Immutable snapshot of the tunable parameters of the Arm, loaded from the deploy directory
+ */
+
+package frc.robot.subsystems.Arm;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import com.ctre.phoenix6.configs.MotionMagicConfigs;
+import com.ctre.phoenix6.configs.Slot0Configs;
+import com.ctre.phoenix6.configs.Slot1Configs;
+import com.ctre.phoenix6.signals.GravityTypeValue;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * The gains of both slots and the Motion Magic constraints of the arm, as one immutable snapshot.
+ *
+ * The parameters are read from CONFIG_FILE_NAME in the deploy directory (src/main/deploy in the
+ * project), so tuning them only needs the file changed, not the code. Any key missing from it
+ * keeps the default from ArmConstants.
+ *
+ *   slot0.kP=60.0
+ *   slot1.kV=8.0
+ *   motionMagic.cruiseVelocity=1.0
+ *
+ * A system identification run on the robot writes its fit to SYSID_GAINS_FILE_NAME in the
+ * operating directory. That file outlives every deploy, so its gains are only applied on top of
+ * the deploy file when the deploy file opts in with SYSID_GAINS_KEY=true, otherwise the deployed
+ * gains win. gainsSource says which file the gains came from, for the dashboard.
+ *
+ * A snapshot is never changed once it is made. A reload (see ArmConfigReloader) makes a new
+ * snapshot and swaps it in, so a loop always sees one consistent set of parameters.
+ * @param gains The gains of Slot 0 and Slot 1
+ * @param motionMagic The Motion Magic cruise velocity, acceleration and jerk
+ * @param gainsSource Where the gains came from: a file name, or ArmConstants
+ */
+public record ArmConfig( ArmGains gains, ArmProfileConstraints motionMagic, String gainsSource ) {
+    // The file in the deploy directory
+    public static final String CONFIG_FILE_NAME = "arm.properties"; 
+    // The gains written by a system identification run, in the operating directory
+    public static final String SYSID_GAINS_FILE_NAME = "arm_gains.properties"; 
+    // The key of the deploy file that lets the system identification gains override it
+    public static final String SYSID_GAINS_KEY = "sysIdGains.apply"; 
+    private static final String DEFAULTS_SOURCE = "ArmConstants"; 
+    // Size of the parameters when written with writeTo (Bytes), the gains source is not written
+    public static final int SERIALIZED_BYTES = 17 * Double.BYTES; 
+
+    // The parameters in ArmConstants
+    public static final ArmConfig DEFAULTS = new ArmConfig( ArmGains.DEFAULTS, ArmProfileConstraints.MOTION_MAGIC ); 
+
+    /**
+     * Creates a snapshot whose gains are the ones in ArmConstants or were made in code
+     * @param gains The gains of Slot 0 and Slot 1
+     * @param motionMagic The Motion Magic cruise velocity, acceleration and jerk
+     */
+    public ArmConfig( ArmGains gains, ArmProfileConstraints motionMagic ) {
+        this( gains, motionMagic, DEFAULTS_SOURCE ); 
+    }
+
+    /**
+     * Loads the parameters from the deploy directory, and the system identification gains if it opts in
+     * @return The snapshot
+     * @throws IOException If a file is there but cannot be read
+     * @throws IllegalArgumentException If a value is not a number or the constraints are invalid
+     */
+    public static ArmConfig load() throws IOException {
+        return load( Filesystem.getDeployDirectory().toPath().resolve( CONFIG_FILE_NAME ),
+                     Filesystem.getOperatingDirectory().toPath().resolve( SYSID_GAINS_FILE_NAME ) ); 
+    }
+
+    /**
+     * Loads the parameters from the given files, either of which may be missing
+     * @param configPath The file with all the parameters
+     * @param sysIdGainsPath The file with the fitted gains, applied on top only if the config has SYSID_GAINS_KEY=true
+     * @return The snapshot
+     * @throws IOException If a file is there but cannot be read
+     * @throws IllegalArgumentException If a value is not a number or the constraints are invalid
+     */
+    public static ArmConfig load( Path configPath, Path sysIdGainsPath ) throws IOException {
+        Properties properties = readProperties( configPath ); 
+        ArmConfig config = fromProperties( properties, DEFAULTS ); 
+        String source = properties.isEmpty() ? DEFAULTS_SOURCE : configPath.getFileName().toString(); 
+        if ( !Files.isRegularFile( sysIdGainsPath ) ) {
+            return new ArmConfig( config.gains(), config.motionMagic(), source ); 
+        }
+        String sysIdSource = sysIdGainsPath.getFileName().toString(); 
+        if ( !Boolean.parseBoolean( properties.getProperty( SYSID_GAINS_KEY, "false" ) ) ) {
+            return new ArmConfig( config.gains(), config.motionMagic(), 
+                                  source + " (" + sysIdSource + " ignored, " + SYSID_GAINS_KEY + " is not true)" ); 
+        }
+        return new ArmConfig( ArmGains.fromProperties( readProperties( sysIdGainsPath ), config.gains() ), config.motionMagic(), 
+                              sysIdSource + " over " + source ); 
+    }
+
+    /**
+     * Reads the parameters from properties, with the keys of CONFIG_FILE_NAME
+     * @param properties The properties to read
+     * @param defaults The parameters used for every key that is not in the properties
+     * @return The snapshot
+     * @throws IllegalArgumentException If a value is not a number or the constraints are invalid
+     */
+    public static ArmConfig fromProperties( Properties properties, ArmConfig defaults ) {
+        ArmGains gains = ArmGains.fromProperties( properties, defaults.gains() ); 
+        ArmProfileConstraints motionMagic = new ArmProfileConstraints(
+            readDouble( properties, "motionMagic.cruiseVelocity", defaults.motionMagic().cruiseVelocity() ),
+            readDouble( properties, "motionMagic.acceleration", defaults.motionMagic().acceleration() ),
+            readDouble( properties, "motionMagic.jerk", defaults.motionMagic().jerk() ) ); 
+        return new ArmConfig( gains, motionMagic, defaults.gainsSource() ); 
+    }
+
+    /**
+     * Writes the parameters into properties that fromProperties() can read back, other keys are left alone
+     * @param properties The properties to write into
+     */
+    public void toProperties( Properties properties ) {
+        gains.toProperties( properties ); 
+        properties.setProperty( "motionMagic.cruiseVelocity", Double.toString( motionMagic.cruiseVelocity() ) ); 
+        properties.setProperty( "motionMagic.acceleration", Double.toString( motionMagic.acceleration() ) ); 
+        properties.setProperty( "motionMagic.jerk", Double.toString( motionMagic.jerk() ) ); 
+    }
+
+    /**
+     * Writes the gains and constraints into the buffer in a fixed binary layout, without allocating
+     * @param buffer The buffer to write into, must have SERIALIZED_BYTES remaining
+     */
+    public void writeTo( ByteBuffer buffer ) {
+        writeSlot( buffer, gains.slot0() ); 
+        writeSlot( buffer, gains.slot1() ); 
+        buffer.putDouble( motionMagic.cruiseVelocity() ); 
+        buffer.putDouble( motionMagic.acceleration() ); 
+        buffer.putDouble( motionMagic.jerk() ); 
+    }
+
+    /**
+     * Reads a snapshot back from the layout written by writeTo
+     * @param buffer The buffer to read from, must have SERIALIZED_BYTES remaining
+     * @param gainsSource Where the snapshot was read from
+     * @return The snapshot
+     * @throws IllegalArgumentException If the constraints are invalid
+     */
+    public static ArmConfig readFrom( ByteBuffer buffer, String gainsSource ) {
+        ArmGains gains = new ArmGains( readSlot( buffer ), readSlot( buffer ) ); 
+        ArmProfileConstraints motionMagic = new ArmProfileConstraints( buffer.getDouble(), buffer.getDouble(), buffer.getDouble() ); 
+        return new ArmConfig( gains, motionMagic, gainsSource ); 
+    }
+
+    /**
+     * Loads the parameters for this boot, falling back to the defaults if they cannot be read
+     * @return The snapshot
+     */
+    public static ArmConfig loadAtBoot() {
+        try {
+            return load(); 
+        }
+        catch ( IOException | IllegalArgumentException e ) {
+            DriverStation.reportError( "Arm: config could not be read (" + e.getMessage() + "), using the defaults", false ); 
+            return DEFAULTS; 
+        }
+    }
+
+    /**
+     * Writes the gains into a properties file, keeping every other key already in it (but not the comments)
+     * @param path The file to write
+     * @param gains The gains to write
+     * @param comment A comment written at the top of the file, e.g. where the gains came from
+     * @throws IOException If the file cannot be read or written
+     */
+    public static void writeGains( Path path, ArmGains gains, String comment ) throws IOException {
+        writeGains( path, path, gains, comment ); 
+    }
+
+    /**
+     * Writes the gains into a copy of a properties file, keeping every other key of the source (but not the comments)
+     * @param source The file the other keys are read from
+     * @param path The file to write, may be the source
+     * @param gains The gains to write
+     * @param comment A comment written at the top of the file, e.g. where the gains came from
+     * @throws IOException If a file cannot be read or written
+     */
+    public static void writeGains( Path source, Path path, ArmGains gains, String comment ) throws IOException {
+        Properties properties = readProperties( source ); 
+        gains.toProperties( properties ); 
+        if ( path.getParent() != null ) {
+            Files.createDirectories( path.getParent() ); 
+        }
+        try ( Writer writer = Files.newBufferedWriter( path ) ) {
+            properties.store( writer, comment ); 
+        }
+    }
+
+    /**
+     * @param other The snapshot to compare with
+     * @return True if Slot 0 has different gains in the other snapshot
+     */
+    public boolean slot0Changed( ArmConfig other ) {
+        return !gains.slot0().equals( other.gains().slot0() ); 
+    }
+
+    /**
+     * @param other The snapshot to compare with
+     * @return True if Slot 1 has different gains in the other snapshot
+     */
+    public boolean slot1Changed( ArmConfig other ) {
+        return !gains.slot1().equals( other.gains().slot1() ); 
+    }
+
+    /**
+     * @param other The snapshot to compare with
+     * @return True if the Motion Magic constraints are different in the other snapshot
+     */
+    public boolean motionMagicChanged( ArmConfig other ) {
+        return !motionMagic.equals( other.motionMagic() ); 
+    }
+
+    /**
+     * @param gravityType How gravity acts on the mechanism
+     * @return The Slot 0 gains as the config group the motor takes
+     */
+    public Slot0Configs toSlot0Configs( GravityTypeValue gravityType ) {
+        Slot0Configs slot0 = new Slot0Configs(); 
+        slot0.GravityType = gravityType; 
+        slot0.kG = gains.slot0().kG(); 
+        slot0.kP = gains.slot0().kP(); 
+        slot0.kI = gains.slot0().kI(); 
+        slot0.kD = gains.slot0().kD(); 
+        slot0.kS = gains.slot0().kS(); 
+        slot0.kV = gains.slot0().kV(); 
+        slot0.kA = gains.slot0().kA(); 
+        return slot0; 
+    }
+
+    /**
+     * @param gravityType How gravity acts on the mechanism
+     * @return The Slot 1 gains as the config group the motor takes
+     */
+    public Slot1Configs toSlot1Configs( GravityTypeValue gravityType ) {
+        Slot1Configs slot1 = new Slot1Configs(); 
+        slot1.GravityType = gravityType; 
+        slot1.kG = gains.slot1().kG(); 
+        slot1.kP = gains.slot1().kP(); 
+        slot1.kI = gains.slot1().kI(); 
+        slot1.kD = gains.slot1().kD(); 
+        slot1.kS = gains.slot1().kS(); 
+        slot1.kV = gains.slot1().kV(); 
+        slot1.kA = gains.slot1().kA(); 
+        return slot1; 
+    }
+
+    /**
+     * @return The Motion Magic constraints as the config group the motor takes
+     */
+    public MotionMagicConfigs toMotionMagicConfigs() {
+        MotionMagicConfigs motionMagicConfigs = new MotionMagicConfigs(); 
+        motionMagicConfigs.MotionMagicCruiseVelocity = motionMagic.cruiseVelocity(); 
+        motionMagicConfigs.MotionMagicAcceleration = motionMagic.acceleration(); 
+        motionMagicConfigs.MotionMagicJerk = motionMagic.jerk(); 
+        return motionMagicConfigs; 
+    }
+
+    /**
+     * Writes the gains of one slot, in the order of ArmGains.Slot
+     */
+    private static void writeSlot( ByteBuffer buffer, ArmGains.Slot slot ) {
+        buffer.putDouble( slot.kP() ); 
+        buffer.putDouble( slot.kI() ); 
+        buffer.putDouble( slot.kD() ); 
+        buffer.putDouble( slot.kS() ); 
+        buffer.putDouble( slot.kV() ); 
+        buffer.putDouble( slot.kA() ); 
+        buffer.putDouble( slot.kG() ); 
+    }
+
+    /**
+     * Reads the gains of one slot written by writeSlot
+     */
+    private static ArmGains.Slot readSlot( ByteBuffer buffer ) {
+        return new ArmGains.Slot( buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), 
+                                  buffer.getDouble(), buffer.getDouble(), buffer.getDouble() ); 
+    }
+
+    /**
+     * Reads a properties file
+     * @return The properties, empty if the file does not exist
+     */
+    static Properties readProperties( Path path ) throws IOException {
+        Properties properties = new Properties(); 
+        if ( Files.isRegularFile( path ) ) {
+            try ( Reader reader = Files.newBufferedReader( path ) ) {
+                properties.load( reader ); 
+            }
+        }
+        return properties; 
+    }
+
+    /**
+     * Reads one number, or returns the default if the key is not there
+     * @throws IllegalArgumentException If the value is not a finite number
+     */
+    static double readDouble( Properties properties, String key, double defaultValue ) {
+        String value = properties.getProperty( key ); 
+        if ( value == null ) {
+            return defaultValue; 
+        }
+        double number; 
+        try {
+            number = Double.parseDouble( value.trim() ); 
+        }
+        catch ( NumberFormatException e ) {
+            throw new IllegalArgumentException( key + " is not a number: " + value ); 
+        }
+        if ( !Double.isFinite( number ) ) {
+            throw new IllegalArgumentException( key + " is not finite: " + value ); 
+        }
+        return number; 
+    }
+}
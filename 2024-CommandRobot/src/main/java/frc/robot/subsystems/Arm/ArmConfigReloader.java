@@ -0,0 +1,135 @@
+/**
+ * @file ArmConfigReloader.java
+ * @brief Reloads the Arm config from the dashboard without blocking the robot loop
+ */
+
+package frc.robot.subsystems.Arm;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.wpi.first.networktables.BooleanEntry;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Reloads the ArmConfig when "Reload" is set to true on the dashboard.
+ *
+ * The robot loop calls poll(), which only reads the flag. The reload itself runs on its own
+ * thread: the files are read into a new snapshot, the ArmIO applies the slots and constraints
+ * that changed (each of those blocks on a CAN round trip), and only then is the new snapshot
+ * swapped in for getConfig(). If anything fails the old snapshot stays in use.
+ *
+ * Published under the table: Reload (set to true to reload), Status (the outcome of the last
+ * reload), Generation (the number of reloads that were applied) and GainsSource (the file the
+ * gains in use came from, see ArmConfig.load).
+ */
+public class ArmConfigReloader {
+    // Decleration
+    private final ArmIO io; 
+    private final Callable<ArmConfig> loader; 
+    private final ExecutorService executor; 
+    private volatile ArmConfig config; 
+    private volatile boolean reloading; 
+    private long generation; 
+
+    // Dashboard
+    private final BooleanEntry reloadEntry; 
+    private final StringPublisher statusPublisher; 
+    private final IntegerPublisher generationPublisher; 
+    private final StringPublisher gainsSourcePublisher; 
+
+    /**
+     * Creates the reloader
+     * @param io The ArmIO that applies the changes to the devices
+     * @param initial The config the devices were brought up with
+     * @param loader Reads a new snapshot, e.g. ArmConfig::load
+     * @param table The table the reload flag and status are in
+     */
+    public ArmConfigReloader( ArmIO io, ArmConfig initial, Callable<ArmConfig> loader, NetworkTable table ) {
+        this.io = io; 
+        this.loader = loader; 
+        this.config = initial; 
+        executor = Executors.newSingleThreadExecutor( runnable -> {
+            Thread thread = new Thread( runnable, "ArmConfigReload" ); 
+            thread.setDaemon( true ); 
+            return thread; 
+        } ); 
+
+        reloadEntry = table.getBooleanTopic( "Reload" ).getEntry( false ); 
+        reloadEntry.set( false ); 
+        statusPublisher = table.getStringTopic( "Status" ).publish(); 
+        statusPublisher.set( "Loaded at boot" ); 
+        generationPublisher = table.getIntegerTopic( "Generation" ).publish(); 
+        generationPublisher.set( 0 ); 
+        gainsSourcePublisher = table.getStringTopic( "GainsSource" ).publish(); 
+        gainsSourcePublisher.set( initial.gainsSource() ); 
+    }
+
+    /**
+     * Starts a reload if one was asked for on the dashboard and none is running.
+     * Called every loop, it does not block.
+     */
+    public void poll() {
+        if ( reloading || !reloadEntry.get() ) {
+            return; 
+        }
+        reloadEntry.set( false ); 
+        reloading = true; 
+        executor.execute( this::reload ); 
+    }
+
+    /**
+     * @return The config currently in use, swapped for the new one once a reload has been applied
+     */
+    public ArmConfig getConfig() {
+        return config; 
+    }
+
+    /**
+     * @return True while a reload is running
+     */
+    public boolean isReloading() {
+        return reloading; 
+    }
+
+    /**
+     * Reads and applies the new config, runs on the reload thread
+     */
+    private void reload() {
+        try {
+            ArmConfig previous = config; 
+            ArmConfig next = loader.call(); 
+            if ( !next.slot0Changed( previous ) && !next.slot1Changed( previous ) && !next.motionMagicChanged( previous ) ) {
+                // Nothing to apply, the same gains may still have come from another file
+                config = next; 
+                gainsSourcePublisher.set( next.gainsSource() ); 
+                statusPublisher.set( "No changes" ); 
+                return; 
+            }
+            String changes = ( next.slot0Changed( previous ) ? " Slot0" : "" )
+                + ( next.slot1Changed( previous ) ? " Slot1" : "" )
+                + ( next.motionMagicChanged( previous ) ? " MotionMagic" : "" ); 
+            if ( !io.applyConfig( next ) ) {
+                statusPublisher.set( "Failed to apply:" + changes ); 
+                DriverStation.reportError( "Arm: config reload could not be applied to the devices," + changes, false ); 
+                return; 
+            }
+            config = next; 
+            generationPublisher.set( ++generation ); 
+            gainsSourcePublisher.set( next.gainsSource() ); 
+            statusPublisher.set( "Applied:" + changes ); 
+            DriverStation.reportWarning( "Arm: config reloaded," + changes, false ); 
+        }
+        catch ( Exception e ) {
+            statusPublisher.set( "Failed to load: " + e.getMessage() ); 
+            DriverStation.reportError( "Arm: config reload failed (" + e.getMessage() + ")", false ); 
+        }
+        finally {
+            reloading = false; 
+        }
+    }
+}
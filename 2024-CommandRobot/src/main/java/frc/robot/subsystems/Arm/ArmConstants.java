@@ -12,4 +12,100 @@ public final class ArmConstants {
   public final static int ARM_MASTER_ID = 1; 
   public final static int ARM_FOLLOWER_ID = 2; 
   public final static int ARM_ENCODER_ID = 3; 
+  public final static String ARM_CAN_BUS = ""; // The roboRIO bus, or the name of a CANivore
+
+  // Slot 0 - Holding the Arm
+  public final static double SLOT0_KG = 0.35; 
+  public final static double SLOT0_KP = 60; 
+  public final static double SLOT0_KI = 0; 
+  public final static double SLOT0_KD = 0.02; 
+  public final static double SLOT0_KS = 0; 
+  public final static double SLOT0_KV = 0; 
+  public final static double SLOT0_KA = 0; 
+
+  // Slot 1 - Moving the Arm
+  public final static double SLOT1_KG = 0.35; 
+  public final static double SLOT1_KP = 60; 
+  public final static double SLOT1_KI = 0; 
+  public final static double SLOT1_KD = 0; 
+  public final static double SLOT1_KS = 0; 
+  public final static double SLOT1_KV = 8; 
+  public final static double SLOT1_KA = 0.2; 
+
+  // Motion Magic Constraints (Rotations)
+  public final static double MOTION_MAGIC_CRUISE_VELOCITY = 1.0; 
+  public final static double MOTION_MAGIC_ACCELERATION = 2; 
+  public final static double MOTION_MAGIC_JERK = 10; 
+
+  // Streamed Profile Constraints (Rotations) - used in place of Motion Magic when streaming is enabled
+  public final static boolean PROFILE_STREAMING_ENABLED = false; 
+  public final static double STREAMED_PROFILE_CRUISE_VELOCITY = 1.5; 
+  public final static double STREAMED_PROFILE_ACCELERATION = 4; 
+  public final static double STREAMED_PROFILE_JERK = 40; 
+
+  // Arm Positions (Radians)
+  public final static double STOW_POSITION_RADS = 0.0; 
+  public final static double SCORE_POSITION_RADS = Math.toRadians( 30 ); 
+
+  // Kinematic Envelope - the arm is only commanded where it stays clear of the frame, floor and extension limits
+  public final static double ARM_REVERSE_LIMIT_RADS = Math.toRadians( -5 ); // Hard stops, the envelope never goes past them
+  public final static double ARM_FORWARD_LIMIT_RADS = Math.toRadians( 110 ); 
+  public final static double ARM_ENVELOPE_RESOLUTION_RADS = Math.toRadians( 0.25 ); 
+  public final static double ARM_LENGTH_METERS = 0.5; // Pivot to the furthest point of the arm
+  public final static double ARM_PIVOT_HEIGHT_METERS = 0.3; // Above the floor
+  public final static double ARM_PIVOT_TO_FRAME_FRONT_METERS = 0.2; // The frame perimeter in front of the pivot
+  public final static double ARM_PIVOT_TO_FRAME_BACK_METERS = 0.5; // The frame perimeter behind the pivot
+  public final static double FRAME_HEIGHT_METERS = 0.15; // Top of the frame and bumpers, above the floor
+  public final static double MAX_EXTENSION_METERS = 0.3048; // Past the frame perimeter, 12 in
+  public final static double MAX_HEIGHT_METERS = 1.22; // Above the floor, 4 ft
+  public final static double FLOOR_CLEARANCE_METERS = 0.02; 
+
+  // Online Feedforward Estimation - the estimated kG and kS are sent as the FeedForward of the requests
+  public final static boolean FF_ESTIMATION_ENABLED = false; 
+  public final static double FF_ESTIMATOR_FORGETTING_FACTOR = 0.995; // About the last 200 moving loops
+  public final static double FF_ESTIMATOR_MIN_VELOCITY = 0.02; // Rotations per second
+  public final static long FF_ESTIMATOR_MIN_UPDATES = 50; // Loops of data before the estimate is used
+
+  // Motion Constraint Scheduling - the Motion Magic constraints of each move are cut to the electrical budget
+  public final static boolean MOTION_SCHEDULER_ENABLED = false; 
+  public final static double SCHEDULER_CURRENT_BUDGET_AMPS = 120.0; // Stator current of both motors together
+  public final static double SCHEDULER_MIN_SUPPLY_VOLTS = 9.0; // Well above the 6.8 V brownout, the drivetrain shares the battery
+  public final static double SCHEDULER_HEADROOM_VOLTS = 1.5; // Left for the PID above the feedforward
+  public final static double SCHEDULER_DERATE_START_CELSIUS = 70.0; 
+  public final static double SCHEDULER_DERATE_END_CELSIUS = 100.0; // The Kraken X60 cuts its own output past about 100 C
+  public final static double SCHEDULER_MIN_SCALE = 0.3; // Of the configured constraints, the arm always moves
+  public final static double SCHEDULER_RECOVERY_RATE = 1.1; // Per move that stayed within the budget
+
+  // System Identification - the arm is only driven between the limits, keep them clear of the hard stops
+  public final static double SYSID_RAMP_RATE_VOLTS_PER_SEC = 1.0; // Quasistatic
+  public final static double SYSID_STEP_VOLTS = 4.0; // Dynamic
+  public final static double SYSID_REVERSE_LIMIT_RADS = Math.toRadians( 5 ); 
+  public final static double SYSID_FORWARD_LIMIT_RADS = Math.toRadians( 90 ); 
+  public final static double SYSID_TEST_TIMEOUT_SECS = 10.0; 
+  public final static double SYSID_SETTLE_TIMEOUT_SECS = 3.0; // Time for the arm to settle between tests
+  public final static int SYSID_LOG_CAPACITY = 32768; // Samples, over 2 minutes at the sample frequency
+
+  // Device Configuration at Startup
+  public final static double CONFIG_TIMEOUT_SECS = 0.1; 
+  public final static int CONFIG_MAX_ATTEMPTS = 3; 
+
+  // Health Monitoring (Seconds)
+  public final static double ENCODER_STALE_SECS = 0.05; // Over 10 missed encoder frames
+  public final static double ENCODER_BOOT_TIMEOUT_SECS = 1.0; // Time for the first encoder frame to arrive
+  public final static double FOLLOWER_STALE_SECS = 0.1; // 5 missed current frames
+  public final static double FOLLOWER_RECOVERY_SECS = 0.5; // The follower must be healthy this long to drive again
+
+  // Rotor Rotations per Encoder Rotation, used when falling back to the rotor sensor
+  public final static double ROTOR_TO_SENSOR_RATIO = 1.0; 
+
+  // Settling After a Profile Ends, the tail of the PID (Seconds) - measured on the arm sim, used to predict moves
+  public final static double SETTLE_ALLOWANCE_SECS = 0.1; 
+
+  // Robot Loop Period (Seconds)
+  public final static double LOOP_PERIOD_SECS = 0.02; 
+
+  // High Frequency Sampling of the Arm Position and Velocity
+  public final static double SAMPLE_FREQUENCY_HZ = 250; 
+  public final static int SAMPLE_BUFFER_CAPACITY = 64; // Power of two
+  public final static int MAX_SAMPLES_PER_LOOP = 16; 
 }
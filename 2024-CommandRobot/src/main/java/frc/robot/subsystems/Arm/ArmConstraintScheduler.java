@@ -0,0 +1,237 @@
+/**
+ * @file ArmConstraintScheduler.java
+ * @brief Picks the Motion Magic constraints of each move from the current, voltage and temperature of the arm
+ */
+
+package frc.robot.subsystems.Arm;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+
+/**
+ * Gives each move the fastest cruise velocity and acceleration the electrical budget can take,
+ * rather than one set of constraints picked for a full battery and a cold motor.
+ *
+ * Every loop it watches the supply voltage, the stator current of both motors and their
+ * temperature. At the start of each move it works out the constraints of the move from the
+ * configured ones:
+ *
+ *   Electrical - if the last move went over the current budget, or sagged the supply below the
+ *   minimum (e.g. while the drivetrain was accelerating), the constraints are cut in proportion.
+ *   Current and sag both grow with the acceleration, so one cut is enough to first order. After
+ *   a move that stayed within the budget they recover by RECOVERY_RATE.
+ *   Thermal - the constraints are derated linearly between the start and end temperatures.
+ *   Voltage - the cruise velocity and acceleration are capped to what the Slot 1 feedforward can
+ *   reach from the supply that is left, keeping headroom for the PID.
+ *
+ * The constraints never go below MIN_SCALE of the configured ones, so the arm always moves. The
+ * scheduler only chooses, the ArmIO sends them with the move. Nothing allocates after construction.
+ */
+public class ArmConstraintScheduler {
+    // Scheduling Limits
+    public static final double MIN_SCALE = ArmConstants.SCHEDULER_MIN_SCALE; 
+    public static final double RECOVERY_RATE = ArmConstants.SCHEDULER_RECOVERY_RATE; 
+
+    // Decleration
+    private final double currentBudgetAmps; 
+    private final double minSupplyVolts; 
+    private final double headroomVolts; 
+    private final double derateStartCelsius; 
+    private final double derateEndCelsius; 
+
+    // Watched Every Loop - over the move that is running
+    private double supplyVolts; // 0 until the first frame
+    private double tempCelsius; 
+    private double moveStartSupplyVolts; 
+    private double moveMinSupplyVolts = Double.POSITIVE_INFINITY; 
+    private double movePeakCurrentAmps; 
+    private boolean moving; 
+
+    // The Plan of the Current Move
+    private double electricalScale = 1.0; 
+    private double thermalScale = 1.0; 
+    private double cruiseVelocity; 
+    private double acceleration; 
+    private double jerk; 
+    private long plannedMoves; 
+    private long limitedMoves; 
+
+    // Dashboard - null when not publishing
+    private final DoublePublisher cruiseVelocityPublisher; 
+    private final DoublePublisher accelerationPublisher; 
+    private final DoublePublisher electricalScalePublisher; 
+    private final DoublePublisher thermalScalePublisher; 
+    private final DoublePublisher minSupplyPublisher; 
+    private final DoublePublisher peakCurrentPublisher; 
+
+    /**
+     * Creates a scheduler with the limits in ArmConstants
+     * @param table The table to publish the plan of each move to, or null to not publish
+     */
+    public ArmConstraintScheduler( NetworkTable table ) {
+        this( ArmConstants.SCHEDULER_CURRENT_BUDGET_AMPS, ArmConstants.SCHEDULER_MIN_SUPPLY_VOLTS,
+              ArmConstants.SCHEDULER_HEADROOM_VOLTS, ArmConstants.SCHEDULER_DERATE_START_CELSIUS,
+              ArmConstants.SCHEDULER_DERATE_END_CELSIUS, table ); 
+    }
+
+    /**
+     * Creates a scheduler
+     * @param currentBudgetAmps The stator current both motors together may draw during a move (Amps)
+     * @param minSupplyVolts The lowest the supply may sag to during a move (Volts)
+     * @param headroomVolts The voltage left for the PID above the feedforward (Volts)
+     * @param derateStartCelsius The temperature the derating starts at (Celsius)
+     * @param derateEndCelsius The temperature the constraints reach MIN_SCALE at (Celsius)
+     * @param table The table to publish the plan of each move to, or null to not publish
+     */
+    public ArmConstraintScheduler( double currentBudgetAmps, double minSupplyVolts, double headroomVolts,
+                                   double derateStartCelsius, double derateEndCelsius, NetworkTable table ) {
+        this.currentBudgetAmps = currentBudgetAmps; 
+        this.minSupplyVolts = minSupplyVolts; 
+        this.headroomVolts = headroomVolts; 
+        this.derateStartCelsius = derateStartCelsius; 
+        this.derateEndCelsius = derateEndCelsius; 
+
+        if ( table == null ) {
+            cruiseVelocityPublisher = null; 
+            accelerationPublisher = null; 
+            electricalScalePublisher = null; 
+            thermalScalePublisher = null; 
+            minSupplyPublisher = null; 
+            peakCurrentPublisher = null; 
+            return; 
+        }
+        cruiseVelocityPublisher = table.getDoubleTopic( "CruiseVelocity" ).publish(); 
+        accelerationPublisher = table.getDoubleTopic( "Acceleration" ).publish(); 
+        electricalScalePublisher = table.getDoubleTopic( "ElectricalScale" ).publish(); 
+        thermalScalePublisher = table.getDoubleTopic( "ThermalScale" ).publish(); 
+        minSupplyPublisher = table.getDoubleTopic( "LastMoveMinSupplyVolts" ).publish(); 
+        peakCurrentPublisher = table.getDoubleTopic( "LastMovePeakCurrentAmps" ).publish(); 
+    }
+
+    /**
+     * Watches the supply, current and temperature of the arm, called once per loop
+     * @param inputs The inputs of this loop
+     */
+    public void observe( ArmIO.ArmIOInputs inputs ) {
+        if ( inputs.armSupplyVolts > 0.0 ) {
+            supplyVolts = inputs.armSupplyVolts; 
+            moveMinSupplyVolts = Math.min( moveMinSupplyVolts, supplyVolts ); 
+        }
+        movePeakCurrentAmps = Math.max( movePeakCurrentAmps,
+                                        Math.abs( inputs.armStatorCurrentAmps ) + Math.abs( inputs.armFollowerStatorCurrentAmps ) ); 
+        tempCelsius = Math.max( inputs.armTempCelsius, inputs.armFollowerTempCelsius ); 
+    }
+
+    /**
+     * Works out the constraints of a new move from how the last one went, called once per move
+     * @param base The configured Motion Magic constraints
+     * @param slot1 The gains the moves run on, for the voltage caps
+     */
+    public void plan( ArmProfileConstraints base, ArmGains.Slot slot1 ) {
+        // Electrical - how the last move went against the budget
+        if ( moving ) {
+            double scale = 1.0; 
+            if ( movePeakCurrentAmps > currentBudgetAmps ) {
+                scale = Math.min( scale, currentBudgetAmps / movePeakCurrentAmps ); 
+            }
+            double sagVolts = moveStartSupplyVolts - moveMinSupplyVolts; 
+            if ( moveMinSupplyVolts < minSupplyVolts && sagVolts > 0.0 ) {
+                scale = Math.min( scale, Math.max( 0.0, moveStartSupplyVolts - minSupplyVolts ) / sagVolts ); 
+            }
+            electricalScale = scale < 1.0 ? electricalScale * scale : electricalScale * RECOVERY_RATE; 
+            electricalScale = Math.max( MIN_SCALE, Math.min( 1.0, electricalScale ) ); 
+            if ( minSupplyPublisher != null ) {
+                minSupplyPublisher.set( moveMinSupplyVolts ); 
+                peakCurrentPublisher.set( movePeakCurrentAmps ); 
+            }
+        }
+
+        // Thermal - linear derating between the start and end temperatures
+        double derate = ( tempCelsius - derateStartCelsius ) / ( derateEndCelsius - derateStartCelsius ); 
+        thermalScale = Math.max( MIN_SCALE, Math.min( 1.0, 1.0 - derate * ( 1.0 - MIN_SCALE ) ) ); 
+
+        double scale = Math.max( MIN_SCALE, electricalScale * thermalScale ); 
+        cruiseVelocity = base.cruiseVelocity() * scale; 
+        acceleration = base.acceleration() * scale; 
+        jerk = base.jerk() * scale; // 0 stays unlimited
+
+        // Voltage - the feedforward of the cruise (or the start of the move) at horizontal must fit in the supply
+        if ( supplyVolts > 0.0 ) {
+            double availableVolts = supplyVolts - headroomVolts - slot1.kG() - slot1.kS(); 
+            if ( slot1.kV() > 0.0 ) {
+                cruiseVelocity = Math.min( cruiseVelocity, availableVolts / slot1.kV() ); 
+            }
+            if ( slot1.kA() > 0.0 ) {
+                acceleration = Math.min( acceleration, availableVolts / slot1.kA() ); 
+            }
+            cruiseVelocity = Math.max( base.cruiseVelocity() * MIN_SCALE, cruiseVelocity ); 
+            acceleration = Math.max( base.acceleration() * MIN_SCALE, acceleration ); 
+        }
+        if ( cruiseVelocity < base.cruiseVelocity() || acceleration < base.acceleration() ) {
+            limitedMoves++; 
+        }
+        plannedMoves++; 
+
+        // Watching the new move
+        moving = true; 
+        moveStartSupplyVolts = supplyVolts; 
+        moveMinSupplyVolts = supplyVolts > 0.0 ? supplyVolts : Double.POSITIVE_INFINITY; 
+        movePeakCurrentAmps = 0.0; 
+
+        if ( cruiseVelocityPublisher != null ) {
+            cruiseVelocityPublisher.set( cruiseVelocity ); 
+            accelerationPublisher.set( acceleration ); 
+            electricalScalePublisher.set( electricalScale ); 
+            thermalScalePublisher.set( thermalScale ); 
+        }
+    }
+
+    /**
+     * @return The cruise velocity of the current move (Rotations per second)
+     */
+    public double getCruiseVelocity() {
+        return cruiseVelocity; 
+    }
+
+    /**
+     * @return The acceleration of the current move (Rotations per second^2)
+     */
+    public double getAcceleration() {
+        return acceleration; 
+    }
+
+    /**
+     * @return The jerk of the current move (Rotations per second^3), 0 when not limited
+     */
+    public double getJerk() {
+        return jerk; 
+    }
+
+    /**
+     * @return The cut to the constraints from the current and supply sag of the last moves, 1 for none
+     */
+    public double getElectricalScale() {
+        return electricalScale; 
+    }
+
+    /**
+     * @return The cut to the constraints from the temperature of the motors, 1 for none
+     */
+    public double getThermalScale() {
+        return thermalScale; 
+    }
+
+    /**
+     * @return The number of moves planned
+     */
+    public long getPlannedMoves() {
+        return plannedMoves; 
+    }
+
+    /**
+     * @return The number of moves that ran slower than the configured constraints
+     */
+    public long getLimitedMoves() {
+        return limitedMoves; 
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * @file ArmControlMode.java
+ * @brief The control modes that the Arm can command its motors in
+ */
+
+package frc.robot.subsystems.Arm;
+
+/**
+ * The control requests that the Arm Subsystem can send through ArmIO.
+ */
+public enum ArmControlMode {
+    /** Motors are set to Neutral (Brake), nothing is driving the arm */
+    NEUTRAL, 
+    /** PositionVoltage on Slot 0, used for holding the arm in place */
+    POSITION, 
+    /** MotionMagicVoltage on Slot 1, used for moving the arm */
+    MOTION_MAGIC, 
+    /** PositionVoltage on Slot 1 with a velocity feedforward, streaming a profile generated on the roboRIO */
+    PROFILED_POSITION, 
+    /** VoltageOut on the master motor with no closed loop, used by the system identification routine */
+    VOLTAGE
+}
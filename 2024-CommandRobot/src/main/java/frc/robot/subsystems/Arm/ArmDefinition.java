@@ -6,13 +6,13 @@
 package frc.robot.subsystems.Arm;
 
 import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
 import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.Utils;
 import com.ctre.phoenix6.configs.CANcoderConfiguration;
+import com.ctre.phoenix6.configs.FeedbackConfigs;
 import com.ctre.phoenix6.configs.TalonFXConfiguration;
 import com.ctre.phoenix6.controls.Follower;
-import com.ctre.phoenix6.controls.MotionMagicVoltage;
-import com.ctre.phoenix6.controls.NeutralOut;
-import com.ctre.phoenix6.controls.PositionVoltage;
 import com.ctre.phoenix6.hardware.CANcoder;
 import com.ctre.phoenix6.hardware.TalonFX;
 import com.ctre.phoenix6.signals.AbsoluteSensorRangeValue;
@@ -23,6 +23,9 @@ import com.ctre.phoenix6.signals.NeutralModeValue;
 import com.ctre.phoenix6.signals.SensorDirectionValue;
 
 import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.util.CANSignalRefresher;
+import frc.robot.util.DeviceBringUp;
 
 /** This class is where all the devices and defined and configured and all the necessary functions
  * needed to maintain/run the Arm Subsystem Class. In essense, it contains all the functions/methods for
@@ -48,23 +51,78 @@ public class ArmDefinition implements ArmIO {
 
     // Motor and Encoder Configuration Settings
     private final TalonFXConfiguration armConfig; 
+    private final TalonFXConfiguration followerConfig; 
     private final CANcoderConfiguration encoderConfig; 
 
-    // Status Signal
+    // Status Signals
     private final StatusSignal<Double> armEncoderPositionRotations; 
+    private final StatusSignal<Double> armEncoderVelocityRotations; 
+    private final StatusSignal<Double> armMotorPositionRotations; 
+    private final StatusSignal<Double> armMotorVoltage; 
+    private final StatusSignal<Double> armMotorSupplyVoltage; 
+    private final StatusSignal<Double> armMotorStatorCurrent; 
+    private final StatusSignal<Double> armFollowerStatorCurrent; 
+    private final StatusSignal<Double> armMotorTemp; 
+    private final StatusSignal<Double> armFollowerTemp; 
+    private final StatusSignal<Double> armRotorPositionRotations; 
+    private final StatusSignal<Double> armRotorVelocityRotations; 
+    private final StatusSignal<Boolean>[] encoderFaults; 
+    private final StatusSignal<Double>[] followerStatorCurrents; // The one follower, as the shared check takes any number
+    private final StatusSignal<Boolean>[] followerFaults; 
+    /**
+     * The Status Signals refreshed together in a single batched call every loop. 
+     * The array is created once so refreshing does not allocate. The encoder position and 
+     * velocity are not in here, they are owned by the sampling thread.
+     */
+    private final BaseStatusSignal[] armSignals; 
+    private final boolean sharedRefresh; // True if the CANSignalRefresher of the robot refreshes armSignals
+
+    // High Frequency Sampling of the Encoder
+    private final ArmSampleBuffer sampleBuffer; 
+    private final ArmSignalSampler sampler; 
+    private double lastSampleTimestampSecs; 
+    private double lastSamplePositionRotations; 
+    private double lastSampleVelocityRotations; 
+
+    // Health Monitoring - checked every loop from the refreshed signals, nothing here blocks
+    private final ArmEncoderHealth encoderHealth = new ArmEncoderHealth(); 
+    private boolean encoderHealthy = true; 
+    private final ArmFollowerHealth followerHealth = new ArmFollowerHealth( "Arm" ); 
+    private double rotorOffsetRotations; // Encoder position minus rotor position, captured while the encoder is healthy
+    private volatile boolean rotorFeedbackReady; // Set by the fallback thread once the master closes the loop on the rotor
 
-    // PID Controllers Optimization
-    private PositionVoltage pPos = new PositionVoltage( 0, 0, false, 0, 0, false , false, false );       // Holding the Arm in Place
-    private MotionMagicVoltage pMnPos = new MotionMagicVoltage( 0, false, 0, 1, false, false, false );  // Moving the Arm
+    // PID Controllers Optimization - the Control Requests of the master are created once and reused every loop
+    private final ArmLeaderRequests requests; 
     
     /**
-     * Constructor for Defining and Initializing Motors and other items responsible for the Arm
+     * Constructor for Defining and Initializing Motors and other items responsible for the Arm, 
+     * with the parameters loaded from the deploy directory (or the defaults in ArmConstants)
      */
     public ArmDefinition() {
+        this( ArmConfig.loadAtBoot() ); 
+    }
+
+    /**
+     * Constructor for Defining and Initializing Motors and other items responsible for the Arm, 
+     * refreshing its own Status Signals every loop
+     * @param config The gains and Motion Magic constraints
+     */
+    public ArmDefinition( ArmConfig config ) {
+        this( config, null ); 
+    }
+
+    /**
+     * Constructor for Defining and Initializing Motors and other items responsible for the Arm
+     * @param config The gains and Motion Magic constraints
+     * @param signalRefresher The refresher shared by every mechanism, refreshed before updateInputs 
+     *                        every loop, or null for the arm to refresh its own Status Signals
+     */
+    @SuppressWarnings( { "unchecked", "rawtypes" } )
+    public ArmDefinition( ArmConfig config, CANSignalRefresher signalRefresher ) {
         // Motor and Encoder Definition
-        masterMotor = new TalonFX( ArmConstants.ARM_MASTER_ID ); 
-        followerMotor = new TalonFX( ArmConstants.ARM_FOLLOWER_ID ); 
-        armEncoder = new CANcoder( ArmConstants.ARM_ENCODER_ID ); 
+        masterMotor = new TalonFX( ArmConstants.ARM_MASTER_ID, ArmConstants.ARM_CAN_BUS ); 
+        followerMotor = new TalonFX( ArmConstants.ARM_FOLLOWER_ID, ArmConstants.ARM_CAN_BUS ); 
+        armEncoder = new CANcoder( ArmConstants.ARM_ENCODER_ID, ArmConstants.ARM_CAN_BUS ); 
         // Setting the Follower Motor to follow the Master Motor 
         followerMotor.setControl( new Follower( ArmConstants.ARM_MASTER_ID, true ) ); 
 
@@ -76,35 +134,20 @@ public class ArmDefinition implements ArmIO {
         armConfig.Feedback.FeedbackSensorSource = FeedbackSensorSourceValue.SyncCANcoder;
         armConfig.Feedback.FeedbackRemoteSensorID = ArmConstants.ARM_ENCODER_ID;
 
-        // PID Configurations - Holding the Arm
-        armConfig.Slot0.GravityType = GravityTypeValue.Arm_Cosine; // Accounting for Gravity
-        armConfig.Slot0.kG = 0.35; // Gravity Feedfroward/Feeback Gain
-        armConfig.Slot0.kP = 60; // Proportional Gain
-        armConfig.Slot0.kI = 0; // Intergal Gain
-        armConfig.Slot0.kD = 0.02; // Derivative Gain
-        armConfig.Slot0.kS = 0; // Static Feedforward Gain
-        armConfig.Slot0.kV = 0; // Velocity Feedforward Gain
-        armConfig.Slot0.kA = 0; // Acceleration Feedforward Gain
-
-        // PID Configurations - Moving the Arm
-        armConfig.Slot1.GravityType = GravityTypeValue.Arm_Cosine; // Accounting for Gravity
-        armConfig.Slot1.kG = 0.35; // Gravity Feedfroward/Feeback Gain
-        armConfig.Slot1.kP = 60; // Proportional Gain
-        armConfig.Slot1.kI = 0; // Intergal Gain
-        armConfig.Slot1.kD = 0; // Derivative Gain
-        armConfig.Slot1.kS = 0; // Static Feedforward Gain
-        armConfig.Slot1.kV = 8; // Velocity Feedforward Gain
-        armConfig.Slot1.kA = 0.2; // Acceleration Feedforward Gain
+        // PID Configurations - Slot 0 holds the Arm, Slot 1 moves it, both accounting for Gravity
+        armConfig.Slot0 = config.toSlot0Configs( GravityTypeValue.Arm_Cosine ); 
+        armConfig.Slot1 = config.toSlot1Configs( GravityTypeValue.Arm_Cosine ); 
+
+        // Soft Limits - the master stops driving past the edges of the envelope on its own
+        armConfig.SoftwareLimitSwitch = ArmEnvelope.DEFAULT.toSoftLimitConfigs(); 
 
         // Motion Magic Configurations
-        armConfig.MotionMagic.MotionMagicCruiseVelocity = 1.0; 
-        armConfig.MotionMagic.MotionMagicAcceleration = 2; 
-        armConfig.MotionMagic.MotionMagicJerk = 10; 
+        armConfig.MotionMagic = config.toMotionMagicConfigs(); 
 
-        // Applying Motor Configuration to the Motors
-        masterMotor.getConfigurator().apply( armConfig ); // For Master Motor
-        armConfig.MotorOutput.Inverted = InvertedValue.CounterClockwise_Positive; 
-        followerMotor.getConfigurator().apply( armConfig ); // For Follower Motor
+        // Follower Motor Configuration - the same as the Master Motor but turning the other way
+        followerConfig = new TalonFXConfiguration(); 
+        followerConfig.deserialize( armConfig.serialize() ); 
+        followerConfig.MotorOutput.Inverted = InvertedValue.CounterClockwise_Positive; 
 
         // Arm Encoder Configuration
         encoderConfig = new CANcoderConfiguration(); 
@@ -112,57 +155,281 @@ public class ArmDefinition implements ArmIO {
         encoderConfig.MagnetSensor.SensorDirection = SensorDirectionValue.Clockwise_Positive; // Same as Master Motor
         encoderConfig.MagnetSensor.MagnetOffset = 0.0; // Add any required offset for zeroing the sensor
 
-        // Applying Encoder Configuration to the Motors
-        armEncoder.getConfigurator().apply( encoderConfig ); 
+        // Applying the Configurations to all the Devices at once, skipping devices already configured
+        new DeviceBringUp( "Arm", ArmConstants.CONFIG_TIMEOUT_SECS, ArmConstants.CONFIG_MAX_ATTEMPTS )
+            .add( "Master Motor", masterMotor, armConfig )
+            .add( "Follower Motor", followerMotor, followerConfig )
+            .add( "Encoder", armEncoder, encoderConfig )
+            .run(); 
+        requests = new ArmLeaderRequests( masterMotor, ArmConstants.ARM_CAN_BUS, GravityTypeValue.Arm_Cosine, config ); 
 
         // Status Signal Initialization
         armEncoderPositionRotations = armEncoder.getPosition(); 
+        armEncoderVelocityRotations = armEncoder.getVelocity(); 
+        armMotorPositionRotations = masterMotor.getPosition(); 
+        armMotorVoltage = masterMotor.getMotorVoltage(); 
+        armMotorSupplyVoltage = masterMotor.getSupplyVoltage(); 
+        armMotorStatorCurrent = masterMotor.getStatorCurrent(); 
+        armFollowerStatorCurrent = followerMotor.getStatorCurrent(); 
+        armMotorTemp = masterMotor.getDeviceTemp(); 
+        armFollowerTemp = followerMotor.getDeviceTemp(); 
+        armRotorPositionRotations = masterMotor.getRotorPosition(); 
+        armRotorVelocityRotations = masterMotor.getRotorVelocity(); 
+        encoderFaults = new StatusSignal[] { armEncoder.getFault_Hardware(), armEncoder.getFault_BadMagnet() }; 
+        followerStatorCurrents = new StatusSignal[] { armFollowerStatorCurrent }; 
+        followerFaults = new StatusSignal[] { followerMotor.getFault_Hardware(), followerMotor.getFault_DeviceTemp() }; 
+        armSignals = new BaseStatusSignal[] {
+            armMotorPositionRotations, armMotorVoltage, armMotorSupplyVoltage, armMotorStatorCurrent, 
+            armFollowerStatorCurrent, armMotorTemp, armFollowerTemp, 
+            armRotorPositionRotations, armRotorVelocityRotations, 
+            encoderFaults[0], encoderFaults[1], followerFaults[0], followerFaults[1] 
+        }; 
+        sharedRefresh = signalRefresher != null; 
+        if ( sharedRefresh ) {
+            signalRefresher.register( ArmConstants.ARM_CAN_BUS, armSignals ); 
+        }
 
         // Setting up the Updating Cycle
+        BaseStatusSignal.setUpdateFrequencyForAll(
+            ArmConstants.SAMPLE_FREQUENCY_HZ,
+            armEncoderPositionRotations, 
+            armEncoderVelocityRotations);
         BaseStatusSignal.setUpdateFrequencyForAll(
             100,
-            armEncoderPositionRotations);
+            armMotorPositionRotations, 
+            armRotorPositionRotations, 
+            armRotorVelocityRotations);
+        BaseStatusSignal.setUpdateFrequencyForAll(
+            50,
+            armMotorVoltage, 
+            armMotorSupplyVoltage, 
+            armMotorStatorCurrent, 
+            armFollowerStatorCurrent);
+        BaseStatusSignal.setUpdateFrequencyForAll(
+            4,
+            armMotorTemp, 
+            armFollowerTemp, 
+            encoderFaults[0], 
+            encoderFaults[1], 
+            followerFaults[0], 
+            followerFaults[1]);
+
+        // Starting the Sampling Thread - from here on it owns the encoder signals
+        sampleBuffer = new ArmSampleBuffer( ArmConstants.SAMPLE_BUFFER_CAPACITY ); 
+        sampler = new ArmSignalSampler( armEncoderPositionRotations, armEncoderVelocityRotations, 
+                                        sampleBuffer, ArmConstants.SAMPLE_FREQUENCY_HZ ); 
+        sampler.start(); 
     }
 
     /**
-     * Updates all the listed variables stored
+     * Drains the encoder samples taken by the sampling thread since the last loop, refreshes the 
+     * remaining Status Signals in a single batched call (unless the shared refresher already has), 
+     * then updates all the listed variables stored. The encoder position is latency compensated with the encoder velocity, so it is the 
+     * estimated position of the arm at the time of this call. 
+     * 
+     * Degraded Mode: once the encoder stops updating or faults, the arm position comes from the 
+     * master rotor plus the offset captured while the encoder was healthy. The master is stopped 
+     * until it has been switched to closing the loop on its rotor (done on a separate thread), and 
+     * whenever the follower has dropped off the bus or faulted. 
      */
     public void updateInputs( ArmIOInputs inputs ) {
-        inputs.armEncoderPositionRads = Units.rotationsToRadians( armEncoderPositionRotations.getValueAsDouble() );
+        if ( !sharedRefresh ) {
+            BaseStatusSignal.refreshAll( armSignals ); 
+        }
+        double nowSecs = Utils.getCurrentTimeSeconds(); 
+
+        // Newest Encoder Sample
+        int sampleCount = sampleBuffer.drainTo( inputs ); 
+        if ( sampleCount > 0 ) {
+            lastSampleTimestampSecs = inputs.sampleTimestampsSecs[sampleCount - 1]; 
+            lastSamplePositionRotations = Units.radiansToRotations( inputs.samplePositionsRads[sampleCount - 1] ); 
+            lastSampleVelocityRotations = Units.radiansToRotations( inputs.sampleVelocitiesRadsPerSec[sampleCount - 1] ); 
+        }
+        double encoderLatencySecs = nowSecs - lastSampleTimestampSecs; 
+        updateHealth( nowSecs ); 
+
+        // Position and Velocity
+        double rotorPositionRotations = armRotorPositionRotations.getValueAsDouble() / ArmConstants.ROTOR_TO_SENSOR_RATIO; 
+        if ( encoderHealthy ) {
+            // From the newest encoder sample, not extrapolating further than one loop
+            double compensationSecs = Math.min( encoderLatencySecs, ArmConstants.LOOP_PERIOD_SECS ); 
+            double compensatedPositionRotations = lastSamplePositionRotations + lastSampleVelocityRotations * compensationSecs; 
+            rotorOffsetRotations = compensatedPositionRotations - rotorPositionRotations; 
+            inputs.armEncoderPositionRads = Units.rotationsToRadians( compensatedPositionRotations ); 
+            inputs.armEncoderPositionTimestampSecs = lastSampleTimestampSecs; 
+            inputs.armEncoderLatencySecs = encoderLatencySecs; 
+            inputs.armVelocityRadsPerSec = Units.rotationsToRadians( lastSampleVelocityRotations ); 
+            inputs.armVelocityTimestampSecs = lastSampleTimestampSecs; 
+        } 
+        else {
+            // From the rotor of the master motor, the encoder samples are ignored
+            double rotorTimestampSecs = armRotorPositionRotations.getTimestamp().getTime(); 
+            inputs.sampleCount = 0; 
+            inputs.armEncoderPositionRads = Units.rotationsToRadians( rotorPositionRotations + rotorOffsetRotations ); 
+            inputs.armEncoderPositionTimestampSecs = rotorTimestampSecs; 
+            inputs.armEncoderLatencySecs = nowSecs - rotorTimestampSecs; 
+            inputs.armVelocityRadsPerSec = Units.rotationsToRadians( armRotorVelocityRotations.getValueAsDouble() / ArmConstants.ROTOR_TO_SENSOR_RATIO ); 
+            inputs.armVelocityTimestampSecs = armRotorVelocityRotations.getTimestamp().getTime(); 
+        }
+        inputs.armPositionRads = Units.rotationsToRadians( armMotorPositionRotations.getValueAsDouble() ); 
+        inputs.armPositionTimestampSecs = armMotorPositionRotations.getTimestamp().getTime(); 
+
+        // Electrical
+        inputs.armAppliedVolts = armMotorVoltage.getValueAsDouble(); 
+        inputs.armAppliedVoltsTimestampSecs = armMotorVoltage.getTimestamp().getTime(); 
+        inputs.armSupplyVolts = armMotorSupplyVoltage.getValueAsDouble(); 
+        inputs.armStatorCurrentAmps = armMotorStatorCurrent.getValueAsDouble(); 
+        inputs.armFollowerStatorCurrentAmps = armFollowerStatorCurrent.getValueAsDouble(); 
+        inputs.armStatorCurrentTimestampSecs = armMotorStatorCurrent.getTimestamp().getTime(); 
+
+        // Temperature
+        inputs.armTempCelsius = armMotorTemp.getValueAsDouble(); 
+        inputs.armFollowerTempCelsius = armFollowerTemp.getValueAsDouble(); 
+        inputs.armTempTimestampSecs = armMotorTemp.getTimestamp().getTime(); 
+
+        // Health
+        inputs.encoderHealthy = encoderHealthy; 
+        inputs.followerHealthy = followerHealth.isHealthy(); 
+        inputs.driveEnabled = requests.isDriveEnabled(); 
     }
 
     /**
-     * Sets the following Motors to a Netural Mode, which stops all the motors from running
+     * Checks the encoder and follower from the signals refreshed this loop, and stops the master 
+     * as soon as it is no longer safe to drive. 
+     * The encoder is checked by the ArmEncoderHealth, against the newest sample the sampling 
+     * thread took, so a slow loop is not a lost encoder. A failed wait of the sampling thread only 
+     * shows up here once the samples are stale, a single missed frame is not a lost encoder. It is 
+     * not trusted again until the robot code restarts. 
+     * The follower is checked by the ArmFollowerHealth shared with every other joint. 
+     */
+    private void updateHealth( double nowSecs ) {
+        // Encoder
+        if ( encoderHealthy ) {
+            boolean encoderFaulted = ArmFollowerHealth.anyFaulted( encoderFaults ); 
+            if ( !encoderHealth.update( nowSecs, sampleBuffer.getNewestTimestampSecs(), encoderFaulted ) ) {
+                encoderHealthy = false; 
+                if ( encoderHealth.hasSample() ) {
+                    DriverStation.reportWarning( "Arm: encoder lost, falling back to the rotor sensor", false ); 
+                    startRotorFallback(); 
+                } 
+                else {
+                    DriverStation.reportError( "Arm: encoder never reported a position, the arm is disabled", false ); 
+                }
+            }
+        }
+
+        // Follower
+        boolean followerHealthy = followerHealth.update( nowSecs, followerStatorCurrents, followerFaults ); 
+
+        // Stopping the master right away, not waiting for the next control request
+        requests.setDriveEnabled( followerHealthy && ( encoderHealthy || rotorFeedbackReady ) ); 
+    }
+
+    /**
+     * Switches the master motor to closing the loop on its own rotor, seeded with the position 
+     * captured from the encoder. The configuration calls block on the CAN bus, so they run on their 
+     * own thread and the robot loop keeps the master stopped until they are done. 
+     */
+    private void startRotorFallback() {
+        final double offsetRotations = rotorOffsetRotations; 
+        Thread fallback = new Thread( () -> {
+            FeedbackConfigs rotorFeedback = new FeedbackConfigs(); 
+            rotorFeedback.FeedbackSensorSource = FeedbackSensorSourceValue.RotorSensor; 
+            rotorFeedback.SensorToMechanismRatio = ArmConstants.ROTOR_TO_SENSOR_RATIO; 
+            StatusCode status = masterMotor.getConfigurator().apply( rotorFeedback, ArmConstants.CONFIG_TIMEOUT_SECS ); 
+            if ( status.isOK() ) {
+                // A separate copy of the rotor signal, the robot loop owns the shared one
+                StatusSignal<Double> rotorPosition = armRotorPositionRotations.clone(); 
+                double positionRotations = rotorPosition.refresh().getValueAsDouble() / ArmConstants.ROTOR_TO_SENSOR_RATIO + offsetRotations; 
+                status = masterMotor.getConfigurator().setPosition( positionRotations, ArmConstants.CONFIG_TIMEOUT_SECS ); 
+            }
+            if ( status.isOK() ) {
+                rotorFeedbackReady = true; 
+                DriverStation.reportWarning( "Arm: master motor is now using the rotor sensor", false ); 
+            } 
+            else {
+                DriverStation.reportError( "Arm: could not switch to the rotor sensor (" + status + "), the arm is disabled", false ); 
+            }
+        }, "ArmRotorFallback" ); 
+        fallback.setDaemon( true ); 
+        fallback.start(); 
+    }
+
+    /**
+     * Sets the Master Motor to a Netural Mode, which stops all the motors from running. 
+     * The Follower Motor keeps its Follower request and goes Neutral with the Master Motor.
      * @return
      */
     @Override
     public void stop() {
-        masterMotor.setControl( new NeutralOut() ); 
-        followerMotor.setControl( new NeutralOut() ); 
+        requests.stop(); 
     }
 
     /**
      * This method uses a simple position control to move the arm to a 
-     * specific position (in rotations). It sets the desired position for both the leader 
-     * and follower motors using the PositionVoltage control mode.
+     * specific position (in rotations). It sets the desired position of the leader motor using 
+     * the PositionVoltage control mode, the follower motor keeps following the leader.
      * @param positionRotations The desired position that the arm would like to go to
+     * @param feedforwardVolts Extra feedforward added on top of the Slot 0 gains
      * @return
      */
     @Override
-    public void setPositionControl( double positionRotations ) {
-        masterMotor.setControl( pPos.withPosition( positionRotations ) );
-        followerMotor.setControl( pPos.withPosition( positionRotations ) );
+    public void setPositionControl( double positionRotations, double feedforwardVolts ) {
+        requests.setPositionControl( positionRotations, feedforwardVolts ); 
     }
 
     /**
      * This method uses Motion Magic to move the arm smoothly to a specific position, 
-     * considering the velocity and acceleration limits defined in the configuration.
+     * keeping to the velocity and acceleration limits given for this move (see ArmMotionMagicRequest). 
+     * Only the leader motor is commanded, the follower motor keeps following the leader.
      * @param positionRotations The specific position that the arm would like to move to
+     * @param cruiseVelocity The cruise velocity of the move (Rotations per second)
+     * @param acceleration The acceleration of the move (Rotations per second^2)
+     * @param jerk The jerk of the move (Rotations per second^3)
+     * @param feedforwardVolts Extra feedforward added on top of the Slot 1 gains
      * @return
      */
     @Override 
-    public void setMotionControl( double positionRotations ) {
-        masterMotor.setControl( pMnPos.withPosition( positionRotations ) );
-        followerMotor.setControl( pMnPos.withPosition( positionRotations ) );  
+    public void setMotionControl( double positionRotations, double cruiseVelocity, double acceleration, double jerk, double feedforwardVolts ) {
+        requests.setMotionControl( positionRotations, cruiseVelocity, acceleration, jerk, feedforwardVolts ); 
+    }
+
+    /**
+     * This method follows a motion profile generated on the roboRIO, one point per loop. 
+     * It sets the position and velocity of the profile point with PositionVoltage on Slot 1, 
+     * so the velocity gain of Slot 1 acts as the feedforward along the profile. 
+     * Only the leader motor is commanded, the follower motor keeps following the leader.
+     * @param positionRotations The position of the profile point
+     * @param velocityRotationsPerSec The velocity of the profile point
+     * @param feedforwardVolts Extra feedforward added on top of the Slot 1 gains
+     * @return
+     */
+    @Override
+    public void setProfiledPositionControl( double positionRotations, double velocityRotationsPerSec, double feedforwardVolts ) {
+        requests.setProfiledPositionControl( positionRotations, velocityRotationsPerSec, feedforwardVolts ); 
+    }
+
+    /**
+     * This method applies a fixed voltage to the leader motor with no closed loop, which is what 
+     * the system identification routine needs. The follower motor keeps following the leader.
+     * @param volts The voltage to apply
+     * @return
+     */
+    @Override
+    public void setVoltage( double volts ) {
+        requests.setVoltage( volts ); 
+    }
+
+    /**
+     * Applies the parts of the config that are different from what the master motor has: each 
+     * slot and the Motion Magic constraints are separate config groups, so only those that changed 
+     * are sent. The follower motor only follows, so it does not need them. 
+     * This blocks on the CAN bus, so it must not be called from the robot loop.
+     * @param config The new gains and Motion Magic constraints
+     * @return True if every changed part was applied
+     */
+    @Override
+    public boolean applyConfig( ArmConfig config ) {
+        return requests.applyConfig( config ); 
     }
 }
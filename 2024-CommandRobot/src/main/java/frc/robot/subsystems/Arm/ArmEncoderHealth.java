@@ -0,0 +1,79 @@
+/**
+ * @file ArmEncoderHealth.java
+ * @brief Tracks whether the encoder of the Arm is still sending samples
+ */
+
+package frc.robot.subsystems.Arm;
+
+/**
+ * The encoder check of the Arm (ArmDefinition). 
+ * 
+ * The encoder is lost once its newest sample is older than the stale time, or it reports a fault. 
+ * The newest sample is the one the sampling thread last took (ArmSampleBuffer.getNewestTimestampSecs), 
+ * not the last one the robot loop drained, so a loop that stalls for longer than the buffer holds 
+ * does not look like a lost encoder. Until the first sample arrives the encoder gets the boot 
+ * timeout instead, counted from the first check rather than from when the arm was created, since 
+ * the robot loop may only start well after that. Once lost it is not trusted again. Nothing here 
+ * blocks or allocates. 
+ */
+public class ArmEncoderHealth {
+    // Decleration
+    private final double staleSecs; 
+    private final double bootTimeoutSecs; 
+    private boolean healthy = true; 
+    private boolean hasSample; 
+    private double firstCheckSecs = Double.NaN; 
+
+    /**
+     * Creates the check with the times in ArmConstants
+     */
+    public ArmEncoderHealth() {
+        this( ArmConstants.ENCODER_STALE_SECS, ArmConstants.ENCODER_BOOT_TIMEOUT_SECS ); 
+    }
+
+    /**
+     * Creates the check
+     * @param staleSecs How old the newest sample may get before the encoder is lost (Seconds)
+     * @param bootTimeoutSecs How long after the first check the first sample may take (Seconds)
+     */
+    public ArmEncoderHealth( double staleSecs, double bootTimeoutSecs ) {
+        this.staleSecs = staleSecs; 
+        this.bootTimeoutSecs = bootTimeoutSecs; 
+    }
+
+    /**
+     * Checks the encoder, called once per loop
+     * @param nowSecs The current time (Seconds)
+     * @param newestSampleSecs The time of the newest sample taken, NaN if there has not been one (Seconds)
+     * @param faulted True if the encoder reports a fault
+     * @return True if the encoder can be relied on
+     */
+    public boolean update( double nowSecs, double newestSampleSecs, boolean faulted ) {
+        if ( Double.isNaN( firstCheckSecs ) ) {
+            firstCheckSecs = nowSecs; 
+        }
+        if ( !healthy ) {
+            return false; 
+        }
+        hasSample = !Double.isNaN( newestSampleSecs ); 
+        boolean stale = hasSample 
+            ? nowSecs - newestSampleSecs > staleSecs 
+            : nowSecs - firstCheckSecs > bootTimeoutSecs; 
+        healthy = !stale && !faulted; 
+        return healthy; 
+    }
+
+    /**
+     * @return True if the encoder can be relied on, as of the last update
+     */
+    public boolean isHealthy() {
+        return healthy; 
+    }
+
+    /**
+     * @return True if the encoder has sent at least one sample
+     */
+    public boolean hasSample() {
+        return hasSample; 
+    }
+}
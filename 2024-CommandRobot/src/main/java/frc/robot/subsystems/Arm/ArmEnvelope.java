@@ -0,0 +1,179 @@
+/**
+ * @file ArmEnvelope.java
+ * @brief Lookup table of the angles the Arm may be commanded to
+ */
+
+package frc.robot.subsystems.Arm;
+
+import com.ctre.phoenix6.configs.SoftwareLimitSwitchConfigs;
+
+import edu.wpi.first.math.util.Units;
+
+/**
+ * The angles that keep the arm clear of the robot frame, the floor and the extension and height
+ * limits, worked out once into a lookup table so checking a setpoint is O(1) with no trig.
+ *
+ * The range between the hard stops is split into bins of the resolution. A bin is allowed if the
+ * tip of the arm (the furthest point from the pivot, so the first to hit anything) is within the
+ * limits at both edges and the middle of the bin. The arm can not jump over a forbidden bin, so
+ * only the run of allowed bins around the home position is kept: every other bin is forbidden,
+ * and the edges of that run are the soft limits that the TalonFX enforces on its own at 1 kHz.
+ *
+ * Angles are from horizontal at the front of the robot, positive raising the arm. The geometry is
+ * measured from the pivot: in front of it is positive and the frame runs from -pivotToFrameBack
+ * to pivotToFrameFront.
+ */
+public class ArmEnvelope {
+    /**
+     * Where the arm sits on the robot and the limits it has to stay within (Meters)
+     * @param lengthMeters Pivot to the furthest point of the arm
+     * @param pivotHeightMeters Height of the pivot above the floor
+     * @param pivotToFrameFrontMeters The frame perimeter in front of the pivot
+     * @param pivotToFrameBackMeters The frame perimeter behind the pivot
+     * @param frameHeightMeters Top of the frame and bumpers above the floor, the arm may not go into it
+     * @param maxExtensionMeters How far the arm may reach past the frame perimeter
+     * @param maxHeightMeters How high the arm may reach above the floor
+     * @param floorClearanceMeters How close the arm may come to the floor
+     */
+    public record Geometry( double lengthMeters, double pivotHeightMeters, double pivotToFrameFrontMeters,
+                            double pivotToFrameBackMeters, double frameHeightMeters, double maxExtensionMeters,
+                            double maxHeightMeters, double floorClearanceMeters ) {}
+
+    // The geometry in ArmConstants
+    public static final Geometry ARM_GEOMETRY = new Geometry( ArmConstants.ARM_LENGTH_METERS, ArmConstants.ARM_PIVOT_HEIGHT_METERS,
+        ArmConstants.ARM_PIVOT_TO_FRAME_FRONT_METERS, ArmConstants.ARM_PIVOT_TO_FRAME_BACK_METERS, ArmConstants.FRAME_HEIGHT_METERS,
+        ArmConstants.MAX_EXTENSION_METERS, ArmConstants.MAX_HEIGHT_METERS, ArmConstants.FLOOR_CLEARANCE_METERS ); 
+
+    // Clamped targets stay this far inside the edges, so converting them to Rotations and back stays inside (Radians)
+    private static final double EDGE_MARGIN_RADS = 1e-6; 
+
+    // The envelope of the Arm
+    public static final ArmEnvelope DEFAULT = new ArmEnvelope( ArmConstants.ARM_REVERSE_LIMIT_RADS, ArmConstants.ARM_FORWARD_LIMIT_RADS,
+        ArmConstants.ARM_ENVELOPE_RESOLUTION_RADS, ArmConstants.STOW_POSITION_RADS, ARM_GEOMETRY ); 
+
+    // Lookup Table
+    private final double minRads; 
+    private final double binsPerRad; 
+    private final boolean[] allowed; 
+
+    // The edges of the allowed run, also the soft limits
+    private final double reverseLimitRads; 
+    private final double forwardLimitRads; 
+
+    /**
+     * Works out the lookup table
+     * @param minRads The reverse hard stop (Radians)
+     * @param maxRads The forward hard stop (Radians)
+     * @param resolutionRads The size of a bin (Radians)
+     * @param homeRads An angle the arm is always allowed at, e.g. stowed (Radians)
+     * @param geometry The geometry to check, or null to only keep within the hard stops
+     * @throws IllegalArgumentException If the home angle is not allowed
+     */
+    public ArmEnvelope( double minRads, double maxRads, double resolutionRads, double homeRads, Geometry geometry ) {
+        this.minRads = minRads; 
+        int bins = Math.max( 1, (int) Math.ceil( ( maxRads - minRads ) / resolutionRads ) ); 
+        binsPerRad = bins / ( maxRads - minRads ); 
+        allowed = new boolean[bins]; 
+
+        // Checking the geometry of every bin
+        for ( int bin = 0; bin < bins; bin++ ) {
+            double lowerRads = minRads + bin / binsPerRad; 
+            double upperRads = minRads + ( bin + 1 ) / binsPerRad; 
+            allowed[bin] = geometry == null
+                || ( isClear( geometry, lowerRads ) && isClear( geometry, ( lowerRads + upperRads ) / 2.0 ) && isClear( geometry, upperRads ) ); 
+        }
+
+        // Keeping only the run of allowed bins around home
+        int home = indexOf( homeRads ); 
+        if ( home < 0 || !allowed[home] ) {
+            throw new IllegalArgumentException( "The home angle " + Math.toDegrees( homeRads ) + " deg is outside the envelope" ); 
+        }
+        int first = home; 
+        while ( first > 0 && allowed[first - 1] ) {
+            first--; 
+        }
+        int last = home; 
+        while ( last < bins - 1 && allowed[last + 1] ) {
+            last++; 
+        }
+        for ( int bin = 0; bin < bins; bin++ ) {
+            allowed[bin] = bin >= first && bin <= last; 
+        }
+        reverseLimitRads = minRads + first / binsPerRad; 
+        forwardLimitRads = Math.min( maxRads, minRads + ( last + 1 ) / binsPerRad ); 
+    }
+
+    /**
+     * Checks an angle against the lookup table, O(1) and without allocating
+     * @param positionRads The angle of the arm (Radians)
+     * @return True if the arm may be commanded to the angle
+     */
+    public boolean isAllowed( double positionRads ) {
+        int bin = indexOf( positionRads ); 
+        return bin >= 0 && allowed[bin]; 
+    }
+
+    /**
+     * @param positionRads The angle of the arm (Radians)
+     * @return The closest angle the arm may be commanded to (Radians)
+     */
+    public double clamp( double positionRads ) {
+        return Math.max( reverseLimitRads + EDGE_MARGIN_RADS, Math.min( forwardLimitRads - EDGE_MARGIN_RADS, positionRads ) ); 
+    }
+
+    /**
+     * @return The lowest angle the arm may be commanded to (Radians)
+     */
+    public double getReverseLimitRads() {
+        return reverseLimitRads; 
+    }
+
+    /**
+     * @return The highest angle the arm may be commanded to (Radians)
+     */
+    public double getForwardLimitRads() {
+        return forwardLimitRads; 
+    }
+
+    /**
+     * @return The soft limits of the motor controller, at the edges of the envelope (Rotations)
+     */
+    public SoftwareLimitSwitchConfigs toSoftLimitConfigs() {
+        SoftwareLimitSwitchConfigs softLimits = new SoftwareLimitSwitchConfigs(); 
+        softLimits.ForwardSoftLimitEnable = true; 
+        softLimits.ForwardSoftLimitThreshold = Units.radiansToRotations( forwardLimitRads ); 
+        softLimits.ReverseSoftLimitEnable = true; 
+        softLimits.ReverseSoftLimitThreshold = Units.radiansToRotations( reverseLimitRads ); 
+        return softLimits; 
+    }
+
+    /**
+     * @return The bin of an angle, or -1 if it is outside the hard stops (or NaN)
+     */
+    private int indexOf( double positionRads ) {
+        double offsetBins = ( positionRads - minRads ) * binsPerRad; 
+        if ( !( offsetBins >= 0.0 ) ) {
+            return -1; 
+        }
+        if ( offsetBins >= allowed.length ) {
+            // The forward hard stop itself belongs to the last bin
+            return offsetBins <= allowed.length + 1e-9 ? allowed.length - 1 : -1; 
+        }
+        return (int) offsetBins; 
+    }
+
+    /**
+     * Checks the tip of the arm at one angle against the frame, the floor and the extension limits
+     */
+    private static boolean isClear( Geometry geometry, double positionRads ) {
+        double tipXMeters = geometry.lengthMeters() * Math.cos( positionRads ); 
+        double tipHeightMeters = geometry.pivotHeightMeters() + geometry.lengthMeters() * Math.sin( positionRads ); 
+        boolean overFrame = tipXMeters <= geometry.pivotToFrameFrontMeters() && tipXMeters >= -geometry.pivotToFrameBackMeters(); 
+        double extensionMeters = Math.max( tipXMeters - geometry.pivotToFrameFrontMeters(),
+                                           -geometry.pivotToFrameBackMeters() - tipXMeters ); 
+        return tipHeightMeters >= geometry.floorClearanceMeters()
+            && tipHeightMeters <= geometry.maxHeightMeters()
+            && extensionMeters <= geometry.maxExtensionMeters()
+            && !( overFrame && tipHeightMeters < geometry.frameHeightMeters() ); 
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * @file ArmFeedforwardEstimator.java
+ * @brief Online estimate of the gravity and static friction feedforward of the Arm
+ */
+
+package frc.robot.subsystems.Arm;
+
+import edu.wpi.first.math.util.Units;
+import frc.robot.subsystems.Arm.ArmIO.ArmIOInputs;
+
+/**
+ * Estimates kG and kS of the arm while it moves, from the applied voltage, position and velocity.
+ *
+ * The arm follows the same model that the TalonFX slots use:
+ *   V = kG * cos(position) + kS * sign(v) + kV * v + kA * a
+ * kV and kA are taken as known (Slot 1), so every loop gives one equation in kG and kS:
+ *   V - kV * v - kA * a = kG * cos(position) + kS * sign(v)
+ * which is solved with recursive least squares. Each update is a handful of multiplications on a
+ * 2x2 covariance, so it is O(1) and does not allocate. The forgetting factor lets the estimate
+ * follow the arm as it picks up a game piece or wears.
+ *
+ * Loops where the arm is barely moving (the friction direction is unknown), the output is
+ * saturated or the drive is disabled are not used.
+ */
+public class ArmFeedforwardEstimator {
+    // Estimator Settings
+    private static final double INITIAL_COVARIANCE = 1.0; 
+    private static final double MAX_COVARIANCE_TRACE = 10.0; // Stops the covariance winding up while the arm is idle
+    private static final double SATURATION_VOLTS = 11.0; 
+
+    // Known Gains (Volts, Rotations and Seconds)
+    private final double kV; 
+    private final double kA; 
+    private final double forgettingFactor; 
+    private final double minVelocityRotationsPerSec; 
+
+    // Estimate - starts at the configured gains
+    private final double initialKG; 
+    private final double initialKS; 
+    private double kG; 
+    private double kS; 
+    private double p00, p01, p11; // Covariance
+
+    // Previous Loop - for the acceleration
+    private boolean hasPrevious; 
+    private double previousVelocityRotationsPerSec; 
+    private double previousTimestampSecs; 
+    private long updates; 
+
+    /**
+     * Creates an estimator seeded with the Slot 1 gains
+     */
+    public ArmFeedforwardEstimator() {
+        this( ArmConstants.SLOT1_KG, ArmConstants.SLOT1_KS, ArmConstants.SLOT1_KV, ArmConstants.SLOT1_KA,
+              ArmConstants.FF_ESTIMATOR_FORGETTING_FACTOR, ArmConstants.FF_ESTIMATOR_MIN_VELOCITY ); 
+    }
+
+    /**
+     * Creates an estimator
+     * @param kG Starting estimate of the voltage needed to hold the arm horizontal (Volts)
+     * @param kS Starting estimate of the static friction (Volts)
+     * @param kV Known voltage per unit of velocity (Volts / (Rotations/s))
+     * @param kA Known voltage per unit of acceleration (Volts / (Rotations/s^2))
+     * @param forgettingFactor Weight of the past per update, between 0 and 1 (1 never forgets)
+     * @param minVelocityRotationsPerSec Slowest velocity that is used for an update (Rotations/s)
+     */
+    public ArmFeedforwardEstimator( double kG, double kS, double kV, double kA,
+                                    double forgettingFactor, double minVelocityRotationsPerSec ) {
+        this.initialKG = kG; 
+        this.initialKS = kS; 
+        this.kV = kV; 
+        this.kA = kA; 
+        this.forgettingFactor = forgettingFactor; 
+        this.minVelocityRotationsPerSec = minVelocityRotationsPerSec; 
+        reset(); 
+    }
+
+    /**
+     * Updates the estimate with the inputs of one loop
+     * @param inputs The inputs of the loop
+     */
+    public void update( ArmIOInputs inputs ) {
+        double velocityRotationsPerSec = Units.radiansToRotations( inputs.armVelocityRadsPerSec ); 
+        double timestampSecs = inputs.armVelocityTimestampSecs; 
+        double dt = timestampSecs - previousTimestampSecs; 
+        boolean usable = hasPrevious && dt > 0.0
+            && inputs.driveEnabled
+            && Math.abs( velocityRotationsPerSec ) >= minVelocityRotationsPerSec
+            && Math.abs( inputs.armAppliedVolts ) < SATURATION_VOLTS; 
+
+        if ( usable ) {
+            double accelerationRotationsPerSecSq = ( velocityRotationsPerSec - previousVelocityRotationsPerSec ) / dt; 
+            double y = inputs.armAppliedVolts - kV * velocityRotationsPerSec - kA * accelerationRotationsPerSecSq; 
+            double x0 = Math.cos( inputs.armEncoderPositionRads ); 
+            double x1 = Math.signum( velocityRotationsPerSec ); 
+
+            // Recursive Least Squares
+            double px0 = p00 * x0 + p01 * x1; 
+            double px1 = p01 * x0 + p11 * x1; 
+            double denominator = forgettingFactor + x0 * px0 + x1 * px1; 
+            double k0 = px0 / denominator; 
+            double k1 = px1 / denominator; 
+            double error = y - ( kG * x0 + kS * x1 ); 
+            kG += k0 * error; 
+            kS += k1 * error; 
+            p00 = ( p00 - k0 * px0 ) / forgettingFactor; 
+            p01 = ( p01 - k0 * px1 ) / forgettingFactor; 
+            p11 = ( p11 - k1 * px1 ) / forgettingFactor; 
+
+            double trace = p00 + p11; 
+            if ( trace > MAX_COVARIANCE_TRACE ) {
+                double scale = MAX_COVARIANCE_TRACE / trace; 
+                p00 *= scale; 
+                p01 *= scale; 
+                p11 *= scale; 
+            }
+            // Friction can not push the arm
+            kS = Math.max( 0.0, kS ); 
+            updates++; 
+        }
+
+        hasPrevious = true; 
+        previousVelocityRotationsPerSec = velocityRotationsPerSec; 
+        previousTimestampSecs = timestampSecs; 
+    }
+
+    /**
+     * Goes back to the starting gains and forgets everything learned
+     */
+    public void reset() {
+        kG = initialKG; 
+        kS = initialKS; 
+        p00 = INITIAL_COVARIANCE; 
+        p01 = 0.0; 
+        p11 = INITIAL_COVARIANCE; 
+        hasPrevious = false; 
+        updates = 0; 
+    }
+
+    /**
+     * @return The estimated voltage needed to hold the arm horizontal (Volts)
+     */
+    public double getKG() {
+        return kG; 
+    }
+
+    /**
+     * @return The estimated static friction (Volts)
+     */
+    public double getKS() {
+        return kS; 
+    }
+
+    /**
+     * @return The number of loops used in the estimate since the last reset
+     */
+    public long getUpdates() {
+        return updates; 
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * @file ArmFollowerHealth.java
+ * @brief Tracks whether the follower motors of a rotary joint can be relied on
+ */
+
+package frc.robot.subsystems.Arm;
+
+import com.ctre.phoenix6.StatusSignal;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * The follower check shared by the Arm (ArmDefinition) and every other joint (RotaryMechanism).
+ *
+ * Every loop the followers are checked from the signals that were refreshed: a follower is lost
+ * while its stator current is in error or stale, or it reports a fault. A lost follower makes
+ * the joint stop its leader straight away, and only counts as recovered once the checks have
+ * passed for FOLLOWER_RECOVERY_SECS in a row, so a follower that drops in and out does not turn
+ * the leader on and off. Nothing here blocks or allocates.
+ */
+public class ArmFollowerHealth {
+    // Decleration
+    private final String name; 
+    private final double recoverySecs; 
+    private boolean healthy = true; 
+    private double okSinceSecs; 
+
+    /**
+     * Creates the check with the times in ArmConstants
+     * @param name The name of the joint, used when reporting
+     */
+    public ArmFollowerHealth( String name ) {
+        this( name, ArmConstants.FOLLOWER_RECOVERY_SECS ); 
+    }
+
+    /**
+     * Creates the check
+     * @param name The name of the joint, used when reporting
+     * @param recoverySecs How long a lost follower has to pass the checks before it is trusted again (Seconds)
+     */
+    public ArmFollowerHealth( String name, double recoverySecs ) {
+        this.name = name; 
+        this.recoverySecs = recoverySecs; 
+    }
+
+    /**
+     * Checks the followers from the signals refreshed this loop
+     * @param nowSecs The current time (Seconds)
+     * @param statorCurrents The stator current of every follower
+     * @param faults The fault signals of every follower
+     * @return True if the followers can be relied on
+     */
+    public boolean update( double nowSecs, StatusSignal<Double>[] statorCurrents, StatusSignal<Boolean>[] faults ) {
+        boolean ok = !anyFaulted( faults ); 
+        for ( StatusSignal<Double> current : statorCurrents ) {
+            ok &= current.getStatus().isOK() && nowSecs - current.getTimestamp().getTime() < ArmConstants.FOLLOWER_STALE_SECS; 
+        }
+        return update( nowSecs, ok ); 
+    }
+
+    /**
+     * Moves the check on by one loop
+     * @param nowSecs The current time (Seconds)
+     * @param ok True if every follower passed the checks this loop
+     * @return True if the followers can be relied on
+     */
+    public boolean update( double nowSecs, boolean ok ) {
+        if ( !ok ) {
+            okSinceSecs = nowSecs; 
+            if ( healthy ) {
+                healthy = false; 
+                DriverStation.reportWarning( name + ": follower motor lost, stopping the leader motor", false ); 
+            }
+        }
+        else if ( !healthy && nowSecs - okSinceSecs >= recoverySecs ) {
+            healthy = true; 
+            DriverStation.reportWarning( name + ": follower motor recovered", false ); 
+        }
+        return healthy; 
+    }
+
+    /**
+     * @return True if the followers can be relied on, as of the last update
+     */
+    public boolean isHealthy() {
+        return healthy; 
+    }
+
+    /**
+     * @return True if any of the fault signals is set, a signal that failed to refresh is not a fault
+     */
+    public static boolean anyFaulted( StatusSignal<Boolean>[] faults ) {
+        for ( StatusSignal<Boolean> fault : faults ) {
+            if ( fault.getStatus().isOK() && fault.getValue() ) {
+                return true; 
+            }
+        }
+        return false; 
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * @file ArmGains.java
+ * @brief The PID and feedforward gains of both slots of the Arm
+ */
+
+package frc.robot.subsystems.Arm;
+
+import java.util.Properties;
+
+/**
+ * The gains of Slot 0 (holding the arm) and Slot 1 (moving the arm).
+ *
+ * The gains in ArmConstants are only the defaults, the gains used are loaded with the rest of the
+ * ArmConfig. In the properties files a gain is written as e.g. "slot1.kV=7.9", and any gain that
+ * is not in the file keeps its default.
+ */
+public record ArmGains( Slot slot0, Slot slot1 ) {
+    /**
+     * The gains of one slot, in Volts, Rotations and Seconds
+     * @param kP Proportional Gain
+     * @param kI Integral Gain
+     * @param kD Derivative Gain
+     * @param kS Static Feedforward Gain
+     * @param kV Velocity Feedforward Gain
+     * @param kA Acceleration Feedforward Gain
+     * @param kG Gravity Feedforward Gain
+     */
+    public record Slot( double kP, double kI, double kD, double kS, double kV, double kA, double kG ) {}
+
+    // The gains in ArmConstants
+    public static final ArmGains DEFAULTS = new ArmGains(
+        new Slot( ArmConstants.SLOT0_KP, ArmConstants.SLOT0_KI, ArmConstants.SLOT0_KD,
+                  ArmConstants.SLOT0_KS, ArmConstants.SLOT0_KV, ArmConstants.SLOT0_KA, ArmConstants.SLOT0_KG ),
+        new Slot( ArmConstants.SLOT1_KP, ArmConstants.SLOT1_KI, ArmConstants.SLOT1_KD,
+                  ArmConstants.SLOT1_KS, ArmConstants.SLOT1_KV, ArmConstants.SLOT1_KA, ArmConstants.SLOT1_KG ) ); 
+
+    /**
+     * Reads the gains from properties, keys are "<slot>.<gain>" e.g. "slot0.kP"
+     * @param properties The properties to read
+     * @param defaults The gains used for every key that is not in the properties
+     * @return The gains
+     * @throws IllegalArgumentException If a gain is not a finite number
+     */
+    public static ArmGains fromProperties( Properties properties, ArmGains defaults ) {
+        return new ArmGains( readSlot( properties, "slot0", defaults.slot0() ),
+                             readSlot( properties, "slot1", defaults.slot1() ) ); 
+    }
+
+    /**
+     * Writes the gains into properties that fromProperties() can read back, other keys are left alone
+     * @param properties The properties to write into
+     */
+    public void toProperties( Properties properties ) {
+        writeSlot( properties, "slot0", slot0 ); 
+        writeSlot( properties, "slot1", slot1 ); 
+    }
+
+    /**
+     * Replaces the feedforward gains with the ones found by system identification.
+     * Slot 1 takes all of them. Slot 0 only takes kG, as it holds the arm still where the
+     * velocity and acceleration gains do nothing and kS would push on the sign of the error.
+     * @param kS Static friction (Volts)
+     * @param kG Voltage needed to hold the arm horizontal (Volts)
+     * @param kV Voltage per unit of velocity (Volts / (Rotations/s))
+     * @param kA Voltage per unit of acceleration (Volts / (Rotations/s^2))
+     * @return The new gains, the PID gains are unchanged
+     */
+    public ArmGains withFeedforward( double kS, double kG, double kV, double kA ) {
+        return new ArmGains(
+            new Slot( slot0.kP(), slot0.kI(), slot0.kD(), slot0.kS(), slot0.kV(), slot0.kA(), kG ),
+            new Slot( slot1.kP(), slot1.kI(), slot1.kD(), kS, kV, kA, kG ) ); 
+    }
+
+    /**
+     * Reads the gains of one slot, keys are "<prefix>.<gain>" e.g. "slot0.kP"
+     */
+    private static Slot readSlot( Properties properties, String prefix, Slot defaults ) {
+        return new Slot(
+            ArmConfig.readDouble( properties, prefix + ".kP", defaults.kP() ),
+            ArmConfig.readDouble( properties, prefix + ".kI", defaults.kI() ),
+            ArmConfig.readDouble( properties, prefix + ".kD", defaults.kD() ),
+            ArmConfig.readDouble( properties, prefix + ".kS", defaults.kS() ),
+            ArmConfig.readDouble( properties, prefix + ".kV", defaults.kV() ),
+            ArmConfig.readDouble( properties, prefix + ".kA", defaults.kA() ),
+            ArmConfig.readDouble( properties, prefix + ".kG", defaults.kG() ) ); 
+    }
+
+    /**
+     * Writes the gains of one slot
+     */
+    private static void writeSlot( Properties properties, String prefix, Slot slot ) {
+        properties.setProperty( prefix + ".kP", Double.toString( slot.kP() ) ); 
+        properties.setProperty( prefix + ".kI", Double.toString( slot.kI() ) ); 
+        properties.setProperty( prefix + ".kD", Double.toString( slot.kD() ) ); 
+        properties.setProperty( prefix + ".kS", Double.toString( slot.kS() ) ); 
+        properties.setProperty( prefix + ".kV", Double.toString( slot.kV() ) ); 
+        properties.setProperty( prefix + ".kA", Double.toString( slot.kA() ) ); 
+        properties.setProperty( prefix + ".kG", Double.toString( slot.kG() ) ); 
+    }
+}
@@ -5,6 +5,8 @@
 
 package frc.robot.subsystems.Arm;
 
+import java.nio.ByteBuffer;
+
 /**
  * Acts like a header file where important feedback data is stored and, 
  * functions/methods that are utilized by the Arm Subsystem.
@@ -12,19 +14,130 @@ package frc.robot.subsystems.Arm;
  */
 public interface ArmIO{
     public class ArmIOInputs {
+        // Position and Velocity
         public double armPositionRads; 
+        public double armPositionTimestampSecs; 
         public double armEncoderPositionRads;
+        public double armEncoderPositionTimestampSecs; 
+        public double armEncoderLatencySecs; 
+        public double armVelocityRadsPerSec; 
+        public double armVelocityTimestampSecs; 
+        // Electrical
+        public double armAppliedVolts; 
+        public double armAppliedVoltsTimestampSecs; 
+        public double armSupplyVolts; // At the master motor, 0 until the first frame
+        public double armStatorCurrentAmps; 
+        public double armFollowerStatorCurrentAmps; 
+        public double armStatorCurrentTimestampSecs; 
+        // Temperature
+        public double armTempCelsius; 
+        public double armFollowerTempCelsius; 
+        public double armTempTimestampSecs; 
+        // Health - false once the device has dropped off the bus or faulted
+        public boolean encoderHealthy; 
+        public boolean followerHealthy; 
+        public boolean driveEnabled; // False while the master is held stopped because of a fault
+        // High Frequency Samples received since the last update, oldest first
+        public int sampleCount; 
+        public final double[] sampleTimestampsSecs = new double[ArmConstants.MAX_SAMPLES_PER_LOOP]; 
+        public final double[] samplePositionsRads = new double[ArmConstants.MAX_SAMPLES_PER_LOOP]; 
+        public final double[] sampleVelocitiesRadsPerSec = new double[ArmConstants.MAX_SAMPLES_PER_LOOP]; 
+        // Size of the inputs when written with writeTo (Bytes)
+        public static final int SERIALIZED_BYTES = 16 * Double.BYTES + 3 * Byte.BYTES + Integer.BYTES 
+            + 3 * ArmConstants.MAX_SAMPLES_PER_LOOP * Double.BYTES; 
         // Constructor
         public ArmIOInputs() {
             armPositionRads = 0.0; 
             armEncoderPositionRads = 0.0; 
+            encoderHealthy = true; 
+            followerHealthy = true; 
+            driveEnabled = true; 
         } 
+
+        /**
+         * Writes all the inputs into the buffer in a fixed binary layout, without allocating. 
+         * Any field added to the inputs must be added here, in readFrom and in SERIALIZED_BYTES.
+         * @param buffer The buffer to write into, must have SERIALIZED_BYTES remaining
+         */
+        public void writeTo( ByteBuffer buffer ) {
+            buffer.putDouble( armPositionRads ); 
+            buffer.putDouble( armPositionTimestampSecs ); 
+            buffer.putDouble( armEncoderPositionRads ); 
+            buffer.putDouble( armEncoderPositionTimestampSecs ); 
+            buffer.putDouble( armEncoderLatencySecs ); 
+            buffer.putDouble( armVelocityRadsPerSec ); 
+            buffer.putDouble( armVelocityTimestampSecs ); 
+            buffer.putDouble( armAppliedVolts ); 
+            buffer.putDouble( armAppliedVoltsTimestampSecs ); 
+            buffer.putDouble( armSupplyVolts ); 
+            buffer.putDouble( armStatorCurrentAmps ); 
+            buffer.putDouble( armFollowerStatorCurrentAmps ); 
+            buffer.putDouble( armStatorCurrentTimestampSecs ); 
+            buffer.putDouble( armTempCelsius ); 
+            buffer.putDouble( armFollowerTempCelsius ); 
+            buffer.putDouble( armTempTimestampSecs ); 
+            buffer.put( (byte) ( encoderHealthy ? 1 : 0 ) ); 
+            buffer.put( (byte) ( followerHealthy ? 1 : 0 ) ); 
+            buffer.put( (byte) ( driveEnabled ? 1 : 0 ) ); 
+            buffer.putInt( sampleCount ); 
+            for ( int i = 0; i < ArmConstants.MAX_SAMPLES_PER_LOOP; i++ ) {
+                buffer.putDouble( sampleTimestampsSecs[i] ); 
+                buffer.putDouble( samplePositionsRads[i] ); 
+                buffer.putDouble( sampleVelocitiesRadsPerSec[i] ); 
+            }
+        }
+
+        /**
+         * Reads all the inputs back from the layout written by writeTo, without allocating
+         * @param buffer The buffer to read from, must have SERIALIZED_BYTES remaining
+         */
+        public void readFrom( ByteBuffer buffer ) {
+            armPositionRads = buffer.getDouble(); 
+            armPositionTimestampSecs = buffer.getDouble(); 
+            armEncoderPositionRads = buffer.getDouble(); 
+            armEncoderPositionTimestampSecs = buffer.getDouble(); 
+            armEncoderLatencySecs = buffer.getDouble(); 
+            armVelocityRadsPerSec = buffer.getDouble(); 
+            armVelocityTimestampSecs = buffer.getDouble(); 
+            armAppliedVolts = buffer.getDouble(); 
+            armAppliedVoltsTimestampSecs = buffer.getDouble(); 
+            armSupplyVolts = buffer.getDouble(); 
+            armStatorCurrentAmps = buffer.getDouble(); 
+            armFollowerStatorCurrentAmps = buffer.getDouble(); 
+            armStatorCurrentTimestampSecs = buffer.getDouble(); 
+            armTempCelsius = buffer.getDouble(); 
+            armFollowerTempCelsius = buffer.getDouble(); 
+            armTempTimestampSecs = buffer.getDouble(); 
+            encoderHealthy = buffer.get() != 0; 
+            followerHealthy = buffer.get() != 0; 
+            driveEnabled = buffer.get() != 0; 
+            sampleCount = buffer.getInt(); 
+            for ( int i = 0; i < ArmConstants.MAX_SAMPLES_PER_LOOP; i++ ) {
+                sampleTimestampsSecs[i] = buffer.getDouble(); 
+                samplePositionsRads[i] = buffer.getDouble(); 
+                sampleVelocitiesRadsPerSec[i] = buffer.getDouble(); 
+            }
+        }
     }
     public void updateInputs( ArmIOInputs inputs ); 
         
     public void stop();
 
-    public void setPositionControl(double positionRotations);
+    public void setPositionControl(double positionRotations, double feedforwardVolts);
+
+    /**
+     * Moves to the position with Motion Magic on Slot 1, keeping to the given constraints for this move
+     * @param positionRotations The position to move to (Rotations)
+     * @param cruiseVelocity The cruise velocity of the move (Rotations per second)
+     * @param acceleration The acceleration of the move (Rotations per second^2)
+     * @param jerk The jerk of the move (Rotations per second^3)
+     * @param feedforwardVolts Extra feedforward added on top of the Slot 1 gains
+     */
+    public void setMotionControl(double positionRotations, double cruiseVelocity, double acceleration, double jerk, double feedforwardVolts);
+
+    public void setProfiledPositionControl(double positionRotations, double velocityRotationsPerSec, double feedforwardVolts);
+
+    public void setVoltage(double volts);
 
-    public void setMotionControl(double positionRotations);
+    public boolean applyConfig(ArmConfig config);
 }
@@ -0,0 +1,170 @@
+/**
+ * @file ArmIOCached.java
+ * @brief ArmIO decorator that only forwards control requests when they change
+ */
+
+package frc.robot.subsystems.Arm;
+
+/**
+ * Wraps another ArmIO and drops control requests that are identical to the last one sent. 
+ * 
+ * A request is only forwarded when the control mode changes (which also changes the slot, 
+ * Slot 0 for Position and Slot 1 for Motion Magic and streamed profiles), the setpoint moves by 
+ * more than the epsilon or the feedforward moves by more than FEEDFORWARD_EPSILON_VOLTS. Dropping 
+ * repeats is safe because Phoenix keeps re-sending the last control request to the device in the 
+ * background, so the motors never time out while the setpoint is unchanged. 
+ * 
+ * Each forwarded call counts as one frame sent and each dropped call as one frame suppressed, 
+ * which is used to measure the CAN bus savings.
+ */
+public class ArmIOCached implements ArmIO {
+    // Default Setpoint Tolerance (Rotations)
+    public static final double DEFAULT_EPSILON_ROTATIONS = 1e-4; 
+    // Smallest change in feedforward that is forwarded (Volts)
+    public static final double FEEDFORWARD_EPSILON_VOLTS = 0.01; 
+
+    // Decleration
+    private final ArmIO io; 
+    private final double epsilonRotations; 
+
+    // Last Forwarded Request - null until the first request is sent
+    private ArmControlMode lastMode = null; 
+    private double lastSetpointRotations; 
+    private double lastVelocityRotationsPerSec; 
+    private double lastFeedforwardVolts; 
+    private double lastCruiseVelocity; 
+    private double lastAcceleration; 
+    private double lastJerk; 
+
+    // Counters
+    private long framesSent; 
+    private long framesSuppressed; 
+
+    /**
+     * Wraps the given ArmIO with the default setpoint tolerance
+     * @param io The ArmIO that requests are forwarded to
+     */
+    public ArmIOCached( ArmIO io ) {
+        this( io, DEFAULT_EPSILON_ROTATIONS ); 
+    }
+
+    /**
+     * Wraps the given ArmIO
+     * @param io The ArmIO that requests are forwarded to
+     * @param epsilonRotations The smallest change in setpoint that is forwarded (Rotations)
+     */
+    public ArmIOCached( ArmIO io, double epsilonRotations ) {
+        this.io = io; 
+        this.epsilonRotations = epsilonRotations; 
+    }
+
+    @Override
+    public void updateInputs( ArmIOInputs inputs ) {
+        io.updateInputs( inputs ); 
+    }
+
+    @Override
+    public void stop() {
+        if ( lastMode == ArmControlMode.NEUTRAL ) {
+            framesSuppressed++; 
+            return; 
+        }
+        io.stop(); 
+        lastMode = ArmControlMode.NEUTRAL; 
+        framesSent++; 
+    }
+
+    @Override
+    public void setPositionControl( double positionRotations, double feedforwardVolts ) {
+        if ( isRepeat( ArmControlMode.POSITION, positionRotations, feedforwardVolts ) ) {
+            framesSuppressed++; 
+            return; 
+        }
+        io.setPositionControl( positionRotations, feedforwardVolts ); 
+        remember( ArmControlMode.POSITION, positionRotations, feedforwardVolts ); 
+    }
+
+    @Override
+    public void setMotionControl( double positionRotations, double cruiseVelocity, double acceleration, double jerk, double feedforwardVolts ) {
+        // New constraints are a new move, even to the same target
+        if ( isRepeat( ArmControlMode.MOTION_MAGIC, positionRotations, feedforwardVolts ) 
+             && cruiseVelocity == lastCruiseVelocity && acceleration == lastAcceleration && jerk == lastJerk ) {
+            framesSuppressed++; 
+            return; 
+        }
+        io.setMotionControl( positionRotations, cruiseVelocity, acceleration, jerk, feedforwardVolts ); 
+        remember( ArmControlMode.MOTION_MAGIC, positionRotations, feedforwardVolts ); 
+        lastCruiseVelocity = cruiseVelocity; 
+        lastAcceleration = acceleration; 
+        lastJerk = jerk; 
+    }
+
+    @Override
+    public void setProfiledPositionControl( double positionRotations, double velocityRotationsPerSec, double feedforwardVolts ) {
+        if ( isRepeat( ArmControlMode.PROFILED_POSITION, positionRotations, feedforwardVolts ) 
+             && Math.abs( velocityRotationsPerSec - lastVelocityRotationsPerSec ) <= epsilonRotations ) {
+            framesSuppressed++; 
+            return; 
+        }
+        io.setProfiledPositionControl( positionRotations, velocityRotationsPerSec, feedforwardVolts ); 
+        remember( ArmControlMode.PROFILED_POSITION, positionRotations, feedforwardVolts ); 
+        lastVelocityRotationsPerSec = velocityRotationsPerSec; 
+    }
+
+    @Override
+    public void setVoltage( double volts ) {
+        // There is no setpoint, the voltage is compared like a feedforward
+        if ( isRepeat( ArmControlMode.VOLTAGE, 0.0, volts ) ) {
+            framesSuppressed++; 
+            return; 
+        }
+        io.setVoltage( volts ); 
+        remember( ArmControlMode.VOLTAGE, 0.0, volts ); 
+    }
+
+    @Override
+    public boolean applyConfig( ArmConfig config ) {
+        // Config changes are not control requests, they are always forwarded
+        return io.applyConfig( config ); 
+    }
+
+    /**
+     * Forgets the last request so the next one is always forwarded. 
+     * Use this when the devices may have lost their control request (e.g. after a reset).
+     */
+    public void invalidate() {
+        lastMode = null; 
+    }
+
+    /**
+     * @return The number of control requests forwarded to the wrapped ArmIO
+     */
+    public long getFramesSent() {
+        return framesSent; 
+    }
+
+    /**
+     * @return The number of control requests dropped because nothing changed
+     */
+    public long getFramesSuppressed() {
+        return framesSuppressed; 
+    }
+
+    /**
+     * Checks if a request matches the last forwarded one
+     */
+    private boolean isRepeat( ArmControlMode mode, double setpointRotations, double feedforwardVolts ) {
+        return lastMode == mode && Math.abs( setpointRotations - lastSetpointRotations ) <= epsilonRotations 
+            && Math.abs( feedforwardVolts - lastFeedforwardVolts ) <= FEEDFORWARD_EPSILON_VOLTS; 
+    }
+
+    /**
+     * Records a forwarded request
+     */
+    private void remember( ArmControlMode mode, double setpointRotations, double feedforwardVolts ) {
+        lastMode = mode; 
+        lastSetpointRotations = setpointRotations; 
+        lastFeedforwardVolts = feedforwardVolts; 
+        framesSent++; 
+    }
+}
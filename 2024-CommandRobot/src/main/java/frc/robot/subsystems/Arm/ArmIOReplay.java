@@ -0,0 +1,222 @@
+/**
+ * @file ArmIOReplay.java
+ * @brief ArmIO that plays back a recorded arm telemetry log
+ */
+
+package frc.robot.subsystems.Arm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Replays a log written by ArmTelemetryLogger through the Arm Subsystem. 
+ * 
+ * Every call to updateInputs() loads the inputs of the next recorded loop, so the subsystem 
+ * makes its decisions on exactly the data it saw on the robot. The recorded target is handed to 
+ * the target listener (e.g. ArmSubsystem::setTargetPosition) in the same call, which stands in 
+ * for the commands that set it during the match. Likewise every recorded config (the one the 
+ * robot started with and each reload) is handed to the config listener (e.g. 
+ * ArmSubsystem::setConfig) ahead of the first loop that ran with it, so the gains, the 
+ * feedforward corrections and the Motion Magic constraints are the ones of the match. The 
+ * control requests the 
+ * subsystem sends back are compared with the ones that were recorded for the same loop: any 
+ * difference means the behaviour is not reproduced (e.g. the control logic changed since the 
+ * log was recorded). Once the log runs out, the last inputs are repeated and a summary is 
+ * reported to the Driver Station.
+ */
+public class ArmIOReplay implements ArmIO {
+    // Decleration
+    private final ByteBuffer log; 
+    private final String configSource; 
+
+    // Receives the recorded targets
+    private DoubleConsumer targetListener; 
+    private double recordedTargetRads = Double.NaN; 
+
+    // Receives the recorded configs
+    private Consumer<ArmConfig> configListener; 
+    private long replayedConfigs; 
+
+    // Recorded Outputs of the current loop
+    private long recordedCycle = -1; 
+    private int recordedModeOrdinal = -1; 
+    private double recordedSetpointRotations; 
+    private boolean requestReceived = true; 
+
+    // Replay Progress
+    private long replayedRecords; 
+    private long mismatches; 
+    private long firstMismatchCycle = -1; 
+    private boolean summaryReported; 
+
+    /**
+     * Opens a log for replay
+     * @param path The log file written by ArmTelemetryLogger
+     * @throws IOException If the file cannot be read or is not a compatible log
+     */
+    public ArmIOReplay( Path path ) throws IOException {
+        log = ArmTelemetryLogger.openForReading( path ); 
+        configSource = path.getFileName().toString(); 
+    }
+
+    /**
+     * Sets where the recorded targets are sent, called whenever the recorded target changes
+     * @param targetListener Receives the target (Radians), NaN when the target was cleared
+     */
+    public void setTargetListener( DoubleConsumer targetListener ) {
+        this.targetListener = targetListener; 
+    }
+
+    /**
+     * Sets where the recorded configs are sent, called before the first loop that ran with each
+     * @param configListener Receives the config
+     */
+    public void setConfigListener( Consumer<ArmConfig> configListener ) {
+        this.configListener = configListener; 
+    }
+
+    /**
+     * Hands the recorded configs that come before the next loop to the config listener, then 
+     * loads the inputs of the loop
+     */
+    @Override
+    public void updateInputs( ArmIOInputs inputs ) {
+        while ( log.remaining() >= ArmTelemetryLogger.RECORD_BYTES && log.getLong( log.position() ) == ArmTelemetryLogger.CONFIG_RECORD ) {
+            readConfig(); 
+        }
+        if ( log.remaining() < ArmTelemetryLogger.RECORD_BYTES ) {
+            if ( !summaryReported ) {
+                summaryReported = true; 
+                DriverStation.reportWarning( "Arm replay finished: " + replayedRecords + " loops, " + mismatches 
+                    + " mismatches (first at cycle " + firstMismatchCycle + ")", false ); 
+            }
+            return; 
+        }
+        if ( !requestReceived && recordedModeOrdinal >= 0 ) {
+            // The previous loop recorded a control request but the replay did not send one
+            mismatch(); 
+        }
+        requestReceived = false; 
+        recordedCycle = log.getLong(); 
+        inputs.readFrom( log ); 
+        double targetRads = log.getDouble(); 
+        if ( targetListener != null && Double.compare( targetRads, recordedTargetRads ) != 0 ) {
+            targetListener.accept( targetRads ); 
+        }
+        recordedTargetRads = targetRads; 
+        recordedModeOrdinal = log.getInt(); 
+        recordedSetpointRotations = log.getDouble(); 
+        replayedRecords++; 
+    }
+
+    /**
+     * Reads one config record and hands the config to the listener
+     */
+    private void readConfig() {
+        int start = log.position(); 
+        log.getLong(); 
+        log.getLong(); // The cycle, the config comes right before the loop
+        ArmConfig config = ArmConfig.readFrom( log, configSource ); 
+        log.position( start + ArmTelemetryLogger.RECORD_BYTES ); 
+        replayedConfigs++; 
+        if ( configListener != null ) {
+            configListener.accept( config ); 
+        }
+    }
+
+    @Override
+    public void stop() {
+        check( ArmControlMode.NEUTRAL, recordedSetpointRotations ); 
+    }
+
+    @Override
+    public void setPositionControl( double positionRotations, double feedforwardVolts ) {
+        check( ArmControlMode.POSITION, positionRotations ); 
+    }
+
+    @Override
+    public void setMotionControl( double positionRotations, double cruiseVelocity, double acceleration, double jerk, double feedforwardVolts ) {
+        check( ArmControlMode.MOTION_MAGIC, positionRotations ); 
+    }
+
+    @Override
+    public void setProfiledPositionControl( double positionRotations, double velocityRotationsPerSec, double feedforwardVolts ) {
+        // Only the position of the profile point is recorded, the feedforward is worked out from the replayed inputs
+        check( ArmControlMode.PROFILED_POSITION, positionRotations ); 
+    }
+
+    @Override
+    public void setVoltage( double volts ) {
+        // The voltage is recorded in place of the setpoint
+        check( ArmControlMode.VOLTAGE, volts ); 
+    }
+
+    @Override
+    public boolean applyConfig( ArmConfig config ) {
+        // The recorded configs are replayed through the config listener instead
+        return true; 
+    }
+
+    /**
+     * @return True once every recorded loop has been replayed
+     */
+    public boolean isFinished() {
+        return log.remaining() < ArmTelemetryLogger.RECORD_BYTES; 
+    }
+
+    /**
+     * @return The number of recorded loops replayed so far
+     */
+    public long getReplayedRecords() {
+        return replayedRecords; 
+    }
+
+    /**
+     * @return The number of recorded configs replayed so far
+     */
+    public long getReplayedConfigs() {
+        return replayedConfigs; 
+    }
+
+    /**
+     * @return The number of loops where the replayed control request differed from the recording
+     */
+    public long getMismatches() {
+        return mismatches; 
+    }
+
+    /**
+     * @return The recorded cycle of the first mismatch, or -1 if there has been none
+     */
+    public long getFirstMismatchCycle() {
+        return firstMismatchCycle; 
+    }
+
+    /**
+     * Compares a control request with the one recorded for the current loop
+     */
+    private void check( ArmControlMode mode, double setpointRotations ) {
+        if ( recordedCycle < 0 ) {
+            return; 
+        }
+        requestReceived = true; 
+        if ( mode.ordinal() != recordedModeOrdinal || setpointRotations != recordedSetpointRotations ) {
+            mismatch(); 
+        }
+    }
+
+    /**
+     * Counts a loop where the replay did not match the recording
+     */
+    private void mismatch() {
+        mismatches++; 
+        if ( firstMismatchCycle < 0 ) {
+            firstMismatchCycle = recordedCycle; 
+        }
+    }
+}
@@ -0,0 +1,500 @@
+/**
+ * @file ArmIOSim.java
+ * @brief Physics model of the Arm that replaces the real devices in simulation
+ */
+
+package frc.robot.subsystems.Arm;
+
+import edu.wpi.first.math.util.Units;
+
+/**
+ * Simulated implementation of ArmIO. 
+ * 
+ * The arm is modelled in the same voltage space that the TalonFX feedforward terms use: 
+ *   V = kS * sign(v) + kG * cos(position) + kV * v + kA * a 
+ * with the position in rotations and 0 being horizontal. This way the kG/Arm_Cosine assumption 
+ * that Slot0 and Slot1 are tuned against holds exactly on the simulated plant, and kA models the 
+ * inertia of the arm. 
+ * 
+ * The closed loop that runs onboard both Krakens is emulated at 1 kHz. The mechanism is driven by 
+ * the average of the master and follower outputs. The follower mirrors the master while it is on 
+ * the bus, one that drops off (see setFollowerFaulted) falls back to Neutral in brake mode, which 
+ * halves the available torque and brakes the arm through its back-EMF. The master keeps driving 
+ * until the same follower check as ArmDefinition (ArmFollowerHealth) notices the follower has 
+ * gone quiet, then it is stopped and ignores requests until the follower has recovered. 
+ * 
+ * Time only advances when updateInputs() is called (one robot loop at a time), so the model 
+ * does not depend on the wall clock and runs as fast as the CPU allows. The encoder is sampled 
+ * at the same rate as the sampling thread of ArmDefinition, so the inputs carry the same 
+ * high frequency samples as on the robot. 
+ */
+public class ArmIOSim implements ArmIO {
+    // Simulation Settings
+    private static final double SIM_PERIOD_SECS = 0.001; // Matches the 1 kHz TalonFX Closed Loop
+    private static final int STEPS_PER_SAMPLE = (int) Math.round( 1.0 / ( ArmConstants.SAMPLE_FREQUENCY_HZ * SIM_PERIOD_SECS ) ); 
+    private static final double BATTERY_VOLTAGE = 12.0; 
+    private static final double BATTERY_RESISTANCE_OHMS = 0.015; // Battery, breaker and wiring to the PDH
+
+    // Kraken X60 Electrical and Thermal Constants
+    private static final double MOTOR_RESISTANCE_OHMS = 12.0 / 366.0; // Stall Voltage / Stall Current
+    private static final double AMBIENT_TEMP_CELSIUS = 25.0; 
+    private static final double THERMAL_RESISTANCE_CELSIUS_PER_WATT = 0.5; 
+    private static final double THERMAL_CAPACITY_JOULES_PER_CELSIUS = 300.0; 
+
+    // Plant Constants (Volts, Rotations and Seconds)
+    private final double plantKS; 
+    private final double plantKG; 
+    private final double plantKV; 
+    private final double plantKA; 
+
+    // Mechanism State
+    private double positionRotations; 
+    private double velocityRotationsPerSec; 
+    private double simTimeSecs; 
+    private long stepCount; 
+
+    // Emulated High Frequency Encoder Samples
+    private final ArmSampleBuffer sampleBuffer = new ArmSampleBuffer( ArmConstants.SAMPLE_BUFFER_CAPACITY ); 
+
+    // Emulated Motor Controller State
+    private volatile ArmConfig config; // Swapped by applyConfig, which may be called from another thread
+    private final double forwardSoftLimitRotations = Units.radiansToRotations( ArmEnvelope.DEFAULT.getForwardLimitRads() ); 
+    private final double reverseSoftLimitRotations = Units.radiansToRotations( ArmEnvelope.DEFAULT.getReverseLimitRads() ); 
+    private ArmControlMode mode = ArmControlMode.NEUTRAL; 
+    private double targetRotations; 
+    private double referencePositionRotations; 
+    private double referenceVelocityRotationsPerSec; 
+    private double referenceAccelerationRotationsPerSecSq; 
+    private double integratedErrorRotations; 
+    private double feedforwardVolts; 
+    private double requestedVolts; 
+    private double cruiseVelocity; // Motion Magic constraints of the move (Rotations, Seconds)
+    private double acceleration; 
+    private double masterOutputVolts; 
+    private double followerOutputVolts; 
+    private double followerLastFrameSecs; // The last time the follower was on the bus
+    private boolean driveEnabled = true; // False while the emulated follower check holds the master stopped
+    private final ArmFollowerHealth followerHealth = new ArmFollowerHealth( "ArmSim" ); 
+
+    // Emulated Motor Sensors
+    private double masterCurrentAmps; 
+    private double followerCurrentAmps; 
+    private double masterTempCelsius = AMBIENT_TEMP_CELSIUS; 
+    private double followerTempCelsius = AMBIENT_TEMP_CELSIUS; 
+    private double supplyVolts = BATTERY_VOLTAGE; 
+
+    // Injected Faults
+    private boolean encoderFaulted; 
+    private boolean followerFaulted; 
+    private double externalLoadAmps; // Drawn from the battery by the rest of the robot, e.g. the drivetrain
+
+    /**
+     * Creates a simulated arm whose plant matches the default Slot1 feedforward gains, starting horizontal
+     */
+    public ArmIOSim() {
+        this( ArmConfig.DEFAULTS ); 
+    }
+
+    /**
+     * Creates a simulated arm whose plant matches the Slot1 feedforward gains, starting horizontal
+     * @param config The gains and Motion Magic constraints of the emulated motor controllers
+     */
+    public ArmIOSim( ArmConfig config ) {
+        this( config, config.gains().slot1().kS(), config.gains().slot1().kG(), 
+              config.gains().slot1().kV(), config.gains().slot1().kA(), 0.0 ); 
+    }
+
+    /**
+     * Creates a simulated arm with a custom plant, used to model a mismatch between the gains and 
+     * the real mechanism (e.g. a game piece in the arm)
+     * @param kS Static friction of the plant (Volts)
+     * @param kG Voltage needed to hold the arm horizontal (Volts)
+     * @param kV Voltage per unit of velocity (Volts / (Rotations/s))
+     * @param kA Voltage per unit of acceleration (Volts / (Rotations/s^2))
+     * @param startPositionRads The starting position of the arm
+     */
+    public ArmIOSim( double kS, double kG, double kV, double kA, double startPositionRads ) {
+        this( ArmConfig.DEFAULTS, kS, kG, kV, kA, startPositionRads ); 
+    }
+
+    /**
+     * Creates a simulated arm with a custom plant and a custom config on the emulated motor controllers
+     * @param config The gains and Motion Magic constraints of the emulated motor controllers
+     * @param kS Static friction of the plant (Volts)
+     * @param kG Voltage needed to hold the arm horizontal (Volts)
+     * @param kV Voltage per unit of velocity (Volts / (Rotations/s))
+     * @param kA Voltage per unit of acceleration (Volts / (Rotations/s^2))
+     * @param startPositionRads The starting position of the arm
+     */
+    public ArmIOSim( ArmConfig config, double kS, double kG, double kV, double kA, double startPositionRads ) {
+        this.config = config; 
+        plantKS = kS; 
+        plantKG = kG; 
+        plantKV = kV; 
+        plantKA = kA; 
+        positionRotations = Units.radiansToRotations( startPositionRads ); 
+        referencePositionRotations = positionRotations; 
+    }
+
+    /**
+     * Advances the simulation by one robot loop and updates all the listed variables stored
+     */
+    @Override
+    public void updateInputs( ArmIOInputs inputs ) {
+        update( ArmConstants.LOOP_PERIOD_SECS ); 
+        sampleBuffer.drainTo( inputs ); 
+
+        // Follower Check - once per loop like ArmDefinition, the master is stopped the loop the follower is lost
+        boolean followerOk = simTimeSecs - followerLastFrameSecs < ArmConstants.FOLLOWER_STALE_SECS; 
+        boolean enabled = followerHealth.update( simTimeSecs, followerOk ); 
+        if ( driveEnabled && !enabled ) {
+            mode = ArmControlMode.NEUTRAL; 
+        }
+        driveEnabled = enabled; 
+
+        // Position and Velocity - the simulated sensors have no latency
+        inputs.armPositionRads = Units.rotationsToRadians( positionRotations ); 
+        inputs.armPositionTimestampSecs = simTimeSecs; 
+        inputs.armEncoderPositionRads = Units.rotationsToRadians( positionRotations ); 
+        inputs.armEncoderPositionTimestampSecs = simTimeSecs; 
+        inputs.armEncoderLatencySecs = 0.0; 
+        inputs.armVelocityRadsPerSec = Units.rotationsToRadians( velocityRotationsPerSec ); 
+        inputs.armVelocityTimestampSecs = simTimeSecs; 
+
+        // Electrical
+        inputs.armAppliedVolts = masterOutputVolts; 
+        inputs.armAppliedVoltsTimestampSecs = simTimeSecs; 
+        inputs.armStatorCurrentAmps = masterCurrentAmps; 
+        inputs.armFollowerStatorCurrentAmps = followerCurrentAmps; 
+        inputs.armStatorCurrentTimestampSecs = simTimeSecs; 
+        inputs.armSupplyVolts = supplyVolts; 
+
+        // Temperature
+        inputs.armTempCelsius = masterTempCelsius; 
+        inputs.armFollowerTempCelsius = followerTempCelsius; 
+        inputs.armTempTimestampSecs = simTimeSecs; 
+
+        // Health - the rotor fallback is exact in simulation, so only the samples go missing
+        inputs.encoderHealthy = !encoderFaulted; 
+        inputs.followerHealthy = followerHealth.isHealthy(); 
+        inputs.driveEnabled = driveEnabled; 
+    }
+
+    /**
+     * Simulates the encoder dropping off the bus, the high frequency samples stop arriving
+     * @param faulted True to drop the encoder
+     */
+    public void setEncoderFaulted( boolean faulted ) {
+        encoderFaulted = faulted; 
+    }
+
+    /**
+     * Simulates the follower motor dropping off the bus, it goes to Neutral straight away. Like 
+     * ArmDefinition, the master motor is stopped once the follower check notices, and only drives 
+     * again once the follower has been back for the recovery time.
+     * @param faulted True to drop the follower motor
+     */
+    public void setFollowerFaulted( boolean faulted ) {
+        followerFaulted = faulted; 
+    }
+
+    /**
+     * Sets the emulated master motor (and so the follower) to Neutral
+     */
+    @Override
+    public void stop() {
+        mode = ArmControlMode.NEUTRAL; 
+    }
+
+    /**
+     * Emulates PositionVoltage on Slot 0 for the master motor
+     * @param positionRotations The desired position that the arm would like to go to
+     */
+    @Override
+    public void setPositionControl( double positionRotations, double feedforwardVolts ) {
+        if ( !driveEnabled ) {
+            return; 
+        }
+        if ( mode != ArmControlMode.POSITION ) {
+            integratedErrorRotations = 0.0; 
+        }
+        mode = ArmControlMode.POSITION; 
+        targetRotations = positionRotations; 
+        this.feedforwardVolts = feedforwardVolts; 
+    }
+
+    /**
+     * Emulates DynamicMotionMagicVoltage on Slot 1 for the master motor
+     * @param positionRotations The specific position that the arm would like to move to
+     */
+    @Override
+    public void setMotionControl( double positionRotations, double cruiseVelocity, double acceleration, double jerk, double feedforwardVolts ) {
+        if ( !driveEnabled ) {
+            return; 
+        }
+        if ( mode != ArmControlMode.MOTION_MAGIC ) {
+            // Motion Magic starts the profile from the current state of the mechanism
+            referencePositionRotations = this.positionRotations; 
+            referenceVelocityRotationsPerSec = velocityRotationsPerSec; 
+            referenceAccelerationRotationsPerSecSq = 0.0; 
+            integratedErrorRotations = 0.0; 
+        }
+        mode = ArmControlMode.MOTION_MAGIC; 
+        targetRotations = positionRotations; 
+        this.cruiseVelocity = cruiseVelocity; 
+        this.acceleration = acceleration; 
+        this.feedforwardVolts = feedforwardVolts; 
+    }
+
+    /**
+     * Emulates PositionVoltage on Slot 1 following a profile point streamed from the roboRIO
+     */
+    @Override
+    public void setProfiledPositionControl( double positionRotations, double velocityRotationsPerSec, double feedforwardVolts ) {
+        if ( !driveEnabled ) {
+            return; 
+        }
+        if ( mode != ArmControlMode.PROFILED_POSITION ) {
+            integratedErrorRotations = 0.0; 
+        }
+        mode = ArmControlMode.PROFILED_POSITION; 
+        targetRotations = positionRotations; 
+        this.feedforwardVolts = feedforwardVolts; 
+        // The point is held until the next loop sends a new one, PositionVoltage has no acceleration term
+        referencePositionRotations = positionRotations; 
+        referenceVelocityRotationsPerSec = velocityRotationsPerSec; 
+        referenceAccelerationRotationsPerSecSq = 0.0; 
+    }
+
+    /**
+     * Emulates VoltageOut for the master motor
+     */
+    @Override
+    public void setVoltage( double volts ) {
+        if ( !driveEnabled ) {
+            return; 
+        }
+        mode = ArmControlMode.VOLTAGE; 
+        requestedVolts = volts; 
+    }
+
+    /**
+     * Swaps the config of the emulated motor controllers, takes effect from the next period
+     */
+    @Override
+    public boolean applyConfig( ArmConfig config ) {
+        this.config = config; 
+        return true; 
+    }
+
+    /**
+     * Advances the simulation by the given amount of time
+     * @param dtSeconds The amount of time to simulate
+     */
+    public void update( double dtSeconds ) {
+        int steps = (int) Math.round( dtSeconds / SIM_PERIOD_SECS ); 
+        for ( int i = 0; i < steps; i++ ) {
+            step( SIM_PERIOD_SECS ); 
+        }
+    }
+
+    /**
+     * @return The position of the simulated arm (Radians)
+     */
+    public double getPositionRads() {
+        return Units.rotationsToRadians( positionRotations ); 
+    }
+
+    /**
+     * @return The velocity of the simulated arm (Radians per second)
+     */
+    public double getVelocityRadsPerSec() {
+        return Units.rotationsToRadians( velocityRotationsPerSec ); 
+    }
+
+    /**
+     * @return The voltage applied by the master motor (Volts)
+     */
+    public double getMasterOutputVolts() {
+        return masterOutputVolts; 
+    }
+
+    /**
+     * @return The stator current of the master motor (Amps)
+     */
+    public double getMasterCurrentAmps() {
+        return masterCurrentAmps; 
+    }
+
+    /**
+     * @return The voltage at the motor controllers, sagging with the current drawn from the battery (Volts)
+     */
+    public double getSupplyVolts() {
+        return supplyVolts; 
+    }
+
+    /**
+     * Draws current from the battery for the rest of the robot, sagging the voltage the arm gets
+     * @param amps The current of the other mechanisms, e.g. the drivetrain accelerating (Amps)
+     */
+    public void setExternalLoadAmps( double amps ) {
+        externalLoadAmps = amps; 
+    }
+
+    /**
+     * @return The amount of time that has been simulated (Seconds)
+     */
+    public double getSimTimeSecs() {
+        return simTimeSecs; 
+    }
+
+    /**
+     * Runs one period of the emulated motor controllers and integrates the arm dynamics
+     */
+    private void step( double dt ) {
+        // Emulated Closed Loop - the follower motor mirrors the output of the master motor while it is on the bus
+        masterOutputVolts = driveEnabled ? computeOutputVolts( dt ) : 0.0; 
+        if ( followerFaulted ) {
+            // Neutral in brake mode, the windings are shorted so only the back-EMF drives its current
+            followerOutputVolts = 0.0; 
+        }
+        else {
+            followerOutputVolts = masterOutputVolts; 
+            followerLastFrameSecs = simTimeSecs; 
+        }
+
+        // Arm Dynamics
+        double appliedVolts = ( masterOutputVolts + followerOutputVolts ) / 2.0; 
+        double gravityVolts = plantKG * Math.cos( Units.rotationsToRadians( positionRotations ) ); 
+        double netVolts = appliedVolts - gravityVolts - plantKV * velocityRotationsPerSec; 
+
+        if ( velocityRotationsPerSec == 0.0 && Math.abs( netVolts ) <= plantKS ) {
+            // Static friction is holding the arm
+            netVolts = 0.0; 
+        } 
+        else {
+            double frictionDirection = velocityRotationsPerSec != 0.0 ? Math.signum( velocityRotationsPerSec ) : Math.signum( netVolts ); 
+            netVolts -= plantKS * frictionDirection; 
+        }
+
+        double previousVelocity = velocityRotationsPerSec; 
+        velocityRotationsPerSec += ( netVolts / plantKA ) * dt; 
+        if ( previousVelocity != 0.0 && Math.signum( previousVelocity ) != Math.signum( velocityRotationsPerSec ) 
+             && Math.abs( appliedVolts - gravityVolts ) <= plantKS ) {
+            // Friction brought the arm to a stop, it does not reverse direction on its own
+            velocityRotationsPerSec = 0.0; 
+        }
+        positionRotations += velocityRotationsPerSec * dt; 
+        simTimeSecs += dt; 
+        stepCount++; 
+        if ( stepCount % STEPS_PER_SAMPLE == 0 && !encoderFaulted ) {
+            sampleBuffer.offer( simTimeSecs, positionRotations, velocityRotationsPerSec ); 
+        }
+
+        // Motor Current - the plant kV is treated as the back-EMF of the motors
+        double backEmfVolts = plantKV * velocityRotationsPerSec; 
+        masterCurrentAmps = ( masterOutputVolts - backEmfVolts ) / MOTOR_RESISTANCE_OHMS; 
+        followerCurrentAmps = ( followerOutputVolts - backEmfVolts ) / MOTOR_RESISTANCE_OHMS; 
+
+        // Motor Temperature - first order model of the winding heating up and cooling to ambient
+        masterTempCelsius = stepTemperature( masterTempCelsius, masterCurrentAmps, dt ); 
+        followerTempCelsius = stepTemperature( followerTempCelsius, followerCurrentAmps, dt ); 
+
+        // Supply Voltage - a motor draws its stator current scaled by its duty cycle from the battery
+        double armSupplyAmps = ( Math.abs( masterCurrentAmps * masterOutputVolts ) 
+                                 + Math.abs( followerCurrentAmps * followerOutputVolts ) ) / supplyVolts; 
+        supplyVolts = BATTERY_VOLTAGE - BATTERY_RESISTANCE_OHMS * ( armSupplyAmps + externalLoadAmps ); 
+    }
+
+    /**
+     * Advances the temperature of one motor
+     * @return The new temperature of the motor (Celsius)
+     */
+    private static double stepTemperature( double tempCelsius, double currentAmps, double dt ) {
+        double heatingWatts = currentAmps * currentAmps * MOTOR_RESISTANCE_OHMS; 
+        double coolingWatts = ( tempCelsius - AMBIENT_TEMP_CELSIUS ) / THERMAL_RESISTANCE_CELSIUS_PER_WATT; 
+        return tempCelsius + ( heatingWatts - coolingWatts ) / THERMAL_CAPACITY_JOULES_PER_CELSIUS * dt; 
+    }
+
+    /**
+     * Emulates the output of the TalonFX closed loop for the current control request
+     * @return The output voltage of the motor
+     */
+    private double computeOutputVolts( double dt ) {
+        ArmGains gains = config.gains(); 
+        double gravityVolts; 
+        double outputVolts; 
+        double errorRotations; 
+
+        switch ( mode ) {
+            case POSITION: 
+                // Slot 0 - Holding the Arm
+                gravityVolts = gains.slot0().kG() * Math.cos( Units.rotationsToRadians( positionRotations ) ); 
+                errorRotations = targetRotations - positionRotations; 
+                integratedErrorRotations += errorRotations * dt; 
+                outputVolts = gravityVolts + feedforwardVolts 
+                    + gains.slot0().kS() * Math.signum( errorRotations ) 
+                    + gains.slot0().kP() * errorRotations 
+                    + gains.slot0().kI() * integratedErrorRotations 
+                    - gains.slot0().kD() * velocityRotationsPerSec; 
+                break; 
+            case MOTION_MAGIC: 
+            case PROFILED_POSITION: 
+                // Slot 1 - Moving the Arm along the emulated Motion Magic profile, or the streamed one
+                if ( mode == ArmControlMode.MOTION_MAGIC ) {
+                    stepProfile( dt ); 
+                }
+                gravityVolts = gains.slot1().kG() * Math.cos( Units.rotationsToRadians( positionRotations ) ); 
+                errorRotations = referencePositionRotations - positionRotations; 
+                integratedErrorRotations += errorRotations * dt; 
+                outputVolts = gravityVolts + feedforwardVolts 
+                    + gains.slot1().kS() * Math.signum( referenceVelocityRotationsPerSec ) 
+                    + gains.slot1().kV() * referenceVelocityRotationsPerSec 
+                    + gains.slot1().kA() * referenceAccelerationRotationsPerSecSq 
+                    + gains.slot1().kP() * errorRotations 
+                    + gains.slot1().kI() * integratedErrorRotations 
+                    + gains.slot1().kD() * ( referenceVelocityRotationsPerSec - velocityRotationsPerSec ); 
+                break; 
+            case VOLTAGE: 
+                outputVolts = requestedVolts; 
+                break; 
+            case NEUTRAL: 
+            default: 
+                outputVolts = 0.0; 
+                break; 
+        }
+
+        // Soft Limits - the TalonFX drops any output that drives further past a limit
+        if ( ( positionRotations >= forwardSoftLimitRotations && outputVolts > 0.0 ) 
+             || ( positionRotations <= reverseSoftLimitRotations && outputVolts < 0.0 ) ) {
+            outputVolts = 0.0; 
+        }
+        return Math.max( -supplyVolts, Math.min( supplyVolts, outputVolts ) ); 
+    }
+
+    /**
+     * Advances the emulated Motion Magic reference towards the target. 
+     * The profile is trapezoidal (the cruise velocity and acceleration of the move), the jerk limit is not modelled. 
+     */
+    private void stepProfile( double dt ) {
+        double errorRotations = targetRotations - referencePositionRotations; 
+
+        if ( Math.abs( errorRotations ) <= Math.abs( referenceVelocityRotationsPerSec ) * dt 
+             && Math.abs( referenceVelocityRotationsPerSec ) <= acceleration * dt ) {
+            // Profile Complete
+            referencePositionRotations = targetRotations; 
+            referenceVelocityRotationsPerSec = 0.0; 
+            referenceAccelerationRotationsPerSecSq = 0.0; 
+            return; 
+        }
+
+        // Fastest velocity that can still stop at the target
+        double desiredVelocity = Math.signum( errorRotations ) 
+            * Math.min( cruiseVelocity, Math.sqrt( 2.0 * acceleration * Math.abs( errorRotations ) ) ); 
+        double accelerationRequest = ( desiredVelocity - referenceVelocityRotationsPerSec ) / dt; 
+
+        referenceAccelerationRotationsPerSecSq = Math.max( -acceleration, Math.min( acceleration, accelerationRequest ) ); 
+        referenceVelocityRotationsPerSec += referenceAccelerationRotationsPerSecSq * dt; 
+        referencePositionRotations += referenceVelocityRotationsPerSec * dt; 
+    }
+}
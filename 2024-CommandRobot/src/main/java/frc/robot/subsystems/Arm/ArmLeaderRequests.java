@@ -0,0 +1,163 @@
+/**
+ * @file ArmLeaderRequests.java
+ * @brief The control requests and config changes of the leader motor of a rotary joint
+ */
+
+package frc.robot.subsystems.Arm;
+
+import com.ctre.phoenix6.controls.NeutralOut;
+import com.ctre.phoenix6.controls.PositionVoltage;
+import com.ctre.phoenix6.controls.VoltageOut;
+import com.ctre.phoenix6.hardware.TalonFX;
+import com.ctre.phoenix6.signals.GravityTypeValue;
+
+/**
+ * Sends the ArmIO requests to the one motor of a joint that is commanded, the followers only
+ * follow it. Shared by the Arm (ArmDefinition) and every other joint (RotaryMechanism), which
+ * only differ in how they read their sensors and check their health.
+ *
+ * The requests are created once and reused every loop. While driving is disabled (see
+ * setDriveEnabled) every request but stop() is dropped, and the leader is stopped the moment it
+ * is disabled instead of at the next request.
+ */
+public class ArmLeaderRequests {
+    // Decleration
+    private final TalonFX leader; 
+    private final GravityTypeValue gravityType; 
+    private ArmConfig appliedConfig; // The parameters on the leader, only changed by applyConfig
+    private boolean driveEnabled = true; 
+
+    // Control Requests are created once and reused every loop
+    private final PositionVoltage pPos = new PositionVoltage( 0, 0, false, 0, 0, false, false, false );       // Holding
+    private final ArmMotionMagicRequest pMnPos; // Moving, with the constraints of each move
+    private final PositionVoltage pStreamPos = new PositionVoltage( 0, 0, false, 0, 1, false, false, false ); // Following a Streamed Profile
+    private final VoltageOut pVolts = new VoltageOut( 0, false, false, false, false ); // System Identification
+    private final NeutralOut pStop = new NeutralOut(); // Stopping
+
+    /**
+     * Creates the requests of a leader motor
+     * @param leader The leader motor, already brought up with the config
+     * @param canBus The CAN bus of the leader, which decides how Motion Magic constraints are sent
+     * @param gravityType How gravity acts on the joint, used when the slots are applied again
+     * @param config The gains and Motion Magic constraints the leader was brought up with
+     */
+    public ArmLeaderRequests( TalonFX leader, String canBus, GravityTypeValue gravityType, ArmConfig config ) {
+        this.leader = leader; 
+        this.gravityType = gravityType; 
+        appliedConfig = config; 
+        pMnPos = new ArmMotionMagicRequest( leader, canBus ); 
+    }
+
+    /**
+     * Allows or stops driving, called at the start of every loop with the outcome of the health
+     * checks. Also sends a Motion Magic move that was waiting on its constraints (see ArmMotionMagicRequest).
+     * @param enabled False to stop the leader and drop every request until it is true again
+     */
+    public void setDriveEnabled( boolean enabled ) {
+        if ( driveEnabled && !enabled ) {
+            pMnPos.cancel(); 
+            leader.setControl( pStop ); 
+        }
+        driveEnabled = enabled; 
+        if ( driveEnabled ) {
+            pMnPos.flush(); 
+        }
+    }
+
+    /**
+     * @return True if the requests are sent
+     */
+    public boolean isDriveEnabled() {
+        return driveEnabled; 
+    }
+
+    /**
+     * Sets the leader to Neutral, the followers go Neutral with it
+     */
+    public void stop() {
+        pMnPos.cancel(); 
+        leader.setControl( pStop ); 
+    }
+
+    /**
+     * Holds a position with PositionVoltage on Slot 0
+     * @param positionRotations The position to hold (Rotations)
+     * @param feedforwardVolts Extra feedforward added on top of the Slot 0 gains
+     */
+    public void setPositionControl( double positionRotations, double feedforwardVolts ) {
+        if ( !driveEnabled ) {
+            return; 
+        }
+        pMnPos.cancel(); 
+        leader.setControl( pPos.withPosition( positionRotations ).withFeedForward( feedforwardVolts ) ); 
+    }
+
+    /**
+     * Moves to a position with Motion Magic on Slot 1, with the constraints of this move (see ArmMotionMagicRequest)
+     * @param positionRotations The position to move to (Rotations)
+     * @param cruiseVelocity The cruise velocity of the move (Rotations per second)
+     * @param acceleration The acceleration of the move (Rotations per second^2)
+     * @param jerk The jerk of the move (Rotations per second^3)
+     * @param feedforwardVolts Extra feedforward added on top of the Slot 1 gains
+     */
+    public void setMotionControl( double positionRotations, double cruiseVelocity, double acceleration, double jerk, double feedforwardVolts ) {
+        if ( !driveEnabled ) {
+            return; 
+        }
+        pMnPos.send( positionRotations, cruiseVelocity, acceleration, jerk, feedforwardVolts ); 
+    }
+
+    /**
+     * Follows one point of a streamed profile with PositionVoltage on Slot 1, so the velocity gain
+     * of Slot 1 acts as the feedforward along the profile
+     * @param positionRotations The position of the profile point (Rotations)
+     * @param velocityRotationsPerSec The velocity of the profile point (Rotations per second)
+     * @param feedforwardVolts Extra feedforward added on top of the Slot 1 gains
+     */
+    public void setProfiledPositionControl( double positionRotations, double velocityRotationsPerSec, double feedforwardVolts ) {
+        if ( !driveEnabled ) {
+            return; 
+        }
+        pMnPos.cancel(); 
+        leader.setControl( pStreamPos.withPosition( positionRotations ).withVelocity( velocityRotationsPerSec ).withFeedForward( feedforwardVolts ) ); 
+    }
+
+    /**
+     * Applies a fixed voltage with no closed loop, for system identification
+     * @param volts The voltage to apply
+     */
+    public void setVoltage( double volts ) {
+        if ( !driveEnabled ) {
+            return; 
+        }
+        pMnPos.cancel(); 
+        leader.setControl( pVolts.withOutput( volts ) ); 
+    }
+
+    /**
+     * Applies the parts of the config that are different from what the leader has: each slot and
+     * the Motion Magic constraints are separate config groups, so only those that changed are
+     * sent. The followers only follow, so they do not need them.
+     * This blocks on the CAN bus, so it must not be called from the robot loop.
+     * @param config The new gains and Motion Magic constraints
+     * @return True if every changed part was applied
+     */
+    public boolean applyConfig( ArmConfig config ) {
+        boolean applied = true; 
+        if ( config.slot0Changed( appliedConfig ) ) {
+            applied &= leader.getConfigurator().apply( config.toSlot0Configs( gravityType ), ArmConstants.CONFIG_TIMEOUT_SECS ).isOK(); 
+        }
+        if ( config.slot1Changed( appliedConfig ) ) {
+            applied &= leader.getConfigurator().apply( config.toSlot1Configs( gravityType ), ArmConstants.CONFIG_TIMEOUT_SECS ).isOK(); 
+        }
+        if ( config.motionMagicChanged( appliedConfig ) ) {
+            applied &= leader.getConfigurator().apply( config.toMotionMagicConfigs(), ArmConstants.CONFIG_TIMEOUT_SECS ).isOK(); 
+            // The constraints of the current move were overwritten, they are applied again with the next one
+            pMnPos.invalidate(); 
+        }
+        if ( applied ) {
+            appliedConfig = config; 
+        }
+        return applied; 
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * @file ArmLoopTiming.java
+ * @brief Instrumentation of how long each part of the Arm loop takes
+ */
+
+package frc.robot.subsystems.Arm;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.util.LoopTimingStats;
+
+/**
+ * Times the three parts of ArmSubsystem.periodic() (reading the inputs, deciding on the control 
+ * request, and writing it along with the telemetry log) and the whole loop, so a loop overrun can be traced to the arm or ruled out. 
+ * 
+ * The status signals are read from the CAN bus in one batch before the scheduler runs (see 
+ * CANSignalRefresher), so UpdateInputs only covers copying the values that were already read. 
+ * The batched read is published next to the arm as CANRefresh once setCANRefreshStats is called, 
+ * it is not part of the Total or the budget of the arm. 
+ * 
+ * Every loop only reads System.nanoTime() and records into fixed size histograms. The max and 
+ * p99 over the last WINDOW_SIZE loops are published to NetworkTables every PUBLISH_PERIOD_LOOPS 
+ * loops. A loop where the arm alone takes longer than the budget is counted as an overrun.
+ */
+public class ArmLoopTiming {
+    // Statistic Settings
+    public static final int WINDOW_SIZE = 250; // 5 seconds of loops
+    public static final int PUBLISH_PERIOD_LOOPS = 25; // 2 Hz
+    private static final long BUCKET_WIDTH_NANOS = 10_000; // 10 us
+    private static final long MAX_NANOS = 20_000_000; // A whole loop
+
+    // Default Budget of the Arm in the 20 ms loop (Seconds)
+    public static final double DEFAULT_BUDGET_SECS = 0.002; 
+
+    // Loop Sections
+    private final LoopTimingStats updateInputsStats = new LoopTimingStats( WINDOW_SIZE, BUCKET_WIDTH_NANOS, MAX_NANOS ); 
+    private final LoopTimingStats decisionStats = new LoopTimingStats( WINDOW_SIZE, BUCKET_WIDTH_NANOS, MAX_NANOS ); 
+    private final LoopTimingStats controlWriteStats = new LoopTimingStats( WINDOW_SIZE, BUCKET_WIDTH_NANOS, MAX_NANOS ); 
+    private final LoopTimingStats totalStats = new LoopTimingStats( WINDOW_SIZE, BUCKET_WIDTH_NANOS, MAX_NANOS ); 
+    private LoopTimingStats canRefreshStats; // Recorded by the CANSignalRefresher, null if not published
+
+    // Timestamps of the current loop
+    private long loopStartNanos; 
+    private long updateInputsEndNanos; 
+    private long decisionEndNanos; 
+
+    // Budget
+    private long budgetNanos = (long) ( DEFAULT_BUDGET_SECS * 1e9 ); 
+    private long overruns; 
+    private boolean overrunSincePublish; 
+    private int loopsSincePublish; 
+
+    // Dashboard - null when not publishing
+    private final DoublePublisher[] maxMsPublishers; 
+    private final DoublePublisher[] p99MsPublishers; 
+    private final IntegerPublisher overrunsPublisher; 
+    private final BooleanPublisher overBudgetPublisher; 
+
+    /**
+     * Creates the instrumentation
+     * @param table The table to publish the timings to, or null to not publish
+     */
+    public ArmLoopTiming( NetworkTable table ) {
+        if ( table == null ) {
+            maxMsPublishers = null; 
+            p99MsPublishers = null; 
+            overrunsPublisher = null; 
+            overBudgetPublisher = null; 
+            return; 
+        }
+        String[] sections = { "UpdateInputs", "Decision", "ControlWrite", "Total", "CANRefresh" }; 
+        maxMsPublishers = new DoublePublisher[sections.length]; 
+        p99MsPublishers = new DoublePublisher[sections.length]; 
+        for ( int i = 0; i < sections.length; i++ ) {
+            maxMsPublishers[i] = table.getDoubleTopic( sections[i] + "MaxMs" ).publish(); 
+            p99MsPublishers[i] = table.getDoubleTopic( sections[i] + "P99Ms" ).publish(); 
+        }
+        overrunsPublisher = table.getIntegerTopic( "Overruns" ).publish(); 
+        overBudgetPublisher = table.getBooleanTopic( "OverBudget" ).publish(); 
+    }
+
+    /**
+     * Sets how long the arm may take in one loop before the loop counts as an overrun
+     * @param budgetSecs The budget (Seconds)
+     */
+    public void setBudget( double budgetSecs ) {
+        budgetNanos = (long) ( budgetSecs * 1e9 ); 
+    }
+
+    /**
+     * Publishes the timing of the batched CAN read next to the parts of the arm loop
+     * @param stats The timing recorded by the CANSignalRefresher (see CANSignalRefresher.getTiming)
+     */
+    public void setCANRefreshStats( LoopTimingStats stats ) {
+        canRefreshStats = stats; 
+    }
+
+    /** Marks the start of the loop */
+    public void startLoop() {
+        loopStartNanos = System.nanoTime(); 
+    }
+
+    /** Marks the end of reading the inputs */
+    public void endUpdateInputs() {
+        updateInputsEndNanos = System.nanoTime(); 
+    }
+
+    /** Marks the end of deciding on the control request */
+    public void endDecision() {
+        decisionEndNanos = System.nanoTime(); 
+    }
+
+    /**
+     * Marks the end of writing the control request and telemetry, which ends the loop
+     */
+    public void endLoop() {
+        long endNanos = System.nanoTime(); 
+        long totalNanos = endNanos - loopStartNanos; 
+        updateInputsStats.record( updateInputsEndNanos - loopStartNanos ); 
+        decisionStats.record( decisionEndNanos - updateInputsEndNanos ); 
+        controlWriteStats.record( endNanos - decisionEndNanos ); 
+        totalStats.record( totalNanos ); 
+
+        if ( totalNanos > budgetNanos ) {
+            overruns++; 
+            if ( !overrunSincePublish ) {
+                // Reported at most once per publish period so the warning cannot flood the console
+                DriverStation.reportWarning( "Arm loop took " + totalNanos / 1e6 + " ms, over its budget", false ); 
+            }
+            overrunSincePublish = true; 
+        }
+
+        loopsSincePublish++; 
+        if ( loopsSincePublish >= PUBLISH_PERIOD_LOOPS ) {
+            publish(); 
+            loopsSincePublish = 0; 
+            overrunSincePublish = false; 
+        }
+    }
+
+    /**
+     * @return The number of loops where the arm went over its budget
+     */
+    public long getOverruns() {
+        return overruns; 
+    }
+
+    /**
+     * @return The statistics of the whole arm loop
+     */
+    public LoopTimingStats getTotalStats() {
+        return totalStats; 
+    }
+
+    /**
+     * Publishes the statistics of the window to NetworkTables
+     */
+    private void publish() {
+        if ( maxMsPublishers == null ) {
+            return; 
+        }
+        publish( 0, updateInputsStats ); 
+        publish( 1, decisionStats ); 
+        publish( 2, controlWriteStats ); 
+        publish( 3, totalStats ); 
+        if ( canRefreshStats != null ) {
+            publish( 4, canRefreshStats ); 
+        }
+        overrunsPublisher.set( overruns ); 
+        overBudgetPublisher.set( overrunSincePublish ); 
+    }
+
+    private void publish( int section, LoopTimingStats stats ) {
+        maxMsPublishers[section].set( stats.getMaxNanos() / 1e6 ); 
+        p99MsPublishers[section].set( stats.getPercentileNanos( 0.99 ) / 1e6 ); 
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * @file ArmModeStateMachine.java
+ * @brief Chooses the control mode of the Arm with hysteresis and dwell times
+ */
+
+package frc.robot.subsystems.Arm;
+
+import java.util.Arrays;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.StringPublisher;
+
+/**
+ * The control mode state machine of the Arm Subsystem.
+ *
+ *   MOTION_MAGIC --( error < first threshold, after the dwell )---------------> POSITION
+ *   POSITION     --( error > first threshold + first band )-------------------> MOTION_MAGIC
+ *   POSITION     --( error < second threshold - second band and barely 
+ *                    moving, for the whole dwell, at a target where the 
+ *                    stopped arm is held against gravity )-------------------> NEUTRAL
+ *   NEUTRAL      --( error > second threshold )-------------------------------> POSITION
+ *   NEUTRAL      --( error > first threshold + first band )-------------------> MOTION_MAGIC
+ *
+ * Stepping down to a mode that drives the arm less needs a smaller error than stepping back up 
+ * (the hysteresis band) and has to wait out the dwell time, so noise on the encoder around a 
+ * threshold does not flip the mode every loop. Stepping up is never delayed, so an arm that 
+ * starts to drop while stopped is caught straight away. 
+ *
+ * Time is counted in loops, so the same inputs always give the same modes. After a reset (e.g. a
+ * new target) the first mode is chosen from the entry thresholds alone.
+ */
+public class ArmModeStateMachine {
+    // Transition Metrics
+    public static final int TRANSITION_WINDOW_LOOPS = 50; // 1 second of loops
+    private static final int PUBLISH_PERIOD_LOOPS = 25; // 2 Hz
+
+    // Thresholds (Radians)
+    private final double first_threshold_positionRads; 
+    private final double first_band_positionRads; 
+    private final double second_threshold_positionRads; 
+    private final double second_band_positionRads; 
+    private final double settled_threshold_velocityRadsPerSec; 
+    private final int dwellLoops; 
+
+    // State
+    private ArmControlMode state; // null until the first update after a reset
+    private long stateEnteredCycle; 
+    private long holdStartCycle; // First loop of the current run of loops that qualify for Neutral
+    private boolean holding; 
+
+    // Metrics - the cycles of the most recent transitions
+    private final long[] transitionCycles = new long[TRANSITION_WINDOW_LOOPS]; 
+    private int transitionIndex; 
+    private long transitions; 
+    private int loopsSincePublish; 
+
+    // Dashboard - null when not publishing
+    private final StringPublisher statePublisher; 
+    private final IntegerPublisher transitionsPublisher; 
+    private final DoublePublisher transitionsPerSecPublisher; 
+
+    /**
+     * Creates the state machine
+     * @param first_threshold_positionRads Error below which Motion Magic hands over to Position (Radians)
+     * @param first_band_positionRads Extra error above the first threshold before going back to Motion Magic (Radians)
+     * @param second_threshold_positionRads Error above which stopped motors drive again (Radians)
+     * @param second_band_positionRads How far below the second threshold the error must be before the motors are stopped (Radians)
+     * @param settled_threshold_velocityRadsPerSec Velocity below which the motors may be stopped (Radians per second)
+     * @param dwellLoops Loops a mode is held for before it can be left
+     * @param table The table to publish the metrics to, or null to not publish
+     */
+    public ArmModeStateMachine( double first_threshold_positionRads, double first_band_positionRads,
+                                double second_threshold_positionRads, double second_band_positionRads,
+                                double settled_threshold_velocityRadsPerSec, int dwellLoops, NetworkTable table ) {
+        this.first_threshold_positionRads = first_threshold_positionRads; 
+        this.first_band_positionRads = first_band_positionRads; 
+        this.second_threshold_positionRads = second_threshold_positionRads; 
+        this.second_band_positionRads = second_band_positionRads; 
+        this.settled_threshold_velocityRadsPerSec = settled_threshold_velocityRadsPerSec; 
+        this.dwellLoops = dwellLoops; 
+        Arrays.fill( transitionCycles, Long.MIN_VALUE ); 
+
+        if ( table == null ) {
+            statePublisher = null; 
+            transitionsPublisher = null; 
+            transitionsPerSecPublisher = null; 
+            return; 
+        }
+        statePublisher = table.getStringTopic( "State" ).publish(); 
+        transitionsPublisher = table.getIntegerTopic( "Transitions" ).publish(); 
+        transitionsPerSecPublisher = table.getDoubleTopic( "TransitionsPerSec" ).publish(); 
+    }
+
+    /**
+     * Forgets the current mode, the next update chooses the mode from the entry thresholds alone
+     */
+    public void reset() {
+        state = null; 
+    }
+
+    /**
+     * Works out the mode for this loop
+     * @param cycle The number of the loop
+     * @param difference_positionRads The distance between the target and the arm (Radians)
+     * @param current_velocityRadsPerSec The speed of the arm (Radians per second)
+     * @param stoppable True if the arm stays put at the target with the motors stopped, otherwise Position is the lowest mode
+     * @return The control mode to command
+     */
+    public ArmControlMode update( long cycle, double difference_positionRads, double current_velocityRadsPerSec, boolean stoppable ) {
+        double error = Math.abs( difference_positionRads ); 
+        boolean settling = Math.abs( current_velocityRadsPerSec ) < settled_threshold_velocityRadsPerSec; 
+
+        if ( state == null ) {
+            holding = false; 
+            // Fresh Start - entry thresholds only
+            ArmControlMode initial; 
+            if ( error >= first_threshold_positionRads ) {
+                initial = ArmControlMode.MOTION_MAGIC; 
+            }
+            else if ( error >= second_threshold_positionRads - second_band_positionRads || !settling || !stoppable ) {
+                initial = ArmControlMode.POSITION; 
+            }
+            else {
+                initial = ArmControlMode.NEUTRAL; 
+            }
+            state = initial; 
+            stateEnteredCycle = cycle; 
+            return state; 
+        }
+
+ 
+        // Loops in a row that the arm has been close enough and slow enough to stop the motors
+        boolean holdable = stoppable && error < second_threshold_positionRads - second_band_positionRads && settling; 
+        if ( holdable && !holding ) {
+            holdStartCycle = cycle; 
+        }
+        holding = holdable; 
+
+        ArmControlMode next = state; 
+        boolean dwelled = cycle - stateEnteredCycle >= dwellLoops; 
+        switch ( state ) {
+            case MOTION_MAGIC:
+                if ( dwelled && error < first_threshold_positionRads ) {
+                    next = ArmControlMode.POSITION; 
+                }
+                break; 
+            case POSITION:
+                if ( error > first_threshold_positionRads + first_band_positionRads ) {
+                    next = ArmControlMode.MOTION_MAGIC; 
+                }
+                else if ( holding && cycle - holdStartCycle >= dwellLoops ) {
+                    next = ArmControlMode.NEUTRAL; 
+                }
+                break; 
+            case NEUTRAL:
+            default:
+                if ( error > first_threshold_positionRads + first_band_positionRads ) {
+                    next = ArmControlMode.MOTION_MAGIC; 
+                }
+                else if ( error > second_threshold_positionRads ) {
+                    next = ArmControlMode.POSITION; 
+                }
+                break; 
+        }
+
+        if ( next != state ) {
+            state = next; 
+            stateEnteredCycle = cycle; 
+            transitions++; 
+            transitionCycles[transitionIndex] = cycle; 
+            transitionIndex = ( transitionIndex + 1 ) % transitionCycles.length; 
+        }
+        return state; 
+    }
+
+    /**
+     * Publishes the metrics every PUBLISH_PERIOD_LOOPS loops, call once per loop
+     * @param cycle The number of the loop
+     */
+    public void publish( long cycle ) {
+        if ( statePublisher == null || ++loopsSincePublish < PUBLISH_PERIOD_LOOPS ) {
+            return; 
+        }
+        loopsSincePublish = 0; 
+        statePublisher.set( state == null ? "NONE" : state.name() ); 
+        transitionsPublisher.set( transitions ); 
+        transitionsPerSecPublisher.set( getTransitionsPerSecond( cycle ) ); 
+    }
+
+    /**
+     * @return The mode the state machine is in, or null right after a reset
+     */
+    public ArmControlMode getState() {
+        return state; 
+    }
+
+    /**
+     * @return The number of mode changes since the state machine was created
+     */
+    public long getTransitions() {
+        return transitions; 
+    }
+
+    /**
+     * @param cycle The number of the current loop
+     * @return The number of mode changes over the last TRANSITION_WINDOW_LOOPS loops, per second
+     */
+    public double getTransitionsPerSecond( long cycle ) {
+        int count = 0; 
+        for ( long transitionCycle : transitionCycles ) {
+            if ( transitionCycle > cycle - TRANSITION_WINDOW_LOOPS ) {
+                count++; 
+            }
+        }
+        return count / ( TRANSITION_WINDOW_LOOPS * ArmConstants.LOOP_PERIOD_SECS ); 
+    }
+}
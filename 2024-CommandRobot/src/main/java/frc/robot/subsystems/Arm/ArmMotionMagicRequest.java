@@ -0,0 +1,170 @@
+/**
+ * @file ArmMotionMagicRequest.java
+ * @brief Sends a Motion Magic move with its own constraints, on any CAN bus
+ */
+
+package frc.robot.subsystems.Arm;
+
+import com.ctre.phoenix6.configs.MotionMagicConfigs;
+import com.ctre.phoenix6.controls.DynamicMotionMagicVoltage;
+import com.ctre.phoenix6.controls.MotionMagicVoltage;
+import com.ctre.phoenix6.hardware.TalonFX;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Sends Motion Magic on Slot 1 with the cruise velocity, acceleration and jerk of each move.
+ *
+ * On a CANivore the constraints go in the request itself with DynamicMotionMagicVoltage, which
+ * is only supported there. On the roboRIO bus the request is MotionMagicVoltage, and the
+ * constraints have to be applied as the MotionMagic config group first. That apply blocks on a
+ * CAN round trip and shares the configurator with a config reload, which can hold it for a full
+ * CONFIG_TIMEOUT_SECS, so it runs on its own thread. A move with new constraints is held back
+ * until the device has confirmed them, and is then sent by flush() at the start of a later loop,
+ * so a move never starts with the constraints of the one before. That costs a loop or two at the
+ * start of each move whose constraints changed, while the motor keeps its last request.
+ *
+ * The requests and the config group are made once, the robot loop never blocks or allocates.
+ */
+public class ArmMotionMagicRequest {
+    // Decleration
+    private final TalonFX motor; 
+    private final boolean dynamic; 
+    private final DynamicMotionMagicVoltage dynamicRequest = new DynamicMotionMagicVoltage( 0, 0, 0, 0, false, 0, 1, false, false, false ); 
+    private final MotionMagicVoltage request = new MotionMagicVoltage( 0, false, 0, 1, false, false, false ); 
+
+    // The Constraints Last Asked For - robot loop only
+    private double cruiseVelocity; 
+    private double acceleration; 
+    private double jerk; 
+    private long requestedConstraints; // Counts every set of constraints handed to the config thread
+
+    // The Move Waiting on its Constraints - robot loop only
+    private boolean movePending; 
+    private double pendingPositionRotations; 
+    private double pendingFeedforwardVolts; 
+
+    // False when the constraints on the device may not be the last ones sent, e.g. after a config reload
+    private volatile boolean constraintsSent; 
+
+    // Handed to the config thread, guarded by lock
+    private final Object lock = new Object(); 
+    private final MotionMagicConfigs constraints = new MotionMagicConfigs(); 
+    private long constraintsToApply; 
+    private volatile long confirmedConstraints; // The last set of constraints the device confirmed
+
+    /**
+     * Creates the request for a motor, and on the roboRIO bus the thread that applies the constraints
+     * @param motor The motor, the leader of the mechanism
+     * @param canBus The CAN bus of the motor, "" or "rio" for the roboRIO bus
+     */
+    public ArmMotionMagicRequest( TalonFX motor, String canBus ) {
+        this.motor = motor; 
+        dynamic = !canBus.isEmpty() && !canBus.equals( "rio" ); 
+        if ( !dynamic ) {
+            Thread applier = new Thread( this::applyConstraints, "ArmMotionMagicConstraints" ); 
+            applier.setDaemon( true ); 
+            applier.start(); 
+        }
+    }
+
+    /**
+     * Sends the move to the motor, or on the roboRIO bus holds it back until its constraints are
+     * on the device (see flush)
+     * @param positionRotations The position to move to (Rotations)
+     * @param cruiseVelocity The cruise velocity of the move (Rotations per second)
+     * @param acceleration The acceleration of the move (Rotations per second^2)
+     * @param jerk The jerk of the move (Rotations per second^3)
+     * @param feedforwardVolts Extra feedforward added on top of the Slot 1 gains
+     */
+    public void send( double positionRotations, double cruiseVelocity, double acceleration, double jerk, double feedforwardVolts ) {
+        if ( dynamic ) {
+            motor.setControl( dynamicRequest.withPosition( positionRotations ).withVelocity( cruiseVelocity )
+                .withAcceleration( acceleration ).withJerk( jerk ).withFeedForward( feedforwardVolts ) ); 
+            return; 
+        }
+        if ( !constraintsSent || cruiseVelocity != this.cruiseVelocity || acceleration != this.acceleration || jerk != this.jerk ) {
+            this.cruiseVelocity = cruiseVelocity; 
+            this.acceleration = acceleration; 
+            this.jerk = jerk; 
+            constraintsSent = true; 
+            synchronized ( lock ) {
+                constraints.MotionMagicCruiseVelocity = cruiseVelocity; 
+                constraints.MotionMagicAcceleration = acceleration; 
+                constraints.MotionMagicJerk = jerk; 
+                constraintsToApply = ++requestedConstraints; 
+                lock.notify(); 
+            }
+        }
+        movePending = true; 
+        pendingPositionRotations = positionRotations; 
+        pendingFeedforwardVolts = feedforwardVolts; 
+        flush(); 
+    }
+
+    /**
+     * Sends the move that was held back once the device has confirmed its constraints, called at
+     * the start of every loop
+     */
+    public void flush() {
+        if ( movePending && confirmedConstraints == requestedConstraints ) {
+            movePending = false; 
+            motor.setControl( request.withPosition( pendingPositionRotations ).withFeedForward( pendingFeedforwardVolts ) ); 
+        }
+    }
+
+    /**
+     * Drops the move that was held back, call when any other request is sent to the motor
+     */
+    public void cancel() {
+        movePending = false; 
+    }
+
+    /**
+     * Sends the constraints again with the next move, call after the MotionMagic config group was
+     * applied some other way. Safe to call from any thread.
+     */
+    public void invalidate() {
+        constraintsSent = false; 
+    }
+
+    /**
+     * @return True if the constraints go in the request (CANivore), false if they are sent as configs
+     */
+    public boolean isDynamic() {
+        return dynamic; 
+    }
+
+    /**
+     * Applies the newest constraints as they are handed over, runs on its own thread. Constraints
+     * replaced before they were applied are skipped, and a failed apply is tried again.
+     */
+    private void applyConstraints() {
+        MotionMagicConfigs applying = new MotionMagicConfigs(); 
+        long applied = 0; 
+        while ( true ) {
+            long toApply; 
+            synchronized ( lock ) {
+                while ( constraintsToApply == applied ) {
+                    try {
+                        lock.wait(); 
+                    }
+                    catch ( InterruptedException e ) {
+                        return; 
+                    }
+                }
+                applying.MotionMagicCruiseVelocity = constraints.MotionMagicCruiseVelocity; 
+                applying.MotionMagicAcceleration = constraints.MotionMagicAcceleration; 
+                applying.MotionMagicJerk = constraints.MotionMagicJerk; 
+                toApply = constraintsToApply; 
+            }
+            if ( motor.getConfigurator().apply( applying, ArmConstants.CONFIG_TIMEOUT_SECS ).isOK() ) {
+                applied = toApply; 
+                confirmedConstraints = toApply; 
+            }
+            else {
+                DriverStation.reportWarning( "Arm: Motion Magic constraints were not confirmed, trying again", false ); 
+            }
+        }
+    }
+}
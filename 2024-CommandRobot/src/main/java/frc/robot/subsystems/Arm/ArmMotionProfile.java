@@ -0,0 +1,212 @@
+/**
+ * @file ArmMotionProfile.java
+ * @brief Precomputed jerk-limited motion profile between two arm positions
+ */
+
+package frc.robot.subsystems.Arm;
+
+/**
+ * A time-optimal, jerk-limited (S-curve) profile that moves the arm from rest at one position to 
+ * rest at another without going over the velocity, acceleration and jerk constraints. 
+ * 
+ * The profile is made of seven segments of constant jerk: jerk up, constant acceleration, jerk 
+ * down, cruise, and the same again mirrored to stop. Segments shrink to nothing when the move is 
+ * too short to reach the cruise velocity or the acceleration limit. The whole profile is sampled 
+ * once when it is created, so looking up a point while the arm moves is an array lookup with no 
+ * allocation. All positions are in rotations, the same as the Motion Magic configuration.
+ */
+public class ArmMotionProfile {
+    // Profile Definition
+    private final double startRotations; 
+    private final double goalRotations; 
+    private final ArmProfileConstraints constraints; 
+    private final double durationSecs; 
+
+    // Sampled Profile
+    private final double samplePeriodSecs; 
+    private final double[] positionsRotations; 
+    private final double[] velocitiesRotationsPerSec; 
+    private final double[] accelerationsRotationsPerSecSq; 
+
+    /**
+     * Generates and samples the profile
+     * @param startRotations The position the arm starts at, at rest (Rotations)
+     * @param goalRotations The position the arm ends at, at rest (Rotations)
+     * @param constraints The limits of the profile
+     * @param samplePeriodSecs The time between samples (Seconds)
+     */
+    public ArmMotionProfile( double startRotations, double goalRotations, ArmProfileConstraints constraints, 
+                             double samplePeriodSecs ) {
+        this.startRotations = startRotations; 
+        this.goalRotations = goalRotations; 
+        this.constraints = constraints; 
+        this.samplePeriodSecs = samplePeriodSecs; 
+
+        double distance = Math.abs( goalRotations - startRotations ); 
+        double direction = Math.signum( goalRotations - startRotations ); 
+        double velocity = constraints.cruiseVelocity(); 
+        double acceleration = constraints.acceleration(); 
+        double jerk = constraints.jerk(); 
+
+        // Segment Durations - jerk (tj), constant acceleration (ta) and cruise (tv)
+        double tj; 
+        double ta; 
+        double tv; 
+        if ( jerk == 0 ) {
+            // Trapezoidal Profile
+            tj = 0; 
+            if ( velocity * velocity / acceleration > distance ) {
+                velocity = Math.sqrt( acceleration * distance ); 
+            }
+            ta = velocity / acceleration; 
+            tv = velocity > 0 ? ( distance - velocity * velocity / acceleration ) / velocity : 0; 
+        } 
+        else {
+            // The acceleration limit cannot be reached before the cruise velocity is
+            if ( velocity * jerk < acceleration * acceleration ) {
+                acceleration = Math.sqrt( velocity * jerk ); 
+            }
+            tj = acceleration / jerk; 
+            double accelerationDistance = velocity * ( velocity / acceleration + tj ) / 2; 
+
+            if ( 2 * accelerationDistance <= distance ) {
+                ta = velocity / acceleration - tj; 
+                tv = ( distance - 2 * accelerationDistance ) / velocity; 
+            } 
+            else {
+                // The cruise velocity is not reached, the peak velocity solves v^2/a + v*a/j = d
+                double b = acceleration * acceleration / jerk; 
+                double peakVelocity = ( -b + Math.sqrt( b * b + 4 * acceleration * distance ) ) / 2; 
+                if ( peakVelocity >= b ) {
+                    ta = peakVelocity / acceleration - tj; 
+                } 
+                else {
+                    // The acceleration limit is not reached either
+                    tj = Math.cbrt( distance / ( 2 * jerk ) ); 
+                    ta = 0; 
+                }
+                tv = 0; 
+            }
+        }
+
+        // Each segment has a constant jerk and starts at a known acceleration
+        double peakAcceleration = jerk == 0 ? acceleration : jerk * tj; 
+        double[] segmentJerks = { jerk, 0, -jerk, 0, -jerk, 0, jerk }; 
+        double[] segmentStartAccelerations = { 0, peakAcceleration, peakAcceleration, 0, 0, -peakAcceleration, -peakAcceleration }; 
+        double[] segmentDurations = { tj, ta, tj, tv, tj, ta, tj }; 
+        double totalSecs = 0; 
+        for ( double segmentDuration : segmentDurations ) {
+            totalSecs += segmentDuration; 
+        }
+        durationSecs = distance > 0 ? totalSecs : 0; 
+
+        // Sampling the Profile
+        int samples = (int) Math.ceil( durationSecs / samplePeriodSecs ) + 1; 
+        positionsRotations = new double[samples]; 
+        velocitiesRotationsPerSec = new double[samples]; 
+        accelerationsRotationsPerSecSq = new double[samples]; 
+        double[] state = new double[3]; 
+        for ( int i = 0; i < samples; i++ ) {
+            double t = Math.min( i * samplePeriodSecs, durationSecs ); 
+            evaluate( t, segmentJerks, segmentStartAccelerations, segmentDurations, state ); 
+            positionsRotations[i] = startRotations + direction * state[0]; 
+            velocitiesRotationsPerSec[i] = direction * state[1]; 
+            accelerationsRotationsPerSecSq[i] = direction * state[2]; 
+        }
+        // The last sample is exactly at rest at the goal
+        positionsRotations[samples - 1] = goalRotations; 
+        velocitiesRotationsPerSec[samples - 1] = 0; 
+        accelerationsRotationsPerSecSq[samples - 1] = 0; 
+    }
+
+    /**
+     * Works out the distance, velocity and acceleration at a time by integrating the segments exactly
+     * @param state Filled with the distance, velocity and acceleration
+     */
+    private static void evaluate( double t, double[] segmentJerks, double[] segmentStartAccelerations, 
+                                  double[] segmentDurations, double[] state ) {
+        double p = 0; 
+        double v = 0; 
+        double a = 0; 
+        double remaining = t; 
+        for ( int segment = 0; segment < segmentDurations.length && remaining > 0; segment++ ) {
+            double dt = Math.min( remaining, segmentDurations[segment] ); 
+            double j = segmentJerks[segment]; 
+            a = segmentStartAccelerations[segment]; 
+            p += v * dt + a * dt * dt / 2 + j * dt * dt * dt / 6; 
+            v += a * dt + j * dt * dt / 2; 
+            a += j * dt; 
+            remaining -= dt; 
+        }
+        state[0] = p; 
+        state[1] = v; 
+        state[2] = a; 
+    }
+
+    /**
+     * @return How long the profile takes (Seconds)
+     */
+    public double getDurationSecs() {
+        return durationSecs; 
+    }
+
+    /**
+     * @param t The time since the start of the profile (Seconds)
+     * @return True once the profile has reached the goal
+     */
+    public boolean isFinished( double t ) {
+        return t >= durationSecs; 
+    }
+
+    /**
+     * @param t The time since the start of the profile (Seconds)
+     * @return The position of the profile (Rotations)
+     */
+    public double getPositionRotations( double t ) {
+        return sample( positionsRotations, t ); 
+    }
+
+    /**
+     * @param t The time since the start of the profile (Seconds)
+     * @return The velocity of the profile (Rotations per second)
+     */
+    public double getVelocityRotationsPerSec( double t ) {
+        return sample( velocitiesRotationsPerSec, t ); 
+    }
+
+    /**
+     * @param t The time since the start of the profile (Seconds)
+     * @return The acceleration of the profile (Rotations per second^2)
+     */
+    public double getAccelerationRotationsPerSecSq( double t ) {
+        return sample( accelerationsRotationsPerSecSq, t ); 
+    }
+
+    public double getStartRotations() {
+        return startRotations; 
+    }
+
+    public double getGoalRotations() {
+        return goalRotations; 
+    }
+
+    public ArmProfileConstraints getConstraints() {
+        return constraints; 
+    }
+
+    /**
+     * Linearly interpolates between the two samples around a time
+     */
+    private double sample( double[] values, double t ) {
+        if ( t <= 0 ) {
+            return values[0]; 
+        }
+        double index = t / samplePeriodSecs; 
+        int lower = (int) index; 
+        if ( lower >= values.length - 1 ) {
+            return values[values.length - 1]; 
+        }
+        double fraction = index - lower; 
+        return values[lower] + ( values[lower + 1] - values[lower] ) * fraction; 
+    }
+}
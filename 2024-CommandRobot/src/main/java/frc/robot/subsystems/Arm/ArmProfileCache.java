@@ -0,0 +1,109 @@
+/**
+ * @file ArmProfileCache.java
+ * @brief Bounded least-recently-used cache of arm motion profiles
+ */
+
+package frc.robot.subsystems.Arm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.wpi.first.math.util.Units;
+
+/**
+ * Keeps the most recently used motion profiles so a repeated move costs a table lookup instead 
+ * of generating the profile again. Profiles are keyed by their start, goal and constraints, and 
+ * once the cache is full the profile that was used least recently is dropped. 
+ * 
+ * Moves between the named arm positions can be generated ahead of time with precompute(), e.g. 
+ * while the robot is starting up, so they never have to be generated during a match.
+ */
+public class ArmProfileCache {
+    /**
+     * The key of a cached profile
+     */
+    private record Key( double startRotations, double goalRotations, ArmProfileConstraints constraints ) {}
+
+    // Decleration
+    private final int capacity; 
+    private final double samplePeriodSecs; 
+    private final LinkedHashMap<Key, ArmMotionProfile> profiles; 
+
+    // Stats
+    private long hits; 
+    private long misses; 
+
+    /**
+     * Creates the cache
+     * @param capacity The maximum number of profiles kept
+     * @param samplePeriodSecs The time between samples of the generated profiles (Seconds)
+     */
+    public ArmProfileCache( int capacity, double samplePeriodSecs ) {
+        this.capacity = capacity; 
+        this.samplePeriodSecs = samplePeriodSecs; 
+        // Access order, so iteration starts at the least recently used profile
+        this.profiles = new LinkedHashMap<>( capacity * 4 / 3 + 1, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<Key, ArmMotionProfile> eldest ) {
+                return size() > ArmProfileCache.this.capacity; 
+            }
+        }; 
+    }
+
+    /**
+     * Looks up a profile, generating and caching it if it is not in the cache
+     * @param startRotations The position the arm starts at, at rest (Rotations)
+     * @param goalRotations The position the arm ends at, at rest (Rotations)
+     * @param constraints The limits of the profile
+     * @return The profile
+     */
+    public ArmMotionProfile get( double startRotations, double goalRotations, ArmProfileConstraints constraints ) {
+        Key key = new Key( startRotations, goalRotations, constraints ); 
+        ArmMotionProfile profile = profiles.get( key ); 
+        if ( profile != null ) {
+            hits++; 
+            return profile; 
+        }
+        misses++; 
+        profile = new ArmMotionProfile( startRotations, goalRotations, constraints, samplePeriodSecs ); 
+        profiles.put( key, profile ); 
+        return profile; 
+    }
+
+    /**
+     * Generates the profiles between every pair of positions
+     * @param constraints The limits of the profiles
+     * @param positionsRads The named positions of the arm (Radians)
+     */
+    public void precompute( ArmProfileConstraints constraints, double... positionsRads ) {
+        for ( double startRads : positionsRads ) {
+            for ( double goalRads : positionsRads ) {
+                if ( startRads != goalRads ) {
+                    // Converted the same way as ArmSubsystem, so the keys match the keys of real moves exactly
+                    get( Units.radiansToRotations( startRads ), Units.radiansToRotations( goalRads ), constraints ); 
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of lookups that found a cached profile
+     */
+    public long getHits() {
+        return hits; 
+    }
+
+    /**
+     * @return The number of lookups that had to generate a profile
+     */
+    public long getMisses() {
+        return misses; 
+    }
+
+    /**
+     * @return The number of profiles in the cache
+     */
+    public int size() {
+        return profiles.size(); 
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * @file ArmProfileConstraints.java
+ * @brief Velocity, acceleration and jerk limits of an arm motion profile
+ */
+
+package frc.robot.subsystems.Arm;
+
+/**
+ * The limits that a motion profile of the arm keeps to, in the same units as the Motion Magic 
+ * configuration of the TalonFX. A jerk of 0 means that the jerk is not limited.
+ * @param cruiseVelocity The maximum velocity (Rotations per second)
+ * @param acceleration The maximum acceleration (Rotations per second^2)
+ * @param jerk The maximum jerk (Rotations per second^3)
+ */
+public record ArmProfileConstraints( double cruiseVelocity, double acceleration, double jerk ) {
+    /**
+     * The default constraints of the onboard Motion Magic of the TalonFX, see ArmConfig
+     */
+    public static final ArmProfileConstraints MOTION_MAGIC = new ArmProfileConstraints( 
+        ArmConstants.MOTION_MAGIC_CRUISE_VELOCITY, 
+        ArmConstants.MOTION_MAGIC_ACCELERATION, 
+        ArmConstants.MOTION_MAGIC_JERK ); 
+
+    /**
+     * The constraints of the profiles streamed from the roboRIO
+     */
+    public static final ArmProfileConstraints STREAMED = new ArmProfileConstraints( 
+        ArmConstants.STREAMED_PROFILE_CRUISE_VELOCITY, 
+        ArmConstants.STREAMED_PROFILE_ACCELERATION, 
+        ArmConstants.STREAMED_PROFILE_JERK ); 
+
+    public ArmProfileConstraints {
+        if ( cruiseVelocity <= 0 || acceleration <= 0 || jerk < 0 ) {
+            throw new IllegalArgumentException( "Invalid arm profile constraints: " + cruiseVelocity 
+                + ", " + acceleration + ", " + jerk ); 
+        }
+    }
+}
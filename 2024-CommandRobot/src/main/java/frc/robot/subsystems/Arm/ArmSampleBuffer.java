@@ -0,0 +1,135 @@
+/**
+ * @file ArmSampleBuffer.java
+ * @brief Lock-free ring buffer that carries arm samples from the sampling thread to the robot loop
+ */
+
+package frc.robot.subsystems.Arm;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.wpi.first.math.util.Units;
+
+import frc.robot.subsystems.Arm.ArmIO.ArmIOInputs;
+
+/**
+ * A fixed size, single producer / single consumer ring buffer of timestamped arm samples. 
+ * 
+ * The sampling thread is the only writer (offer) and the robot loop is the only reader (drainTo), 
+ * so no locks are needed: each side only moves its own index, and the index is published with 
+ * release/acquire ordering after the sample data is written. Nothing allocates after construction.
+ * 
+ * The reader wants the newest samples, so the writer never waits for it: when the buffer is full 
+ * (e.g. the robot loop stalled) the newest sample overwrites the oldest one. The reader notices 
+ * it was overrun from the indexes, skips ahead to the newest samples, and throws away any sample 
+ * that was overwritten while it was being copied. 
+ */
+public class ArmSampleBuffer {
+    // Sample Storage
+    private final int mask; 
+    private final double[] timestampsSecs; 
+    private final double[] positionsRotations; 
+    private final double[] velocitiesRotationsPerSec; 
+
+    // Indexes - only ever increase, the slot is the index masked by the capacity
+    private final AtomicLong writeIndex = new AtomicLong(); 
+    private final AtomicLong readIndex = new AtomicLong(); 
+
+    // Samples that were overwritten or did not fit in the inputs before they were read
+    private final AtomicLong droppedSamples = new AtomicLong(); 
+
+    // Time of the newest sample offered, whether or not it has been read yet (NaN before the first)
+    private volatile double newestTimestampSecs = Double.NaN; 
+
+    /**
+     * Creates the buffer
+     * @param capacity The number of samples that can be stored, must be a power of two
+     */
+    public ArmSampleBuffer( int capacity ) {
+        if ( capacity <= 0 || Integer.bitCount( capacity ) != 1 ) {
+            throw new IllegalArgumentException( "Capacity must be a power of two: " + capacity ); 
+        }
+        mask = capacity - 1; 
+        timestampsSecs = new double[capacity]; 
+        positionsRotations = new double[capacity]; 
+        velocitiesRotationsPerSec = new double[capacity]; 
+    }
+
+    /**
+     * Adds a sample to the buffer, overwriting the oldest sample if the buffer is full. Must only 
+     * be called from the producer thread. 
+     * @param timestampSecs The time the sample was measured (Seconds)
+     * @param positionRotations The position of the arm (Rotations)
+     * @param velocityRotationsPerSec The velocity of the arm (Rotations per second)
+     * @return False if the buffer was full and the oldest sample was overwritten
+     */
+    public boolean offer( double timestampSecs, double positionRotations, double velocityRotationsPerSec ) {
+        long write = writeIndex.get(); 
+        boolean fit = write - readIndex.get() <= mask; 
+        // The previous index is visible before the slot it frees is overwritten, so the reader can tell
+        VarHandle.storeStoreFence(); 
+        int slot = (int) ( write & mask ); 
+        timestampsSecs[slot] = timestampSecs; 
+        positionsRotations[slot] = positionRotations; 
+        velocitiesRotationsPerSec[slot] = velocityRotationsPerSec; 
+        writeIndex.lazySet( write + 1 ); // Publishes the sample to the consumer
+        newestTimestampSecs = timestampSecs; 
+        return fit; 
+    }
+
+    /**
+     * Moves every sample received since the last call into the inputs. Must only be called from 
+     * the consumer thread. If there are more samples than the inputs can hold, or the producer 
+     * overran the buffer, the oldest are dropped and the newest are kept. 
+     * @param inputs The inputs that the samples are copied into
+     * @return The number of samples copied
+     */
+    public int drainTo( ArmIOInputs inputs ) {
+        long write = writeIndex.get(); 
+        long read = readIndex.get(); 
+        int maxSamples = Math.min( inputs.sampleTimestampsSecs.length, mask ); 
+
+        if ( write - read > maxSamples ) {
+            droppedSamples.addAndGet( write - read - maxSamples ); 
+            read = write - maxSamples; 
+        }
+
+        long first = read; 
+        int count = 0; 
+        for ( ; read < write; read++, count++ ) {
+            int slot = (int) ( read & mask ); 
+            inputs.sampleTimestampsSecs[count] = timestampsSecs[slot]; 
+            inputs.samplePositionsRads[count] = Units.rotationsToRadians( positionsRotations[slot] ); 
+            inputs.sampleVelocitiesRadsPerSec[count] = Units.rotationsToRadians( velocitiesRotationsPerSec[slot] ); 
+        }
+
+        // Samples the producer may have started overwriting while they were copied, including the slot it is writing now
+        VarHandle.acquireFence(); 
+        long overwritten = writeIndex.get() + 1 - ( mask + 1 ) - first; 
+        if ( overwritten > 0 ) {
+            int dropped = (int) Math.min( overwritten, count ); 
+            count -= dropped; 
+            System.arraycopy( inputs.sampleTimestampsSecs, dropped, inputs.sampleTimestampsSecs, 0, count ); 
+            System.arraycopy( inputs.samplePositionsRads, dropped, inputs.samplePositionsRads, 0, count ); 
+            System.arraycopy( inputs.sampleVelocitiesRadsPerSec, dropped, inputs.sampleVelocitiesRadsPerSec, 0, count ); 
+            droppedSamples.addAndGet( dropped ); 
+        }
+        readIndex.lazySet( write ); 
+        inputs.sampleCount = count; 
+        return count; 
+    }
+
+    /**
+     * @return The time the newest sample was measured, read or not, NaN if there has not been one (Seconds)
+     */
+    public double getNewestTimestampSecs() {
+        return newestTimestampSecs; 
+    }
+
+    /**
+     * @return The number of samples that have been dropped since the buffer was created
+     */
+    public long getDroppedSamples() {
+        return droppedSamples.get(); 
+    }
+}
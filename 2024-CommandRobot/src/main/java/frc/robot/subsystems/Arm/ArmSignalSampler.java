@@ -0,0 +1,80 @@
+/**
+ * @file ArmSignalSampler.java
+ * @brief Background thread that samples the arm signals faster than the robot loop
+ */
+
+package frc.robot.subsystems.Arm;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.StatusSignal;
+
+/**
+ * Samples the arm position and velocity on a dedicated thread. 
+ * 
+ * The thread blocks in waitForAll() until the device publishes a new frame, so it runs at the 
+ * update frequency of the signals (e.g. 250 Hz) rather than the 50 Hz robot loop. Every sample 
+ * is timestamped and pushed into an ArmSampleBuffer, which the robot loop drains in updateInputs(). 
+ * 
+ * Once started, this thread owns the signals it samples: the robot loop must not refresh them. 
+ */
+public class ArmSignalSampler extends Thread {
+    // Decleration
+    private final StatusSignal<Double> positionRotations; 
+    private final StatusSignal<Double> velocityRotations; 
+    private final BaseStatusSignal[] signals; 
+    private final ArmSampleBuffer buffer; 
+    private final double timeoutSecs; 
+
+    // Last result of waitForAll, read by the robot loop
+    private volatile StatusCode lastStatus = StatusCode.OK; 
+
+    /**
+     * Creates the sampling thread, call start() to begin sampling
+     * @param positionRotations The position signal of the arm
+     * @param velocityRotations The velocity signal of the arm
+     * @param buffer The buffer that samples are written to
+     * @param frequencyHz The update frequency of the signals, used to size the wait timeout
+     */
+    public ArmSignalSampler( StatusSignal<Double> positionRotations, StatusSignal<Double> velocityRotations, 
+                             ArmSampleBuffer buffer, double frequencyHz ) {
+        super( "ArmSignalSampler" ); 
+        setDaemon( true ); 
+        this.positionRotations = positionRotations; 
+        this.velocityRotations = velocityRotations; 
+        this.signals = new BaseStatusSignal[] { positionRotations, velocityRotations }; 
+        this.buffer = buffer; 
+        // Waiting for a few periods before giving up, so a single missed frame is not an error
+        this.timeoutSecs = 4.0 / frequencyHz; 
+    }
+
+    @Override
+    public void run() {
+        while ( !isInterrupted() ) {
+            StatusCode status = BaseStatusSignal.waitForAll( timeoutSecs, signals ); 
+            lastStatus = status; 
+            if ( status.isOK() ) {
+                buffer.offer( 
+                    positionRotations.getTimestamp().getTime(), 
+                    positionRotations.getValueAsDouble(), 
+                    velocityRotations.getValueAsDouble() ); 
+            } 
+            else {
+                // Backing off so an error that returns immediately does not spin the thread
+                try {
+                    Thread.sleep( (long) ( timeoutSecs * 1000 ) ); 
+                } 
+                catch ( InterruptedException e ) {
+                    interrupt(); 
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The status of the last wait for new samples
+     */
+    public StatusCode getLastStatus() {
+        return lastStatus; 
+    }
+}
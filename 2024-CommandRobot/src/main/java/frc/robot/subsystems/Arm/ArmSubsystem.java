@@ -4,9 +4,21 @@
 
 package frc.robot.subsystems.Arm;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 import edu.wpi.first.math.util.Units;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
 import frc.robot.subsystems.Arm.ArmIO.ArmIOInputs;
+import frc.robot.util.InputLatencyTracer;
+import frc.robot.util.InputLatencyTracer.Stage;
 /**
  * The subsystem class that is responsible for the Arm
  */
@@ -14,53 +26,854 @@ public class ArmSubsystem extends SubsystemBase {
 
     // Decleration
     private final ArmIO io; 
+    private ArmConfig config; 
+    private ArmConfigReloader configReloader; 
     private ArmIOInputs inputs; 
+
+    // Setpoint
+    private final ArmEnvelope envelope; // Every target and profile point is checked against it
+    private long rejectedSetpoints; 
+    private boolean hasTarget; 
+    private double targetPositionRads; 
+    private boolean targetChanged = true; 
+    private boolean atSetpoint; 
+    private boolean stoppable; // The arm stays put at the target with the motors stopped
+
+    // Telemetry
+    private final ArmLoopTiming loopTiming; 
+    private ArmTelemetryLogger telemetryLogger; 
+    private ArmConfig loggedConfig; // The last config written into the log
+    private long cycle; 
+    private ArmControlMode commandedMode; 
+    private double commandedSetpointRotations; 
+    private double commandedVelocityRotationsPerSec; 
+    private double commandedFeedforwardVolts; 
+
+    // Input Latency Tracing - the output and position when the traced request was written
+    private InputLatencyTracer latencyTracer; 
+    private double traceStartVolts; 
+    private double traceStartPositionRads; 
+
+    // Online Feedforward Estimation - always learning, only used once enabled
+    private ArmFeedforwardEstimator feedforwardEstimator; // Seeded from the config, replaced when it is reloaded
+    private boolean feedforwardEstimationEnabled; 
+
+    // Motion Constraint Scheduling - disabled (null) sends the configured Motion Magic constraints
+    private ArmConstraintScheduler constraintScheduler; 
+
+    // Streamed Motion Profiles - disabled (null constraints) uses the onboard Motion Magic instead
+    private final ArmProfileCache profileCache = new ArmProfileCache( 16, ArmConstants.LOOP_PERIOD_SECS ); 
+    private ArmProfileConstraints profileConstraints; 
+    private ArmMotionProfile activeProfile; 
+    private int profileLoops; 
+    private double previousTargetRads = Double.NaN; 
+
+    // System Identification - while a test runs its voltage is applied in place of the target
+    private final ArmSysIdLog sysIdLog = new ArmSysIdLog( ArmConstants.SYSID_LOG_CAPACITY ); 
+    private boolean sysIdActive; 
+    private int sysIdLoops; 
+    private double sysIdVolts; 
     
     // Restriction Variables
     private final double first_threshold_positionRads = 0.1; 
     private final double second_threshold_positionRads = 0.01; 
+    private final double settled_threshold_velocityRadsPerSec = 0.05; 
+    // Hysteresis - the error must be a band past a threshold and stay there for the dwell before the mode steps down
+    private final double first_band_positionRads = 0.05; 
+    private final double second_band_positionRads = 0.005; 
+    private final int mode_dwellLoops = 5; 
+    // Neutral - the gravity at the target, past the friction, that the brake mode still holds
+    private final double neutral_hold_volts = 0.005; 
+    // Latency Tracing - how far the output and the arm must change to count as actuated and moved
+    private final double latency_threshold_volts = 0.25; 
+    private final double latency_threshold_positionRads = 0.002; 
+    private final ArmModeStateMachine modeStateMachine; 
     
     /**
-     * Associates the Arm Input/Output object with the Arm Subsystem
+     * Associates the Arm Input/Output object with the Arm Subsystem, using the default config
      * @param io The Arm INPUT/OUTPUT object
      */
     public ArmSubsystem(ArmIO io) {
+        this( io, ArmConfig.DEFAULTS ); 
+    }
+
+    /**
+     * Associates the Arm Input/Output object with the Arm Subsystem
+     * @param io The Arm INPUT/OUTPUT object
+     * @param config The config the motors were brought up with, the feedforward corrections are worked out against its gains
+     */
+    public ArmSubsystem(ArmIO io, ArmConfig config) {
+        this( "Arm", io, config, ArmEnvelope.DEFAULT ); 
+    }
+
+    /**
+     * Associates the Input/Output object of any rotary joint (e.g. a RotaryMechanism) with its own 
+     * subsystem, so a pivot, wrist or climber reuses the control of the Arm
+     * @param name The name of the joint, the dashboard table and the SysId files are named after it
+     * @param io The INPUT/OUTPUT object of the joint
+     * @param config The config the motors were brought up with, the feedforward corrections are worked out against its gains
+     * @param envelope The angles the joint may be commanded to, the same as the soft limits of its motors
+     */
+    public ArmSubsystem(String name, ArmIO io, ArmConfig config, ArmEnvelope envelope) {
+        this( name, io, config, envelope, NetworkTableInstance.getDefault().getTable( name ) ); 
+    }
+
+    /**
+     * Creates the subsystem without a dashboard, for the simulated runs of the desktop tools
+     * @param table The table to publish the loop timing and control mode to, or null to not publish
+     */
+    ArmSubsystem(String name, ArmIO io, ArmConfig config, ArmEnvelope envelope, NetworkTable table) {
+        setName( name ); 
         this.io = io; 
+        this.envelope = envelope; 
+        this.config = config; 
         inputs = new ArmIOInputs(); 
+        feedforwardEstimator = createFeedforwardEstimator( config ); 
+        loopTiming = new ArmLoopTiming( table == null ? null : table.getSubTable( "LoopTiming" ) ); 
+        modeStateMachine = new ArmModeStateMachine( first_threshold_positionRads, first_band_positionRads, 
+                                                    second_threshold_positionRads, second_band_positionRads, 
+                                                    settled_threshold_velocityRadsPerSec, mode_dwellLoops, 
+                                                    table == null ? null : table.getSubTable( "Mode" ) ); 
+    }
+
+    /**
+     * Sets how long the arm may take in one loop before it is flagged as an overrun
+     * @param budgetSecs The budget (Seconds)
+     */
+    public void setLoopBudget( double budgetSecs ) {
+        loopTiming.setBudget( budgetSecs ); 
+    }
+
+    /**
+     * Lets the config be reloaded from the dashboard. The reloader is polled every loop, and once 
+     * it has applied a new config to the motors the subsystem switches to it as well.
+     * @param configReloader The reloader, or null to keep the current config
+     */
+    public void setConfigReloader( ArmConfigReloader configReloader ) {
+        this.configReloader = configReloader; 
+    }
+
+    /**
+     * Switches to another config, e.g. the one a replayed log recorded. The motors are not 
+     * reconfigured, use a config reloader for that.
+     * @param config The config the loops run with from now on
+     */
+    public void setConfig( ArmConfig config ) {
+        this.config = config; 
+        feedforwardEstimator = createFeedforwardEstimator( config ); 
+    }
+
+    /**
+     * @return The config in use
+     */
+    public ArmConfig getConfig() {
+        return config; 
+    }
+
+    /**
+     * Stamps the command, write, CAN frame and encoder stages of a traced button press
+     * @param latencyTracer The tracer, or null to stop tracing
+     */
+    public void setLatencyTracer( InputLatencyTracer latencyTracer ) {
+        this.latencyTracer = latencyTracer; 
+    }
+
+    /**
+     * Records the inputs and the chosen control request of every loop from now on, and the config 
+     * in use along with every reload of it
+     * @param telemetryLogger The logger to record into, or null to stop recording
+     */
+    public void setTelemetryLogger( ArmTelemetryLogger telemetryLogger ) {
+        this.telemetryLogger = telemetryLogger; 
+        loggedConfig = null; 
+    }
+
+    /**
+     * Sends each Motion Magic move with the constraints the scheduler picks from the current, supply 
+     * voltage and temperature of the arm, instead of the configured ones. Streamed profiles keep 
+     * their own constraints.
+     * @param constraintScheduler The scheduler, or null to send the configured constraints
+     */
+    public void setConstraintScheduler( ArmConstraintScheduler constraintScheduler ) {
+        this.constraintScheduler = constraintScheduler; 
+        if ( constraintScheduler != null ) {
+            // Planned straight away, a move that is already running picks it up on its next write
+            constraintScheduler.plan( config.motionMagic(), config.gains().slot1() ); 
+        }
+    }
+
+    /**
+     * Switches large moves between the onboard Motion Magic profile and a profile generated on the 
+     * roboRIO that is streamed to the master motor one point per loop. The streamed profile is 
+     * jerk limited and its exact timeline is known ahead of time. 
+     * @param constraints The limits of the streamed profiles, or null to use Motion Magic
+     */
+    public void setProfileStreaming( ArmProfileConstraints constraints ) {
+        profileConstraints = constraints; 
+        activeProfile = null; 
+    }
+
+    /**
+     * Adds the difference between the estimated and configured kG and kS as the FeedForward of 
+     * every control request, so the onboard PID only has to correct what the feedforward misses. 
+     * The estimate is only used once it has learned from FF_ESTIMATOR_MIN_UPDATES loops of motion.
+     * @param enabled True to use the estimated feedforward
+     */
+    public void setFeedforwardEstimation( boolean enabled ) {
+        feedforwardEstimationEnabled = enabled; 
+    }
+
+    /**
+     * @return The estimator of the gravity and static friction feedforward
+     */
+    public ArmFeedforwardEstimator getFeedforwardEstimator() {
+        return feedforwardEstimator; 
+    }
+
+    /**
+     * Generates the streamed profiles between every pair of the given positions ahead of time, 
+     * so moving between them is only a cache lookup. Does nothing if streaming is disabled.
+     * @param positionsRads The named positions of the arm (Radians)
+     */
+    public void precomputeProfiles( double... positionsRads ) {
+        if ( profileConstraints != null ) {
+            profileCache.precompute( profileConstraints, positionsRads ); 
+        }
+    }
+
+    /**
+     * @return The cache of the streamed profiles
+     */
+    public ArmProfileCache getProfileCache() {
+        return profileCache; 
+    }
+
+    /**
+     * @return The time left on the streamed profile (Seconds), or 0 if no profile is running
+     */
+    public double getProfileTimeRemainingSecs() {
+        if ( activeProfile == null ) {
+            return 0.0; 
+        }
+        return Math.max( 0.0, activeProfile.getDurationSecs() - profileLoops * ArmConstants.LOOP_PERIOD_SECS ); 
+    }
+
+    /**
+     * Predicts the time until the arm settles at its target, from the streamed profile that is 
+     * running or from the Motion Magic constraints of the move, plus the settling after it ends
+     * @return The predicted time to settle (Seconds), 0 when settled or there is no target
+     */
+    public double getPredictedTimeToSettleSecs() {
+        if ( !hasTarget || atSetpoint ) {
+            return 0.0; 
+        }
+        if ( activeProfile != null ) {
+            return getProfileTimeRemainingSecs() + ArmConstants.SETTLE_ALLOWANCE_SECS; 
+        }
+        double difference_positionRads = targetPositionRads - inputs.armEncoderPositionRads; 
+        if ( Math.abs( difference_positionRads ) < first_threshold_positionRads ) {
+            return ArmConstants.SETTLE_ALLOWANCE_SECS; 
+        }
+        // Only the velocity towards the target helps, a move that reverses is counted from a stop
+        double towards_velocityRotationsPerSec = Math.max( 0.0, 
+            Units.radiansToRotations( inputs.armVelocityRadsPerSec ) * Math.signum( difference_positionRads ) ); 
+        return predictProfileSecs( Math.abs( Units.radiansToRotations( difference_positionRads ) ), towards_velocityRotationsPerSec ) 
+            + ArmConstants.SETTLE_ALLOWANCE_SECS; 
+    }
+
+    /**
+     * Predicts how long a move between two positions takes to settle, from a stop, with the 
+     * profile the arm would run for it now
+     * @param fromRads The position the move starts at (Radians)
+     * @param toRads The target of the move (Radians)
+     * @return The predicted time to settle (Seconds)
+     */
+    public double predictMoveSecs( double fromRads, double toRads ) {
+        if ( Math.abs( toRads - fromRads ) < first_threshold_positionRads ) {
+            return ArmConstants.SETTLE_ALLOWANCE_SECS; 
+        }
+        if ( profileConstraints != null ) {
+            return profileCache.get( Units.radiansToRotations( fromRads ), Units.radiansToRotations( toRads ), profileConstraints )
+                .getDurationSecs() + ArmConstants.SETTLE_ALLOWANCE_SECS; 
+        }
+        return predictProfileSecs( Math.abs( Units.radiansToRotations( toRads - fromRads ) ), 0.0 ) + ArmConstants.SETTLE_ALLOWANCE_SECS; 
+    }
+
+    /**
+     * Sets the position that the arm moves to and holds. A target outside the envelope is 
+     * clamped to its edge, a target that is not a number is ignored.
+     * @param positionRads The target position of the arm (Radians)
+     */
+    public void setTargetPosition( double positionRads ) {
+        if ( Double.isNaN( positionRads ) ) {
+            rejectedSetpoints++; 
+            return; 
+        }
+        if ( !envelope.isAllowed( positionRads ) ) {
+            double clampedRads = envelope.clamp( positionRads ); 
+            rejectedSetpoints++; 
+            DriverStation.reportWarning( String.format( "%s: target %.1f deg is outside the envelope, using %.1f deg", 
+                                                        getName(), Math.toDegrees( positionRads ), Math.toDegrees( clampedRads ) ), false ); 
+            positionRads = clampedRads; 
+        }
+        if ( !hasTarget || positionRads != targetPositionRads ) {
+            targetChanged = true; 
+            atSetpoint = false; 
+        }
+        hasTarget = true; 
+        targetPositionRads = positionRads; 
+        if ( latencyTracer != null ) {
+            latencyTracer.mark( Stage.COMMAND_INIT ); 
+        }
+    }
+
+    /**
+     * Removes the target, the motors are set to Neutral until a new target is set
+     */
+    public void clearTarget() {
+        if ( hasTarget ) {
+            targetChanged = true; 
+            atSetpoint = false; 
+        }
+        hasTarget = false; 
+        activeProfile = null; 
+    }
+
+    /**
+     * @return The target position of the arm (Radians), or NaN if there is no target
+     */
+    public double getTargetPositionRads() {
+        return hasTarget ? targetPositionRads : Double.NaN; 
+    }
+
+    /**
+     * @return The angles the arm may be commanded to
+     */
+    public ArmEnvelope getEnvelope() {
+        return envelope; 
+    }
+
+    /**
+     * @return The number of targets and profile points that were outside the envelope
+     */
+    public long getRejectedSetpoints() {
+        return rejectedSetpoints; 
+    }
+
+    /**
+     * @return The position of the arm measured by the encoder (Radians)
+     */
+    public double getPositionRads() {
+        return inputs.armEncoderPositionRads; 
+    }
+
+    /**
+     * @return True when the arm is settled at its target: every sample since the last loop is 
+     * within the second threshold of the target and barely moving
+     */
+    public boolean isAtSetpoint() {
+        return atSetpoint; 
+    }
+
+    /**
+     * @return True if the encoder or the follower motor has dropped off the bus or faulted, the arm 
+     * is running on the rotor sensor or is stopped
+     */
+    public boolean isDegraded() {
+        return !inputs.encoderHealthy || !inputs.followerHealthy; 
+    }
+
+    /**
+     * @return The timing of the phases of the control loop, and its overruns
+     */
+    public ArmLoopTiming getLoopTiming() {
+        return loopTiming; 
+    }
+
+    /**
+     * @return The state machine that chooses the control mode, and its transition metrics
+     */
+    public ArmModeStateMachine getModeStateMachine() {
+        return modeStateMachine; 
+    }
+
+    /**
+     * @return A trigger that is true while the arm is settled at its target
+     */
+    public Trigger atSetpointTrigger() {
+        return new Trigger( this::isAtSetpoint ); 
+    }
+
+    /**
+     * Moves the arm to a position, finishing once the arm has settled there. 
+     * The arm keeps holding the position after the command ends.
+     * @param positionRads The position to move to (Radians)
+     * @return The command
+     */
+    public Command moveTo( double positionRads ) {
+        return runOnce( () -> setTargetPosition( positionRads ) )
+            .andThen( Commands.waitUntil( this::isAtSetpoint ) )
+            .withName( "ArmMoveTo" ); 
+    }
+
+    /**
+     * Holds the arm where it currently is
+     * @return The command
+     */
+    public Command hold() {
+        return runOnce( () -> setTargetPosition( getPositionRads() ) ).withName( "ArmHold" ); 
+    }
+
+    /**
+     * Moves the arm to its stowed position
+     * @return The command
+     */
+    public Command stow() {
+        return moveTo( ArmConstants.STOW_POSITION_RADS ).withName( "ArmStow" ); 
     }
     
+    /**
+     * Runs a quasistatic system identification test: the voltage ramps up at 
+     * SYSID_RAMP_RATE_VOLTS_PER_SEC until the arm reaches the limit in that direction. 
+     * @param forward True to raise the arm, false to lower it
+     * @return The command
+     */
+    public Command sysIdQuasistatic( boolean forward ) {
+        return sysIdTest( forward, ArmConstants.SYSID_RAMP_RATE_VOLTS_PER_SEC, 0.0 ).withName( "ArmSysIdQuasistatic" ); 
+    }
+
+    /**
+     * Runs a dynamic system identification test: a step of SYSID_STEP_VOLTS is applied until the 
+     * arm reaches the limit in that direction. 
+     * @param forward True to raise the arm, false to lower it
+     * @return The command
+     */
+    public Command sysIdDynamic( boolean forward ) {
+        return sysIdTest( forward, 0.0, ArmConstants.SYSID_STEP_VOLTS ).withName( "ArmSysIdDynamic" ); 
+    }
+
+    /**
+     * Runs the whole characterization: both quasistatic and both dynamic tests, letting the arm 
+     * settle in between. Once they are done the log is written to the operating directory, the 
+     * feedforward gains are fitted to it and written to ArmConfig.SYSID_GAINS_FILE_NAME next to 
+     * it. The next boot (or config reload) uses them once the deploy file has 
+     * ArmConfig.SYSID_GAINS_KEY=true. The writing and fitting run on their own thread. 
+     * Stopping the command early stops the arm and saves nothing.
+     * @return The command
+     */
+    public Command sysIdRoutine() {
+        return Commands.sequence( 
+            runOnce( sysIdLog::clear ), 
+            sysIdQuasistatic( true ), sysIdSettle(), 
+            sysIdQuasistatic( false ), sysIdSettle(), 
+            sysIdDynamic( true ), sysIdSettle(), 
+            sysIdDynamic( false ), sysIdSettle(), 
+            runOnce( this::saveSysIdResults ) )
+            .withName( "ArmSysId" ); 
+    }
+
+    /**
+     * @return The samples recorded by the system identification tests
+     */
+    public ArmSysIdLog getSysIdLog() {
+        return sysIdLog; 
+    }
+
+    /**
+     * Applies a voltage that grows with time, ending at the limit in the direction of travel. 
+     * The voltage is timed by counting loops, like the streamed profiles. Afterwards the arm 
+     * holds where it stopped, kept inside the limits.
+     */
+    private Command sysIdTest( boolean forward, double rampVoltsPerSec, double stepVolts ) {
+        double direction = forward ? 1.0 : -1.0; 
+        return runOnce( () -> {
+                sysIdLog.startTest(); 
+                sysIdLoops = 0; 
+                sysIdVolts = 0.0; 
+                sysIdActive = true; 
+            } )
+            .andThen( run( () -> {
+                sysIdLoops++; 
+                sysIdVolts = direction * ( stepVolts + rampVoltsPerSec * sysIdLoops * ArmConstants.LOOP_PERIOD_SECS ); 
+            } ) )
+            .until( () -> !inputs.driveEnabled || isPastSysIdLimit( direction ) )
+            .withTimeout( ArmConstants.SYSID_TEST_TIMEOUT_SECS )
+            .finallyDo( () -> {
+                sysIdActive = false; 
+                sysIdVolts = 0.0; 
+                setTargetPosition( Math.max( ArmConstants.SYSID_REVERSE_LIMIT_RADS, 
+                                             Math.min( ArmConstants.SYSID_FORWARD_LIMIT_RADS, getPositionRads() ) ) ); 
+            } ); 
+    }
+
+    /**
+     * Waits for the arm to settle between tests, so every test starts from rest
+     */
+    private Command sysIdSettle() {
+        return Commands.waitUntil( this::isAtSetpoint ).withTimeout( ArmConstants.SYSID_SETTLE_TIMEOUT_SECS ); 
+    }
+
+    /**
+     * @param direction The direction of the test (-1 or 1)
+     * @return True once the arm has reached the limit in the direction of the test
+     */
+    private boolean isPastSysIdLimit( double direction ) {
+        return direction > 0 
+            ? inputs.armEncoderPositionRads >= ArmConstants.SYSID_FORWARD_LIMIT_RADS 
+            : inputs.armEncoderPositionRads <= ArmConstants.SYSID_REVERSE_LIMIT_RADS; 
+    }
+
+    /**
+     * Writes the log, fits the gains and writes them, on a separate thread so the robot loop 
+     * does not wait on the disk
+     */
+    private void saveSysIdResults() {
+        final ArmSysIdLog log = sysIdLog.copy(); 
+        final ArmGains gains = config.gains(); 
+        final String name = getName(); 
+        Thread writer = new Thread( () -> {
+            Path directory = Filesystem.getOperatingDirectory().toPath(); 
+            Path logPath = directory.resolve( name.toLowerCase() + "_sysid.csv" ); 
+            Path gainsPath = directory.resolve( name.toLowerCase() + "_gains.properties" ); 
+            try {
+                log.writeCsv( logPath ); 
+                ArmSysIdFitter.Result result = ArmSysIdFitter.fit( log, ArmSysIdFitter.DEFAULT_MIN_VELOCITY_ROTATIONS_PER_SEC ); 
+                ArmConfig.writeGains( gainsPath, gains.withFeedforward( result.kS(), result.kG(), result.kV(), result.kA() ), 
+                                      "Fitted on the robot, " + ArmSysIdFitter.describe( result ) ); 
+                DriverStation.reportWarning( name + " SysId: " + ArmSysIdFitter.describe( result ) + ", written to " + gainsPath 
+                    + ", used from the next boot or config reload if " + ArmConfig.CONFIG_FILE_NAME + " has " 
+                    + ArmConfig.SYSID_GAINS_KEY + "=true", false ); 
+            }
+            catch ( IOException | IllegalArgumentException e ) {
+                DriverStation.reportError( "Arm SysId: no gains written (" + e.getMessage() + "), the log is in " + logPath, false ); 
+            }
+        }, name + "SysIdWriter" ); 
+        writer.setDaemon( true ); 
+        writer.start(); 
+    }
+
     /**
      * Method that will be called once per scheduler run. 
+     * Nothing in this loop (including the ArmIO calls) allocates, so it does not 
+     * produce garbage for the collector at 50 Hz.
+     * 
+     * Fast Path: while the target has not changed and the arm is settled at it (or there is no 
+     * target), the last request is left in place and the loop does not write to the ArmIO at all. 
+     * 
+     * Streamed profiles are timed by counting loops, not by the clock, so a replayed or simulated 
+     * run commands exactly the same points.
      */
     @Override
     public void periodic() {
+        loopTiming.startLoop(); 
+
         // Process Inputs
         io.updateInputs( inputs );
-        
-        double desired_positionRads = 12; 
+        if ( configReloader != null ) {
+            pollConfig(); 
+        }
+        if ( sysIdActive && commandedMode == ArmControlMode.VOLTAGE ) {
+            recordSysIdSamples(); 
+        }
+        feedforwardEstimator.update( inputs ); 
+        if ( constraintScheduler != null ) {
+            constraintScheduler.observe( inputs ); 
+        }
+        atSetpoint = !sysIdActive && hasTarget && inputs.driveEnabled && isSettled( targetPositionRads ); 
+        if ( latencyTracer != null ) {
+            traceLatency(); 
+        }
+        loopTiming.endUpdateInputs(); 
+
+        ArmControlMode loopMode = null; 
+        if ( sysIdActive ) {
+            // System Identification - the target is ignored until the test ends
+            commandedMode = ArmControlMode.VOLTAGE; 
+            commandedSetpointRotations = sysIdVolts; // Logged in place of the setpoint
+            loopMode = commandedMode; 
+        }
+        else {
+            if ( targetChanged ) {
+                modeStateMachine.reset(); 
+                ArmGains.Slot slot1 = config.gains().slot1(); 
+                stoppable = Math.abs( slot1.kG() * Math.cos( targetPositionRads ) ) <= slot1.kS() + neutral_hold_volts; 
+                if ( constraintScheduler != null ) {
+                    constraintScheduler.plan( config.motionMagic(), config.gains().slot1() ); 
+                }
+                if ( profileConstraints != null ) {
+                    startProfile(); 
+                }
+            }
+            // Once settled the state machine still runs until it has stepped down to its lowest mode, its dwell counts these loops
+            ArmControlMode restingMode = stoppable ? ArmControlMode.NEUTRAL : ArmControlMode.POSITION; 
+            if ( targetChanged || commandedMode == null || ( hasTarget && ( !atSetpoint || commandedMode != restingMode ) ) ) {
+                loopMode = decide(); 
+            }
+            targetChanged = false; 
+        }
+        loopTiming.endDecision(); 
+
+        // Control Write
+        ArmControlMode sentMode = null; 
+        if ( loopMode != null ) {
+            sentMode = write( loopMode ); 
+        }
+
+        // Telemetry - the request that was sent, so a rejected setpoint replays as the stop it became
+        if ( telemetryLogger != null ) {
+            // The config goes first, so a replay has it before the loop that used it
+            if ( config != loggedConfig && telemetryLogger.logConfig( cycle, config ) ) {
+                loggedConfig = config; 
+            }
+            telemetryLogger.log( cycle, inputs, getTargetPositionRads(), sentMode, commandedSetpointRotations ); 
+        }
+        modeStateMachine.publish( cycle ); 
+        cycle++; 
+        loopTiming.endLoop(); 
+    }
+
+    /**
+     * Starts a reload if the dashboard asked for one, and picks up a config that a finished reload 
+     * applied to the motors. The estimator is seeded again from the new gains, it only allocates 
+     * on the loop that the config changes.
+     */
+    private void pollConfig() {
+        configReloader.poll(); 
+        ArmConfig reloaded = configReloader.getConfig(); 
+        if ( reloaded != config ) {
+            setConfig( reloaded ); 
+        }
+    }
+
+    /**
+     * @return An estimator seeded with the Slot 1 gains of the config
+     */
+    private static ArmFeedforwardEstimator createFeedforwardEstimator( ArmConfig config ) {
+        ArmGains.Slot slot1 = config.gains().slot1(); 
+        return new ArmFeedforwardEstimator( slot1.kG(), slot1.kS(), slot1.kV(), slot1.kA(), 
+                                            ArmConstants.FF_ESTIMATOR_FORGETTING_FACTOR, ArmConstants.FF_ESTIMATOR_MIN_VELOCITY ); 
+    }
+
+    /**
+     * Looks up the streamed profile to the new target. The profile starts at the previous target 
+     * when the arm is still within the first threshold of it (where the threshold logic holds it), 
+     * so moves between named positions hit the cache. Moves that are within the first threshold 
+     * are left to the threshold logic.
+     */
+    private void startProfile() {
+        activeProfile = null; 
+        double start_positionRads = inputs.armEncoderPositionRads; 
+        if ( Math.abs( previousTargetRads - start_positionRads ) < first_threshold_positionRads ) {
+            start_positionRads = previousTargetRads; 
+        }
+        previousTargetRads = getTargetPositionRads(); 
+        if ( !hasTarget || Math.abs( targetPositionRads - start_positionRads ) < first_threshold_positionRads ) {
+            return; 
+        }
+        activeProfile = profileCache.get( Units.radiansToRotations( start_positionRads ), 
+                                          Units.radiansToRotations( targetPositionRads ), profileConstraints ); 
+        profileLoops = 0; 
+    }
+
+    /**
+     * Chooses the control request for this loop
+     * @return The control mode to send
+     */
+    private ArmControlMode decide() {
+        if ( !hasTarget || !inputs.driveEnabled ) {
+            // The ArmIO is holding the motors stopped after a fault, a running profile is abandoned
+            activeProfile = null; 
+            modeStateMachine.reset(); 
+            commandedMode = ArmControlMode.NEUTRAL; 
+            return commandedMode; 
+        }
+
+        // Streamed Profile - commands the point one loop ahead, as it is reached by the next loop
+        if ( activeProfile != null ) {
+            profileLoops++; 
+            double profileTimeSecs = profileLoops * ArmConstants.LOOP_PERIOD_SECS; 
+            double point_positionRotations = activeProfile.getPositionRotations( profileTimeSecs ); 
+            if ( envelope.isAllowed( Units.rotationsToRadians( point_positionRotations ) ) ) {
+                commandedSetpointRotations = point_positionRotations; 
+                commandedVelocityRotationsPerSec = activeProfile.getVelocityRotationsPerSec( profileTimeSecs ); 
+                if ( activeProfile.isFinished( profileTimeSecs ) ) {
+                    // The last point holds the goal, the threshold logic takes over from the next loop
+                    activeProfile = null; 
+                }
+                commandedMode = ArmControlMode.PROFILED_POSITION; 
+                commandedFeedforwardVolts = computeFeedforwardVolts( config.gains().slot1().kG(), config.gains().slot1().kS(), 
+                                                                     Math.signum( commandedVelocityRotationsPerSec ) ); 
+                return commandedMode; 
+            }
+            // The profile leaves the envelope, it is abandoned and the threshold logic moves the arm instead
+            rejectedSetpoints++; 
+            activeProfile = null; 
+        }
+
         double current_positionRads = inputs.armEncoderPositionRads;
-        double difference_positionRads = Math.abs( desired_positionRads - current_positionRads );
+        double difference_positionRads = Math.abs( targetPositionRads - current_positionRads );
 
         /**
          * If the difference between the desired and current is: 
          * Large ( diff > first_threshold ): Uses MotionMagic Voltage 
-         * Small ( diff <= first_threshold ): Checks Difference with new Threshold
+         * Small ( diff <= first_threshold ): Uses Position Voltage
+         * Smaller ( diff < second_threshold - second_band ) and barely moving: Motors Stop, where 
+         *   friction and the brake mode hold the arm against gravity, otherwise Position Voltage holds it
          * 
-         * If the difference type is Small, it considers the difference again:
-         * Large ( diff > second_threshold ): Uses Position Voltage
-         * Small ( diff <= second_threshold ): Motors Stop
+         * Stepping down a mode needs the difference to be a band inside its threshold for the dwell 
+         * time, stepping back up happens straight away, see ArmModeStateMachine.
          */
-        if ( difference_positionRads < first_threshold_positionRads ) {
-            // Second Threshold Checkpoint
-            if ( difference_positionRads < second_threshold_positionRads ) {
+        commandedMode = modeStateMachine.update( cycle, difference_positionRads, inputs.armVelocityRadsPerSec, stoppable ); 
+        commandedSetpointRotations = Units.radiansToRotations( targetPositionRads ); 
+        double direction = Math.signum( targetPositionRads - current_positionRads ); 
+        commandedFeedforwardVolts = commandedMode == ArmControlMode.POSITION 
+            ? computeFeedforwardVolts( config.gains().slot0().kG(), config.gains().slot0().kS(), direction ) 
+            : computeFeedforwardVolts( config.gains().slot1().kG(), config.gains().slot1().kS(), direction ); 
+        return commandedMode; 
+    }
+
+    /**
+     * Works out the duration of a trapezoidal Motion Magic profile with the constraints of the 
+     * move, the jerk only rounds the corners so it is left out
+     * @param distanceRotations The distance left to the target (Rotations)
+     * @param startVelocity The velocity towards the target (Rotations per second)
+     * @return The duration of the profile (Seconds)
+     */
+    private double predictProfileSecs( double distanceRotations, double startVelocity ) {
+        double cruiseVelocity = constraintScheduler != null ? constraintScheduler.getCruiseVelocity() : config.motionMagic().cruiseVelocity(); 
+        double acceleration = constraintScheduler != null ? constraintScheduler.getAcceleration() : config.motionMagic().acceleration(); 
+        startVelocity = Math.min( startVelocity, cruiseVelocity ); 
+        double rampDistanceRotations = ( 2.0 * cruiseVelocity * cruiseVelocity - startVelocity * startVelocity ) / ( 2.0 * acceleration ); 
+        if ( rampDistanceRotations <= distanceRotations ) {
+            // Reaches the cruise velocity
+            return ( 2.0 * cruiseVelocity - startVelocity ) / acceleration + ( distanceRotations - rampDistanceRotations ) / cruiseVelocity; 
+        }
+        // Turns around before the cruise velocity
+        double peakVelocity = Math.sqrt( acceleration * distanceRotations + startVelocity * startVelocity / 2.0 ); 
+        return ( 2.0 * peakVelocity - startVelocity ) / acceleration; 
+    }
+
+    /**
+     * Works out the feedforward that corrects the gains of a slot to the estimated gains
+     * @param slotKG The kG configured in the slot (Volts)
+     * @param slotKS The kS configured in the slot (Volts)
+     * @param direction The direction the arm is being driven in (-1, 0 or 1)
+     * @return The feedforward to send with the request (Volts), 0 if the estimate is not used
+     */
+    private double computeFeedforwardVolts( double slotKG, double slotKS, double direction ) {
+        if ( !feedforwardEstimationEnabled || feedforwardEstimator.getUpdates() < ArmConstants.FF_ESTIMATOR_MIN_UPDATES ) {
+            return 0.0; 
+        }
+        return ( feedforwardEstimator.getKG() - slotKG ) * Math.cos( inputs.armEncoderPositionRads ) 
+            + ( feedforwardEstimator.getKS() - slotKS ) * direction; 
+    }
+
+    /**
+     * Sends the control request to the ArmIO
+     * @param mode The control mode to send
+     * @return The control mode that was sent, NEUTRAL if the setpoint was rejected
+     */
+    private ArmControlMode write( ArmControlMode mode ) {
+        // Last check before the request reaches the motors, the soft limits also hold it on the motor controller
+        if ( ( mode == ArmControlMode.MOTION_MAGIC || mode == ArmControlMode.POSITION || mode == ArmControlMode.PROFILED_POSITION ) 
+             && !envelope.isAllowed( Units.rotationsToRadians( commandedSetpointRotations ) ) ) {
+            rejectedSetpoints++; 
+            io.stop(); 
+            return ArmControlMode.NEUTRAL; 
+        }
+        if ( latencyTracer != null && !latencyTracer.isWaitingFor( Stage.COMMAND_INIT ) && latencyTracer.isWaitingFor( Stage.IO_WRITE ) ) {
+            latencyTracer.mark( Stage.IO_WRITE ); 
+            traceStartVolts = inputs.armAppliedVolts; 
+            traceStartPositionRads = inputs.armEncoderPositionRads; 
+        }
+        switch ( mode ) {
+            case MOTION_MAGIC: 
+                if ( constraintScheduler != null ) {
+                    io.setMotionControl( commandedSetpointRotations, constraintScheduler.getCruiseVelocity(), 
+                                         constraintScheduler.getAcceleration(), constraintScheduler.getJerk(), commandedFeedforwardVolts ); 
+                }
+                else {
+                    ArmProfileConstraints motionMagic = config.motionMagic(); 
+                    io.setMotionControl( commandedSetpointRotations, motionMagic.cruiseVelocity(), 
+                                         motionMagic.acceleration(), motionMagic.jerk(), commandedFeedforwardVolts ); 
+                }
+                break; 
+            case POSITION: 
+                io.setPositionControl( commandedSetpointRotations, commandedFeedforwardVolts ); 
+                break; 
+            case PROFILED_POSITION: 
+                io.setProfiledPositionControl( commandedSetpointRotations, commandedVelocityRotationsPerSec, commandedFeedforwardVolts ); 
+                break; 
+            case VOLTAGE: 
+                io.setVoltage( sysIdVolts ); 
+                break; 
+            case NEUTRAL: 
+            default: 
                 io.stop(); 
-            }  
-            else {
-                io.setPositionControl( Units.radiansToRotations( desired_positionRads ) );
+                return ArmControlMode.NEUTRAL; 
+        }
+        return mode; 
+    }
+
+    /**
+     * Stamps the traced request reaching the motor (its output changes) and the arm moving (the 
+     * first sample that has moved), with the timestamps of the frames that showed them
+     */
+    private void traceLatency() {
+        if ( !latencyTracer.isWaitingFor( Stage.IO_WRITE ) ) {
+            if ( latencyTracer.isWaitingFor( Stage.CAN_FRAME ) 
+                 && Math.abs( inputs.armAppliedVolts - traceStartVolts ) > latency_threshold_volts ) {
+                latencyTracer.markDevice( Stage.CAN_FRAME, inputs.armAppliedVoltsTimestampSecs ); 
+            }
+            if ( latencyTracer.isWaitingFor( Stage.ENCODER_MOVE ) ) {
+                if ( inputs.sampleCount == 0 ) {
+                    if ( Math.abs( inputs.armEncoderPositionRads - traceStartPositionRads ) > latency_threshold_positionRads ) {
+                        latencyTracer.markDevice( Stage.ENCODER_MOVE, inputs.armEncoderPositionTimestampSecs ); 
+                    }
+                }
+                for ( int i = 0; i < inputs.sampleCount; i++ ) {
+                    if ( Math.abs( inputs.samplePositionsRads[i] - traceStartPositionRads ) > latency_threshold_positionRads ) {
+                        latencyTracer.markDevice( Stage.ENCODER_MOVE, inputs.sampleTimestampsSecs[i] ); 
+                        break; 
+                    }
+                }
+            }
+        }
+        latencyTracer.update(); 
+    }
+
+    /**
+     * Records every high frequency sample since the last loop (or the latest inputs if there were 
+     * none) with the voltage written in the last loop, which was applied while they were measured
+     */
+    private void recordSysIdSamples() {
+        double appliedVolts = inputs.driveEnabled ? commandedSetpointRotations : 0.0; // Still holds the voltage of the last loop
+        if ( inputs.sampleCount == 0 ) {
+            sysIdLog.record( inputs.armVelocityTimestampSecs, inputs.armEncoderPositionRads, inputs.armVelocityRadsPerSec, appliedVolts ); 
+            return; 
+        }
+        for ( int i = 0; i < inputs.sampleCount; i++ ) {
+            sysIdLog.record( inputs.sampleTimestampsSecs[i], inputs.samplePositionsRads[i], inputs.sampleVelocitiesRadsPerSec[i], appliedVolts ); 
+        }
+    }
+
+    /**
+     * Checks every high frequency sample since the last loop (or the latest inputs if there 
+     * were none) against the settle thresholds
+     * @param positionRads The position to settle at (Radians)
+     * @return True if the arm is settled at the position
+     */
+    private boolean isSettled( double positionRads ) {
+        if ( inputs.sampleCount == 0 ) {
+            return Math.abs( positionRads - inputs.armEncoderPositionRads ) < second_threshold_positionRads 
+                && Math.abs( inputs.armVelocityRadsPerSec ) < settled_threshold_velocityRadsPerSec; 
+        }
+        for ( int i = 0; i < inputs.sampleCount; i++ ) {
+            if ( Math.abs( positionRads - inputs.samplePositionsRads[i] ) >= second_threshold_positionRads 
+                 || Math.abs( inputs.sampleVelocitiesRadsPerSec[i] ) >= settled_threshold_velocityRadsPerSec ) {
+                return false; 
             }
-        } 
-        else {
-            io.setMotionControl( Units.radiansToRotations( desired_positionRads ) );
         }
+        return true; 
     }
 }
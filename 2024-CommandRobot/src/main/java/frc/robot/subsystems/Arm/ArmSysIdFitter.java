@@ -0,0 +1,204 @@
+/**
+ * @file ArmSysIdFitter.java
+ * @brief Least squares fit of the Arm feedforward gains to a system identification log
+ */
+
+package frc.robot.subsystems.Arm;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Fits kS, kG, kV and kA to the samples of a system identification run.
+ *
+ * The arm follows the same model that the TalonFX slots use, in Volts, Rotations and Seconds
+ * with 0 being horizontal:
+ *   V = kS * sign(v) + kG * cos(position) + kV * v + kA * a
+ * Every sample gives one equation, and the four gains are found with ordinary least squares
+ * through the 4x4 normal equations. The acceleration is the central difference of the velocity
+ * within a test. The quasistatic ramps pin down kS, kG and kV, the dynamic steps pin down kA.
+ *
+ * The fit is plain Java with no WPILib or device classes, so it runs on the robot at the end of the
+ * routine and on the desktop against a log copied off the robot: 
+ *   ./gradlew fitArmGains -PsysIdLog=arm_sysid.csv
+ * which writes the deploy config with the fitted gains to build/arm_fitted.properties, to be
+ * reviewed and copied over (or written in place with -PfitTarget=src/main/deploy/arm.properties).
+ */
+public final class ArmSysIdFitter {
+    /**
+     * The fitted gains
+     * @param kS Static friction (Volts)
+     * @param kG Voltage needed to hold the arm horizontal (Volts)
+     * @param kV Voltage per unit of velocity (Volts / (Rotations/s))
+     * @param kA Voltage per unit of acceleration (Volts / (Rotations/s^2))
+     * @param rSquared The share of the variance in the voltage explained by the fit, 1 is perfect
+     * @param samples The number of samples used
+     */
+    public record Result( double kS, double kG, double kV, double kA, double rSquared, int samples ) {}
+
+    // Samples slower than this are not used, the direction of the friction is unknown (Rotations/s)
+    public static final double DEFAULT_MIN_VELOCITY_ROTATIONS_PER_SEC = 0.01; 
+    // Fewest samples worth fitting to
+    private static final int MIN_SAMPLES = 20; 
+    // A pivot this small compared to the diagonal means the log does not tell two gains apart
+    private static final double SINGULAR_TOLERANCE = 1e-9; 
+
+    private ArmSysIdFitter() {}
+
+    /**
+     * Fits the gains to every usable sample of the log
+     * @param log The recorded samples
+     * @param minVelocityRotationsPerSec Slowest velocity that is used (Rotations/s)
+     * @return The fitted gains
+     * @throws IllegalArgumentException If the log has too few usable samples or does not excite every gain
+     */
+    public static Result fit( ArmSysIdLog log, double minVelocityRotationsPerSec ) {
+        double[][] normal = new double[4][4]; 
+        double[] projection = new double[4]; 
+        double[] x = new double[4]; 
+        double sumY = 0.0; 
+        double sumYSquared = 0.0; 
+        int samples = 0; 
+
+        // Normal Equations
+        for ( int i = 1; i < log.size() - 1; i++ ) {
+            if ( !regressors( log, i, minVelocityRotationsPerSec, x ) ) {
+                continue; 
+            }
+            double y = log.getVolts( i ); 
+            for ( int row = 0; row < 4; row++ ) {
+                for ( int column = 0; column < 4; column++ ) {
+                    normal[row][column] += x[row] * x[column]; 
+                }
+                projection[row] += x[row] * y; 
+            }
+            sumY += y; 
+            sumYSquared += y * y; 
+            samples++; 
+        }
+        if ( samples < MIN_SAMPLES ) {
+            throw new IllegalArgumentException( "Only " + samples + " usable samples, the arm did not move enough" ); 
+        }
+        double[] gains = solve( normal, projection ); 
+
+        // Goodness of Fit
+        double squaredError = 0.0; 
+        for ( int i = 1; i < log.size() - 1; i++ ) {
+            if ( !regressors( log, i, minVelocityRotationsPerSec, x ) ) {
+                continue; 
+            }
+            double residual = log.getVolts( i ) - ( gains[0] * x[0] + gains[1] * x[1] + gains[2] * x[2] + gains[3] * x[3] ); 
+            squaredError += residual * residual; 
+        }
+        double totalVariance = sumYSquared - sumY * sumY / samples; 
+        double rSquared = totalVariance > 0.0 ? 1.0 - squaredError / totalVariance : 0.0; 
+        return new Result( gains[0], gains[1], gains[2], gains[3], rSquared, samples ); 
+    }
+
+    /**
+     * Fits a log on the desktop and prints the gains.
+     * Usage: ArmSysIdFitter &lt;log.csv&gt; [arm.properties [output.properties]]
+     * If a config file is given, its feedforward gains are replaced with the fit (the PID gains and 
+     * everything else are kept) and it is written to the output, or back to itself when there is none.
+     * @param args The log to fit, and optionally the config file to start from and the file to write
+     * @throws IOException If a file cannot be read or written
+     */
+    public static void main( String[] args ) throws IOException {
+        if ( args.length < 1 ) {
+            System.err.println( "Usage: ArmSysIdFitter <log.csv> [arm.properties [output.properties]]" ); 
+            System.exit( 2 ); 
+        }
+        Path logPath = Path.of( args[0] ); 
+        ArmSysIdLog log = ArmSysIdLog.readCsv( logPath ); 
+        Result result = fit( log, DEFAULT_MIN_VELOCITY_ROTATIONS_PER_SEC ); 
+        System.out.println( describe( result ) ); 
+
+        if ( args.length >= 2 ) {
+            Path configPath = Path.of( args[1] ); 
+            Path outputPath = args.length >= 3 ? Path.of( args[2] ) : configPath; 
+            ArmGains gains = ArmGains.fromProperties( ArmConfig.readProperties( configPath ), ArmGains.DEFAULTS ); 
+            ArmConfig.writeGains( configPath, outputPath, gains.withFeedforward( result.kS(), result.kG(), result.kV(), result.kA() ), 
+                                  "Fitted from " + logPath.getFileName() + ", " + describe( result ) ); 
+            System.out.println( "Wrote " + outputPath ); 
+        }
+    }
+
+    /**
+     * @param result The fitted gains
+     * @return A one line summary of the fit
+     */
+    public static String describe( Result result ) {
+        return String.format( "kS=%.4f kG=%.4f kV=%.4f kA=%.4f (R^2 %.4f over %d samples)",
+                              result.kS(), result.kG(), result.kV(), result.kA(), result.rSquared(), result.samples() ); 
+    }
+
+    /**
+     * Works out the regressors of one sample: sign(v), cos(position), v and a
+     * @return False if the sample can not be used
+     */
+    private static boolean regressors( ArmSysIdLog log, int i, double minVelocityRotationsPerSec, double[] x ) {
+        int test = log.getTest( i ); 
+        if ( log.getTest( i - 1 ) != test || log.getTest( i + 1 ) != test ) {
+            // The first and last samples of a test have no neighbour to differentiate against
+            return false; 
+        }
+        double dt = log.getTimestampSecs( i + 1 ) - log.getTimestampSecs( i - 1 ); 
+        double velocityRotationsPerSec = log.getVelocityRadsPerSec( i ) / ( 2.0 * Math.PI ); 
+        if ( dt <= 0.0 || Math.abs( velocityRotationsPerSec ) < minVelocityRotationsPerSec ) {
+            return false; 
+        }
+        double accelerationRotationsPerSecSq = ( log.getVelocityRadsPerSec( i + 1 ) - log.getVelocityRadsPerSec( i - 1 ) )
+            / ( 2.0 * Math.PI ) / dt; 
+        x[0] = Math.signum( velocityRotationsPerSec ); 
+        x[1] = Math.cos( log.getPositionRads( i ) ); 
+        x[2] = velocityRotationsPerSec; 
+        x[3] = accelerationRotationsPerSecSq; 
+        return true; 
+    }
+
+    /**
+     * Solves the normal equations with Gaussian elimination and partial pivoting
+     */
+    private static double[] solve( double[][] a, double[] b ) {
+        int n = b.length; 
+        double largestDiagonal = 0.0; 
+        for ( int i = 0; i < n; i++ ) {
+            largestDiagonal = Math.max( largestDiagonal, Math.abs( a[i][i] ) ); 
+        }
+        for ( int pivot = 0; pivot < n; pivot++ ) {
+            int best = pivot; 
+            for ( int row = pivot + 1; row < n; row++ ) {
+                if ( Math.abs( a[row][pivot] ) > Math.abs( a[best][pivot] ) ) {
+                    best = row; 
+                }
+            }
+            if ( Math.abs( a[best][pivot] ) <= SINGULAR_TOLERANCE * largestDiagonal ) {
+                throw new IllegalArgumentException( "The log does not separate all four gains, run both the quasistatic and dynamic tests" ); 
+            }
+            double[] rowSwap = a[pivot]; 
+            a[pivot] = a[best]; 
+            a[best] = rowSwap; 
+            double valueSwap = b[pivot]; 
+            b[pivot] = b[best]; 
+            b[best] = valueSwap; 
+
+            for ( int row = pivot + 1; row < n; row++ ) {
+                double factor = a[row][pivot] / a[pivot][pivot]; 
+                for ( int column = pivot; column < n; column++ ) {
+                    a[row][column] -= factor * a[pivot][column]; 
+                }
+                b[row] -= factor * b[pivot]; 
+            }
+        }
+
+        double[] solution = new double[n]; 
+        for ( int row = n - 1; row >= 0; row-- ) {
+            double sum = b[row]; 
+            for ( int column = row + 1; column < n; column++ ) {
+                sum -= a[row][column] * solution[column]; 
+            }
+            solution[row] = sum / a[row][row]; 
+        }
+        return solution; 
+    }
+}
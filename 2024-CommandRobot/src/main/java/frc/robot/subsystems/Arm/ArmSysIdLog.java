@@ -0,0 +1,244 @@
+/**
+ * @file ArmSysIdLog.java
+ * @brief Preallocated recording of the high frequency samples taken during system identification
+ */
+
+package frc.robot.subsystems.Arm;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records every encoder sample of a system identification run together with the voltage that was
+ * applied while it was measured.
+ *
+ * The columns are plain arrays created once at full size, so recording a sample in the robot
+ * loop is a few array writes: nothing allocates and nothing touches the disk. The recording is
+ * written out as CSV once the run is over, on its own thread. Samples past the capacity are
+ * counted and dropped.
+ *
+ * Each ramp or step is one test. The fitter only differentiates the velocity within a test, so
+ * the jump from the end of one test to the start of the next is never read as an acceleration.
+ */
+public class ArmSysIdLog {
+    // The header of the CSV file, the columns are in this order
+    public static final String CSV_HEADER = "test,timestamp_s,position_rad,velocity_rad_per_s,voltage_v"; 
+
+    // Columns
+    private final int[] tests; 
+    private final double[] timestampsSecs; 
+    private final double[] positionsRads; 
+    private final double[] velocitiesRadsPerSec; 
+    private final double[] volts; 
+
+    // Decleration
+    private int size; 
+    private int currentTest = -1; 
+    private long droppedSamples; 
+
+    /**
+     * Creates an empty log
+     * @param capacity The number of samples that can be recorded
+     */
+    public ArmSysIdLog( int capacity ) {
+        tests = new int[capacity]; 
+        timestampsSecs = new double[capacity]; 
+        positionsRads = new double[capacity]; 
+        velocitiesRadsPerSec = new double[capacity]; 
+        volts = new double[capacity]; 
+    }
+
+    /**
+     * Starts a new test, the samples recorded from now on belong to it
+     */
+    public void startTest() {
+        currentTest++; 
+    }
+
+    /**
+     * Records one sample into the current test, without allocating
+     * @param timestampSecs The time the sample was measured (Seconds)
+     * @param positionRads The position of the arm (Radians)
+     * @param velocityRadsPerSec The velocity of the arm (Radians per second)
+     * @param appliedVolts The voltage applied to the motors while the sample was measured (Volts)
+     * @return False if the log is full and the sample was dropped
+     */
+    public boolean record( double timestampSecs, double positionRads, double velocityRadsPerSec, double appliedVolts ) {
+        if ( size == tests.length || currentTest < 0 ) {
+            droppedSamples++; 
+            return false; 
+        }
+        tests[size] = currentTest; 
+        timestampsSecs[size] = timestampSecs; 
+        positionsRads[size] = positionRads; 
+        velocitiesRadsPerSec[size] = velocityRadsPerSec; 
+        volts[size] = appliedVolts; 
+        size++; 
+        return true; 
+    }
+
+    /**
+     * Forgets every sample and test
+     */
+    public void clear() {
+        size = 0; 
+        currentTest = -1; 
+        droppedSamples = 0; 
+    }
+
+    /**
+     * @return A copy of the samples recorded so far, that can be used on another thread
+     */
+    public ArmSysIdLog copy() {
+        ArmSysIdLog copy = new ArmSysIdLog( Math.max( 1, size ) ); 
+        System.arraycopy( tests, 0, copy.tests, 0, size ); 
+        System.arraycopy( timestampsSecs, 0, copy.timestampsSecs, 0, size ); 
+        System.arraycopy( positionsRads, 0, copy.positionsRads, 0, size ); 
+        System.arraycopy( velocitiesRadsPerSec, 0, copy.velocitiesRadsPerSec, 0, size ); 
+        System.arraycopy( volts, 0, copy.volts, 0, size ); 
+        copy.size = size; 
+        copy.currentTest = currentTest; 
+        copy.droppedSamples = droppedSamples; 
+        return copy; 
+    }
+
+    /**
+     * Writes the samples as CSV with a header line
+     * @param path The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void writeCsv( Path path ) throws IOException {
+        try ( PrintWriter writer = new PrintWriter( Files.newBufferedWriter( path ) ) ) {
+            writer.println( CSV_HEADER ); 
+            for ( int i = 0; i < size; i++ ) {
+                writer.print( tests[i] ); 
+                writer.print( ',' ); 
+                writer.print( timestampsSecs[i] ); 
+                writer.print( ',' ); 
+                writer.print( positionsRads[i] ); 
+                writer.print( ',' ); 
+                writer.print( velocitiesRadsPerSec[i] ); 
+                writer.print( ',' ); 
+                writer.println( volts[i] ); 
+            }
+            if ( writer.checkError() ) {
+                throw new IOException( "Could not write " + path ); 
+            }
+        }
+    }
+
+    /**
+     * Reads back a log written by writeCsv
+     * @param path The file to read
+     * @return The log, sized to the samples in the file
+     * @throws IOException If the file cannot be read or is not a system identification log
+     */
+    public static ArmSysIdLog readCsv( Path path ) throws IOException {
+        try ( BufferedReader reader = Files.newBufferedReader( path ) ) {
+            String header = reader.readLine(); 
+            if ( !CSV_HEADER.equals( header ) ) {
+                throw new IOException( path + " is not an arm system identification log" ); 
+            }
+            ArmSysIdLog log = new ArmSysIdLog( 1024 ); 
+            String line; 
+            int lineNumber = 1; 
+            while ( ( line = reader.readLine() ) != null ) {
+                lineNumber++; 
+                if ( line.isBlank() ) {
+                    continue; 
+                }
+                String[] fields = line.split( "," ); 
+                if ( fields.length != 5 ) {
+                    throw new IOException( path + ":" + lineNumber + " does not have 5 columns" ); 
+                }
+                try {
+                    log = log.ensureCapacity( log.size + 1 ); 
+                    log.currentTest = Integer.parseInt( fields[0].trim() ); 
+                    log.record( Double.parseDouble( fields[1] ), Double.parseDouble( fields[2] ),
+                                Double.parseDouble( fields[3] ), Double.parseDouble( fields[4] ) ); 
+                }
+                catch ( NumberFormatException e ) {
+                    throw new IOException( path + ":" + lineNumber + " is not a number: " + e.getMessage() ); 
+                }
+            }
+            return log; 
+        }
+    }
+
+    /**
+     * @return The number of samples recorded
+     */
+    public int size() {
+        return size; 
+    }
+
+    /**
+     * @return The number of samples that did not fit and were dropped
+     */
+    public long getDroppedSamples() {
+        return droppedSamples; 
+    }
+
+    /**
+     * @param index The sample, from 0 to size() - 1
+     * @return The test the sample belongs to
+     */
+    public int getTest( int index ) {
+        return tests[index]; 
+    }
+
+    /**
+     * @param index The sample, from 0 to size() - 1
+     * @return The time the sample was measured (Seconds)
+     */
+    public double getTimestampSecs( int index ) {
+        return timestampsSecs[index]; 
+    }
+
+    /**
+     * @param index The sample, from 0 to size() - 1
+     * @return The position of the arm (Radians)
+     */
+    public double getPositionRads( int index ) {
+        return positionsRads[index]; 
+    }
+
+    /**
+     * @param index The sample, from 0 to size() - 1
+     * @return The velocity of the arm (Radians per second)
+     */
+    public double getVelocityRadsPerSec( int index ) {
+        return velocitiesRadsPerSec[index]; 
+    }
+
+    /**
+     * @param index The sample, from 0 to size() - 1
+     * @return The voltage applied while the sample was measured (Volts)
+     */
+    public double getVolts( int index ) {
+        return volts[index]; 
+    }
+
+    /**
+     * Grows the columns when reading a file, never used while recording
+     * @return This log if it already has the capacity, otherwise a larger copy
+     */
+    private ArmSysIdLog ensureCapacity( int capacity ) {
+        if ( capacity <= tests.length ) {
+            return this; 
+        }
+        ArmSysIdLog grown = new ArmSysIdLog( Math.max( capacity, tests.length * 2 ) ); 
+        System.arraycopy( tests, 0, grown.tests, 0, size ); 
+        System.arraycopy( timestampsSecs, 0, grown.timestampsSecs, 0, size ); 
+        System.arraycopy( positionsRads, 0, grown.positionsRads, 0, size ); 
+        System.arraycopy( velocitiesRadsPerSec, 0, grown.velocitiesRadsPerSec, 0, size ); 
+        System.arraycopy( volts, 0, grown.volts, 0, size ); 
+        grown.size = size; 
+        grown.currentTest = currentTest; 
+        grown.droppedSamples = droppedSamples; 
+        return grown; 
+    }
+}
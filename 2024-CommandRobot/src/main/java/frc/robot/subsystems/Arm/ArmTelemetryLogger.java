@@ -0,0 +1,428 @@
+/**
+ * @file ArmTelemetryLogger.java
+ * @brief Binary, append-only log of the Arm inputs and outputs for every loop
+ */
+
+package frc.robot.subsystems.Arm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.subsystems.Arm.ArmIO.ArmIOInputs;
+
+/**
+ * Records the ArmIOInputs and the control mode/setpoint sent in every loop into a 
+ * memory-mapped file, along with every ArmConfig the loops ran with. 
+ * 
+ * The file is mapped in segments of SEGMENT_RECORDS records. A background thread maps the next 
+ * segment and touches its pages while the current one fills up, so logging a loop is only a 
+ * handful of writes into memory: no system calls, no locks and no allocation, and opening a log 
+ * only creates the file. Touching the pages keeps the first write of each page off the loop, 
+ * but it is no promise: the operating system may still write pages back and drop them, so a 
+ * loop can take a page fault now and then. The background thread also flushes each finished 
+ * segment to disk, and checks the free space before growing the file by a segment. The record 
+ * count in the header is updated after every record, so a log cut short by a power loss is 
+ * still readable up to the last full record. A loop that comes when the next segment is not 
+ * ready yet is dropped, and counted. 
+ *
+ * openDefault keeps only the newest MAX_LOG_FILES logs in its folder and stops logging once 
+ * growing the log would leave less than MIN_FREE_BYTES free. The logs are numbered, one more 
+ * than the newest log in the folder, because the clock of the roboRIO is not set until the 
+ * Driver Station connects. Without a USB stick (or if the log cannot be opened on it) the logs 
+ * go to the internal flash of the roboRIO, which is small and shared with the robot code, so 
+ * they are capped at INTERNAL_CAPACITY_RECORDS. 
+ * 
+ * File Layout: 
+ *   Header - magic (int), version (int), record size (int), reserved (int), record count (long) 
+ *   Record - cycle (long), inputs (ArmIOInputs.writeTo), target (double, Radians, NaN if none), 
+ *            control mode (int, -1 if nothing was sent), setpoint (double, Rotations)
+ *   Config Record - CONFIG_RECORD (long), cycle (long), config (ArmConfig.writeTo), unused up to 
+ *            the record size; comes before the record of the first loop that used the config
+ */
+public class ArmTelemetryLogger implements AutoCloseable {
+    // File Format
+    public static final int MAGIC = 0x41524D4C; // "ARML"
+    public static final int VERSION = 5; 
+    public static final int HEADER_BYTES = 4 * Integer.BYTES + Long.BYTES; 
+    public static final int RECORD_BYTES = Long.BYTES + ArmIOInputs.SERIALIZED_BYTES + Double.BYTES + Integer.BYTES + Double.BYTES; 
+    public static final long CONFIG_RECORD = -1; // In place of the cycle, loops count up from 0
+    static final int RECORD_COUNT_OFFSET = 4 * Integer.BYTES; 
+
+    // Default Log Size - about 40 minutes of loops at 50 Hz
+    public static final long DEFAULT_CAPACITY_RECORDS = 120_000; 
+    // On the internal flash - about 3 minutes, a match
+    public static final long INTERNAL_CAPACITY_RECORDS = 10_000; 
+    // Mapped at a time - about 40 seconds of loops, 1 MB
+    public static final int SEGMENT_RECORDS = 2048; 
+
+    // Retention - the logs kept in a folder, counting the new one, and the space a log must leave free
+    public static final int MAX_LOG_FILES = 10; 
+    public static final long MIN_FREE_BYTES = 64L * 1024 * 1024; 
+    private static final String LOG_PREFIX = "arm_"; 
+    private static final String LOG_SUFFIX = ".armlog"; 
+    private static final int PAGE_BYTES = 4096; 
+
+    // Decleration
+    private final FileChannel channel; 
+    private final FileStore fileStore; 
+    private final MappedByteBuffer header; 
+    private final long capacityRecords; 
+    private final int segmentRecords; 
+    private final long minFreeBytes; 
+    private final Thread segmentMapper; 
+    private volatile boolean closed; 
+
+    // Segments - the mapper hands over the next one, the loop hands back the finished one to flush
+    private volatile MappedByteBuffer nextSegment; 
+    private final AtomicReference<MappedByteBuffer> finishedSegment = new AtomicReference<>(); 
+
+    // Logging Thread
+    private MappedByteBuffer segment; 
+    private long recordCount; 
+    private long droppedRecords; 
+    private boolean dropReported; 
+    private boolean full; 
+
+    /**
+     * Creates (or overwrites) a log file, its segments are mapped in the background
+     * @param path The file to log into
+     * @param capacityRecords The number of records the file can hold, logging stops when full
+     * @throws IOException If the file cannot be created
+     */
+    public ArmTelemetryLogger( Path path, long capacityRecords ) throws IOException {
+        this( path, capacityRecords, SEGMENT_RECORDS, 0 ); 
+    }
+
+    /**
+     * Creates (or overwrites) a log file, its segments are mapped in the background
+     * @param path The file to log into
+     * @param capacityRecords The number of records the file can hold, logging stops when full
+     * @param segmentRecords The number of records mapped at a time
+     * @param minFreeBytes The space the log must leave free on the disk, logging stops before it grows past it
+     * @throws IOException If the file cannot be created
+     */
+    ArmTelemetryLogger( Path path, long capacityRecords, int segmentRecords, long minFreeBytes ) throws IOException {
+        this.capacityRecords = capacityRecords; 
+        this.segmentRecords = segmentRecords; 
+        this.minFreeBytes = minFreeBytes; 
+        Path parent = path.toAbsolutePath().getParent(); 
+        if ( parent != null ) {
+            Files.createDirectories( parent ); 
+        }
+        channel = FileChannel.open( path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, 
+                                    StandardOpenOption.READ, StandardOpenOption.WRITE ); 
+        fileStore = Files.getFileStore( path ); 
+
+        // Header
+        header = channel.map( FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES ); 
+        header.putInt( MAGIC ); 
+        header.putInt( VERSION ); 
+        header.putInt( RECORD_BYTES ); 
+        header.putInt( 0 ); 
+        header.putLong( 0 ); 
+
+        segmentMapper = new Thread( this::mapSegments, "ArmTelemetryLogger" ); 
+        segmentMapper.setDaemon( true ); 
+        segmentMapper.start(); 
+    }
+
+    /**
+     * Opens a log in the default location: the USB stick of the roboRIO if one is plugged in and 
+     * the log can be opened on it, otherwise the logs folder of the operating directory (the 
+     * project folder in simulation), with a smaller cap. 
+     * @return The logger, or null if the file could not be created or there is not enough free space
+     */
+    public static ArmTelemetryLogger openDefault() {
+        Path usbLogs = Path.of( "/u/logs" ); 
+        if ( Files.isDirectory( usbLogs.getParent() ) ) {
+            ArmTelemetryLogger logger = open( usbLogs, DEFAULT_CAPACITY_RECORDS, MAX_LOG_FILES, MIN_FREE_BYTES ); 
+            if ( logger != null ) {
+                return logger; 
+            }
+            DriverStation.reportWarning( "Arm telemetry log falling back to the internal flash", false ); 
+        }
+        return open( Filesystem.getOperatingDirectory().toPath().resolve( "logs" ), INTERNAL_CAPACITY_RECORDS, MAX_LOG_FILES, MIN_FREE_BYTES ); 
+    }
+
+    /**
+     * Opens a new log in a folder, deleting the oldest logs in it so at most maxLogFiles are left
+     * @param directory The folder of the logs
+     * @param capacityRecords The number of records the new log can hold
+     * @param maxLogFiles The number of logs kept, counting the new one
+     * @param minFreeBytes The space the log must leave free on the disk, or it is not opened (or stops growing)
+     * @return The logger, or null if the file could not be created or there is not enough free space
+     */
+    static ArmTelemetryLogger open( Path directory, long capacityRecords, int maxLogFiles, long minFreeBytes ) {
+        try {
+            Files.createDirectories( directory ); 
+            deleteOldLogs( directory, maxLogFiles - 1 ); 
+            long segmentBytes = Math.min( SEGMENT_RECORDS, capacityRecords ) * RECORD_BYTES; 
+            long freeBytes = Files.getFileStore( directory ).getUsableSpace(); 
+            if ( freeBytes - segmentBytes < minFreeBytes ) {
+                DriverStation.reportWarning( String.format( "Arm telemetry log not opened, only %d MB free in %s", 
+                                                            freeBytes / ( 1024 * 1024 ), directory ), false ); 
+                return null; 
+            }
+            List<Path> logs = listLogs( directory ); 
+            long number = logs.isEmpty() ? 1 : logNumber( logs.get( logs.size() - 1 ) ) + 1; 
+            return new ArmTelemetryLogger( directory.resolve( String.format( "%s%06d%s", LOG_PREFIX, number, LOG_SUFFIX ) ), 
+                                           capacityRecords, SEGMENT_RECORDS, minFreeBytes ); 
+        } 
+        catch ( IOException e ) {
+            DriverStation.reportWarning( "Arm telemetry log could not be opened: " + e.getMessage(), false ); 
+            return null; 
+        }
+    }
+
+    /**
+     * Deletes the oldest logs in a folder, by the number in their names
+     * @param directory The folder of the logs
+     * @param keep The number of the newest logs that are kept
+     * @throws IOException If the folder cannot be listed or a log cannot be deleted
+     */
+    static void deleteOldLogs( Path directory, int keep ) throws IOException {
+        List<Path> logs = listLogs( directory ); 
+        for ( int i = 0; i < logs.size() - Math.max( keep, 0 ); i++ ) {
+            Files.delete( logs.get( i ) ); 
+        }
+    }
+
+    /**
+     * @param directory The folder of the logs
+     * @return The logs in the folder, oldest (lowest number) first
+     * @throws IOException If the folder cannot be listed
+     */
+    private static List<Path> listLogs( Path directory ) throws IOException {
+        try ( Stream<Path> files = Files.list( directory ) ) {
+            return files.filter( file -> logNumber( file ) >= 0 )
+                .sorted( Comparator.comparingLong( ArmTelemetryLogger::logNumber ) )
+                .collect( Collectors.toList() ); 
+        }
+    }
+
+    /**
+     * @param file A file in the folder of the logs
+     * @return The number in the name of the log, or -1 if the file is not a log
+     */
+    private static long logNumber( Path file ) {
+        String name = file.getFileName().toString(); 
+        if ( !name.startsWith( LOG_PREFIX ) || !name.endsWith( LOG_SUFFIX ) ) {
+            return -1; 
+        }
+        try {
+            return Long.parseLong( name.substring( LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length() ) ); 
+        }
+        catch ( NumberFormatException e ) {
+            return -1; 
+        }
+    }
+
+    /**
+     * Appends one loop to the log. Once the log is full, further loops are dropped. 
+     * @param cycle The number of the loop
+     * @param inputs The inputs the loop acted on
+     * @param targetPositionRads The target the loop acted on (Radians), NaN if there was none
+     * @param mode The control mode sent in the loop, or null if nothing was sent
+     * @param setpointRotations The setpoint sent with the control mode (Rotations)
+     */
+    public void log( long cycle, ArmIOInputs inputs, double targetPositionRads, ArmControlMode mode, double setpointRotations ) {
+        MappedByteBuffer record = reserveRecord(); 
+        if ( record == null ) {
+            return; 
+        }
+        record.putLong( cycle ); 
+        inputs.writeTo( record ); 
+        record.putDouble( targetPositionRads ); 
+        record.putInt( mode == null ? -1 : mode.ordinal() ); 
+        record.putDouble( setpointRotations ); 
+        commitRecord(); 
+    }
+
+    /**
+     * Appends the config that the loops run with from this one on, once at the start and again 
+     * after every reload. 
+     * @param cycle The number of the first loop that runs with the config
+     * @param config The config
+     * @return True if it was logged, false if it was dropped (and should be logged again)
+     */
+    public boolean logConfig( long cycle, ArmConfig config ) {
+        MappedByteBuffer record = reserveRecord(); 
+        if ( record == null ) {
+            return false; 
+        }
+        int start = record.position(); 
+        record.putLong( CONFIG_RECORD ); 
+        record.putLong( cycle ); 
+        config.writeTo( record ); 
+        record.position( start + RECORD_BYTES ); 
+        commitRecord(); 
+        return true; 
+    }
+
+    /**
+     * @return The segment positioned at the next free record, or null if the record is dropped
+     */
+    private MappedByteBuffer reserveRecord() {
+        if ( full ) {
+            return null; 
+        }
+        if ( recordCount >= capacityRecords ) {
+            full = true; 
+            DriverStation.reportWarning( "Arm telemetry log is full, logging stopped", false ); 
+            return null; 
+        }
+        if ( segment == null || !segment.hasRemaining() ) {
+            MappedByteBuffer next = nextSegment; 
+            if ( next == null ) {
+                droppedRecords++; 
+                if ( !dropReported ) {
+                    dropReported = true; 
+                    DriverStation.reportWarning( "Arm telemetry log segment not ready, loops dropped", false ); 
+                }
+                return null; 
+            }
+            nextSegment = null; 
+            if ( segment != null ) {
+                finishedSegment.set( segment ); 
+            }
+            segment = next; 
+            LockSupport.unpark( segmentMapper ); 
+        }
+        return segment; 
+    }
+
+    /**
+     * Counts the record just written into the header
+     */
+    private void commitRecord() {
+        recordCount++; 
+        header.putLong( RECORD_COUNT_OFFSET, recordCount ); 
+    }
+
+    /**
+     * Runs on the background thread: flushes the finished segments and maps the next one ahead of 
+     * the logging thread, until the log is closed, full or short of space
+     */
+    private void mapSegments() {
+        long mappedRecords = 0; 
+        try {
+            while ( !closed ) {
+                MappedByteBuffer finished = finishedSegment.getAndSet( null ); 
+                if ( finished != null ) {
+                    finished.force(); 
+                }
+                if ( nextSegment == null && mappedRecords < capacityRecords ) {
+                    long records = Math.min( segmentRecords, capacityRecords - mappedRecords ); 
+                    long freeBytes = fileStore.getUsableSpace(); 
+                    if ( freeBytes - records * RECORD_BYTES < minFreeBytes ) {
+                        DriverStation.reportWarning( String.format( "Arm telemetry log stopped, only %d MB free", 
+                                                                    freeBytes / ( 1024 * 1024 ) ), false ); 
+                        return; 
+                    }
+                    MappedByteBuffer mapped = channel.map( FileChannel.MapMode.READ_WRITE, HEADER_BYTES + mappedRecords * RECORD_BYTES, 
+                                                           records * RECORD_BYTES ); 
+                    for ( int offset = 0; offset < mapped.capacity(); offset += PAGE_BYTES ) {
+                        mapped.put( offset, (byte) 0 ); 
+                    }
+                    mappedRecords += records; 
+                    nextSegment = mapped; 
+                }
+                LockSupport.park( this ); 
+            }
+        }
+        catch ( IOException e ) {
+            if ( !closed ) {
+                DriverStation.reportWarning( "Arm telemetry log stopped: " + e.getMessage(), false ); 
+            }
+        }
+    }
+
+    /**
+     * Waits until the next record has a mapped segment to go into, call it from the logging thread
+     * @param timeoutMillis The longest time to wait (Milliseconds)
+     * @return True if the next record will be logged, false if it timed out
+     * @throws InterruptedException If the wait is interrupted
+     */
+    boolean awaitSegment( long timeoutMillis ) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + timeoutMillis * 1_000_000; 
+        while ( ( segment == null || !segment.hasRemaining() ) && nextSegment == null ) {
+            if ( System.nanoTime() > deadlineNanos ) {
+                return false; 
+            }
+            Thread.sleep( 1 ); 
+        }
+        return true; 
+    }
+
+    /**
+     * @return The number of records written
+     */
+    public long getRecordCount() {
+        return recordCount; 
+    }
+
+    /**
+     * @return The number of records dropped because their segment was not mapped yet
+     */
+    public long getDroppedRecords() {
+        return droppedRecords; 
+    }
+
+    /**
+     * Stops the background thread, flushes the log to disk and closes the file
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true; 
+        LockSupport.unpark( segmentMapper ); 
+        try {
+            segmentMapper.join(); 
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt(); 
+        }
+        if ( segment != null ) {
+            segment.force(); 
+        }
+        header.force(); 
+        channel.close(); 
+    }
+
+    /**
+     * Maps an existing log for reading and checks its header
+     * @param path The log file
+     * @return A buffer positioned at the first record, limited to the recorded records
+     * @throws IOException If the file cannot be read or is not a compatible log
+     */
+    static ByteBuffer openForReading( Path path ) throws IOException {
+        try ( FileChannel readChannel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+            ByteBuffer readBuffer = readChannel.map( FileChannel.MapMode.READ_ONLY, 0, readChannel.size() ); 
+            if ( readBuffer.getInt() != MAGIC ) {
+                throw new IOException( "Not an arm telemetry log: " + path ); 
+            }
+            int version = readBuffer.getInt(); 
+            int recordBytes = readBuffer.getInt(); 
+            if ( version != VERSION || recordBytes != RECORD_BYTES ) {
+                throw new IOException( "Unsupported arm telemetry log version " + version + ": " + path ); 
+            }
+            readBuffer.getInt(); 
+            long records = readBuffer.getLong(); 
+            readBuffer.limit( (int) ( HEADER_BYTES + records * RECORD_BYTES ) ); 
+            return readBuffer; 
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * @file RotaryCANcoderSensor.java
+ * @brief A CANcoder on the joint, the leader motor closes its loop on it
+ */
+
+package frc.robot.subsystems.Rotary;
+
+import java.util.List;
+
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.configs.CANcoderConfiguration;
+import com.ctre.phoenix6.configs.FeedbackConfigs;
+import com.ctre.phoenix6.hardware.CANcoder;
+import com.ctre.phoenix6.hardware.TalonFX;
+import com.ctre.phoenix6.signals.AbsoluteSensorRangeValue;
+import com.ctre.phoenix6.signals.FeedbackSensorSourceValue;
+import com.ctre.phoenix6.signals.SensorDirectionValue;
+
+import frc.robot.util.DeviceBringUp;
+
+/**
+ * Reads the joint from a CANcoder mounted on it, the same way the Arm does.
+ * The CANcoder is configured with the mechanism, and the leader uses it as a remote sensor
+ * (SyncCANcoder, FusedCANcoder or RemoteCANcoder).
+ */
+public class RotaryCANcoderSensor implements RotarySensor {
+    // Decleration
+    private final int id; 
+    private final FeedbackSensorSourceValue source; 
+    private final double rotorToSensorRatio; 
+    private final CANcoderConfiguration encoderConfig; 
+    private CANcoder encoder; 
+
+    // Status Signals
+    private StatusSignal<Double> position; 
+    private StatusSignal<Double> velocity; 
+    private List<StatusSignal<Boolean>> faults; 
+
+    /**
+     * Creates the sensor, the CANcoder itself is created with the mechanism
+     * @param id The CAN ID of the CANcoder
+     * @param source How the leader uses the CANcoder, e.g. SyncCANcoder
+     * @param rotorToSensorRatio Rotor Rotations per CANcoder Rotation
+     * @param direction The direction of the CANcoder, the same as the leader
+     * @param magnetOffsetRotations The offset that makes the CANcoder read 0 at the zero of the joint (Rotations)
+     */
+    public RotaryCANcoderSensor( int id, FeedbackSensorSourceValue source, double rotorToSensorRatio,
+                                 SensorDirectionValue direction, double magnetOffsetRotations ) {
+        this.id = id; 
+        this.source = source; 
+        this.rotorToSensorRatio = rotorToSensorRatio; 
+        encoderConfig = new CANcoderConfiguration(); 
+        encoderConfig.MagnetSensor.AbsoluteSensorRange = AbsoluteSensorRangeValue.Signed_PlusMinusHalf; 
+        encoderConfig.MagnetSensor.SensorDirection = direction; 
+        encoderConfig.MagnetSensor.MagnetOffset = magnetOffsetRotations; 
+    }
+
+    @Override
+    public void configureFeedback( FeedbackConfigs feedback ) {
+        feedback.FeedbackSensorSource = source; 
+        feedback.FeedbackRemoteSensorID = id; 
+        feedback.RotorToSensorRatio = rotorToSensorRatio; 
+    }
+
+    @Override
+    public void attach( TalonFX leader, String canBus, DeviceBringUp bringUp ) {
+        encoder = new CANcoder( id, canBus ); 
+        bringUp.add( "Encoder", encoder, encoderConfig ); 
+        position = encoder.getPosition(); 
+        velocity = encoder.getVelocity(); 
+        faults = List.of( encoder.getFault_Hardware(), encoder.getFault_BadMagnet() ); 
+    }
+
+    @Override
+    public StatusSignal<Double> getPosition() {
+        return position; 
+    }
+
+    @Override
+    public StatusSignal<Double> getVelocity() {
+        return velocity; 
+    }
+
+    @Override
+    public List<StatusSignal<Boolean>> getFaults() {
+        return faults; 
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ * @file RotaryMechanism.java
+ * @brief The devices of any rotary joint, driven by the same ArmSubsystem as the Arm
+ */
+
+package frc.robot.subsystems.Rotary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.Utils;
+import com.ctre.phoenix6.configs.TalonFXConfiguration;
+import com.ctre.phoenix6.controls.Follower;
+import com.ctre.phoenix6.hardware.TalonFX;
+import com.ctre.phoenix6.signals.NeutralModeValue;
+
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.subsystems.Arm.ArmConfig;
+import frc.robot.subsystems.Arm.ArmConstants;
+import frc.robot.subsystems.Arm.ArmFollowerHealth;
+import frc.robot.subsystems.Arm.ArmIO;
+import frc.robot.subsystems.Arm.ArmLeaderRequests;
+import frc.robot.util.CANSignalRefresher;
+import frc.robot.util.DeviceBringUp;
+
+/**
+ * An ArmIO for any joint made of a leader motor, any number of followers and a RotarySensor, so
+ * a pivot, a wrist or a climber is an ArmSubsystem on one of these instead of a copy of the Arm:
+ *
+ *   new ArmSubsystem( "Wrist", new ArmIOCached( new RotaryMechanism( wristConfig, wristGains, signalRefresher ) ),
+ *                     wristGains, wristConfig.envelope() )
+ *
+ * Its Status Signals are registered with the CANSignalRefresher shared by every mechanism, which
+ * refreshes them before the subsystems run, so updateInputs never waits on the CAN bus. The joint
+ * is sampled once per loop from the refreshed sensor; the high frequency sampling and the rotor
+ * fallback stay specific to the Arm (ArmDefinition). If the sensor or a follower goes stale or
+ * faults, the leader is stopped until it recovers (a follower) or the code restarts (the sensor).
+ * The requests of the leader (ArmLeaderRequests) and the follower check (ArmFollowerHealth) are
+ * the same ones the Arm uses.
+ */
+public class RotaryMechanism implements ArmIO {
+    // Decleration
+    private final RotaryMechanismConfig mechanism; 
+    private final TalonFX leader; 
+    private final TalonFX[] followers; 
+
+    // Status Signals - refreshed by the shared CANSignalRefresher, read here
+    private final StatusSignal<Double> sensorPosition; 
+    private final StatusSignal<Double> sensorVelocity; 
+    private final StatusSignal<Double> leaderPosition; 
+    private final StatusSignal<Double> leaderVoltage; 
+    private final StatusSignal<Double> leaderStatorCurrent; 
+    private final StatusSignal<Double> leaderSupplyVoltage; 
+    private final StatusSignal<Double> leaderTemp; 
+    private final StatusSignal<Double>[] followerStatorCurrents; 
+    private final StatusSignal<Double>[] followerTemps; 
+    private final StatusSignal<Boolean>[] followerFaults; 
+    private final StatusSignal<Boolean>[] sensorFaults; 
+
+    // Health Monitoring
+    private final double startTimeSecs; 
+    private boolean hasSensorSample; 
+    private boolean sensorHealthy = true; 
+    private final ArmFollowerHealth followerHealth; 
+
+    // Control Requests are created once and reused every loop
+    private final ArmLeaderRequests requests; 
+
+    /**
+     * Creates and brings up the devices of the joint
+     * @param mechanism The devices and wiring of the joint
+     * @param config The gains and Motion Magic constraints of the joint
+     * @param signalRefresher The refresher shared by every mechanism, refreshed before updateInputs every loop
+     */
+    @SuppressWarnings( { "unchecked", "rawtypes" } )
+    public RotaryMechanism( RotaryMechanismConfig mechanism, ArmConfig config, CANSignalRefresher signalRefresher ) {
+        this.mechanism = mechanism; 
+        followerHealth = new ArmFollowerHealth( mechanism.name() ); 
+        DeviceBringUp bringUp = new DeviceBringUp( mechanism.name(), ArmConstants.CONFIG_TIMEOUT_SECS, ArmConstants.CONFIG_MAX_ATTEMPTS ); 
+
+        // Leader Configuration
+        leader = new TalonFX( mechanism.leaderId(), mechanism.canBus() ); 
+        TalonFXConfiguration leaderConfig = new TalonFXConfiguration(); 
+        leaderConfig.MotorOutput.Inverted = mechanism.leaderInverted(); 
+        leaderConfig.MotorOutput.NeutralMode = NeutralModeValue.Brake; 
+        mechanism.sensor().configureFeedback( leaderConfig.Feedback ); 
+        leaderConfig.Slot0 = config.toSlot0Configs( mechanism.gravityType() ); 
+        leaderConfig.Slot1 = config.toSlot1Configs( mechanism.gravityType() ); 
+        leaderConfig.MotionMagic = config.toMotionMagicConfigs(); 
+        leaderConfig.SoftwareLimitSwitch = mechanism.envelope().toSoftLimitConfigs(); 
+        bringUp.add( "Leader", leader, leaderConfig ); 
+        mechanism.sensor().attach( leader, mechanism.canBus(), bringUp ); 
+
+        // Follower Configuration - the same as the leader, the Follower request sets the direction
+        followers = new TalonFX[mechanism.followers().size()]; 
+        followerStatorCurrents = new StatusSignal[followers.length]; 
+        followerTemps = new StatusSignal[followers.length]; 
+        followerFaults = new StatusSignal[2 * followers.length]; 
+        TalonFXConfiguration followerConfig = new TalonFXConfiguration(); 
+        followerConfig.deserialize( leaderConfig.serialize() ); 
+        for ( int i = 0; i < followers.length; i++ ) {
+            RotaryMechanismConfig.Follower follower = mechanism.followers().get( i ); 
+            followers[i] = new TalonFX( follower.id(), mechanism.canBus() ); 
+            followers[i].setControl( new Follower( mechanism.leaderId(), follower.opposeLeader() ) ); 
+            bringUp.add( "Follower " + follower.id(), followers[i], followerConfig ); 
+            followerStatorCurrents[i] = followers[i].getStatorCurrent(); 
+            followerTemps[i] = followers[i].getDeviceTemp(); 
+            followerFaults[2 * i] = followers[i].getFault_Hardware(); 
+            followerFaults[2 * i + 1] = followers[i].getFault_DeviceTemp(); 
+        }
+        bringUp.run(); 
+        requests = new ArmLeaderRequests( leader, mechanism.canBus(), mechanism.gravityType(), config ); 
+
+        // Status Signal Initialization
+        sensorPosition = mechanism.sensor().getPosition(); 
+        sensorVelocity = mechanism.sensor().getVelocity(); 
+        sensorFaults = mechanism.sensor().getFaults().toArray( new StatusSignal[0] ); 
+        leaderPosition = leader.getPosition(); 
+        leaderVoltage = leader.getMotorVoltage(); 
+        leaderStatorCurrent = leader.getStatorCurrent(); 
+        leaderSupplyVoltage = leader.getSupplyVoltage(); 
+        leaderTemp = leader.getDeviceTemp(); 
+
+        // Setting up the Updating Cycle
+        BaseStatusSignal.setUpdateFrequencyForAll( 100, sensorPosition, sensorVelocity, leaderPosition ); 
+        BaseStatusSignal.setUpdateFrequencyForAll( 50, leaderVoltage, leaderStatorCurrent, leaderSupplyVoltage ); 
+        BaseStatusSignal.setUpdateFrequencyForAll( 50, followerStatorCurrents ); 
+        BaseStatusSignal.setUpdateFrequencyForAll( 4, leaderTemp ); 
+        BaseStatusSignal.setUpdateFrequencyForAll( 4, followerTemps ); 
+        BaseStatusSignal.setUpdateFrequencyForAll( 4, followerFaults ); 
+        BaseStatusSignal.setUpdateFrequencyForAll( 4, sensorFaults ); 
+
+        // Batched with the signals of every other mechanism
+        List<BaseStatusSignal> signals = new ArrayList<>(); 
+        signals.addAll( List.of( sensorPosition, sensorVelocity, leaderPosition, leaderVoltage, leaderStatorCurrent, leaderSupplyVoltage, leaderTemp ) ); 
+        signals.addAll( List.of( followerStatorCurrents ) ); 
+        signals.addAll( List.of( followerTemps ) ); 
+        signals.addAll( List.of( followerFaults ) ); 
+        signals.addAll( List.of( sensorFaults ) ); 
+        signalRefresher.register( mechanism.canBus(), signals.toArray( new BaseStatusSignal[0] ) ); 
+        startTimeSecs = Utils.getCurrentTimeSeconds(); 
+    }
+
+    /**
+     * Updates the inputs from the signals the shared refresher read this loop. The sensor position
+     * is latency compensated with its velocity, and is also the one high frequency sample of the loop.
+     */
+    @Override
+    public void updateInputs( ArmIOInputs inputs ) {
+        double nowSecs = Utils.getCurrentTimeSeconds(); 
+        double sensorTimestampSecs = sensorPosition.getTimestamp().getTime(); 
+        double sensorLatencySecs = nowSecs - sensorTimestampSecs; 
+        updateHealth( nowSecs, sensorLatencySecs ); 
+
+        // Position and Velocity
+        double compensationSecs = Math.min( Math.max( sensorLatencySecs, 0.0 ), ArmConstants.LOOP_PERIOD_SECS ); 
+        double positionRotations = sensorPosition.getValueAsDouble() + sensorVelocity.getValueAsDouble() * compensationSecs; 
+        inputs.armEncoderPositionRads = Units.rotationsToRadians( positionRotations ); 
+        inputs.armEncoderPositionTimestampSecs = sensorTimestampSecs; 
+        inputs.armEncoderLatencySecs = sensorLatencySecs; 
+        inputs.armVelocityRadsPerSec = Units.rotationsToRadians( sensorVelocity.getValueAsDouble() ); 
+        inputs.armVelocityTimestampSecs = sensorVelocity.getTimestamp().getTime(); 
+        inputs.armPositionRads = Units.rotationsToRadians( leaderPosition.getValueAsDouble() ); 
+        inputs.armPositionTimestampSecs = leaderPosition.getTimestamp().getTime(); 
+        inputs.sampleCount = sensorHealthy ? 1 : 0; 
+        inputs.sampleTimestampsSecs[0] = sensorTimestampSecs; 
+        inputs.samplePositionsRads[0] = Units.rotationsToRadians( sensorPosition.getValueAsDouble() ); 
+        inputs.sampleVelocitiesRadsPerSec[0] = inputs.armVelocityRadsPerSec; 
+
+        // Electrical - the follower current is the largest of the followers
+        inputs.armAppliedVolts = leaderVoltage.getValueAsDouble(); 
+        inputs.armAppliedVoltsTimestampSecs = leaderVoltage.getTimestamp().getTime(); 
+        inputs.armStatorCurrentAmps = leaderStatorCurrent.getValueAsDouble(); 
+        inputs.armStatorCurrentTimestampSecs = leaderStatorCurrent.getTimestamp().getTime(); 
+        inputs.armSupplyVolts = leaderSupplyVoltage.getValueAsDouble(); 
+        inputs.armFollowerStatorCurrentAmps = 0.0; 
+        for ( StatusSignal<Double> current : followerStatorCurrents ) {
+            inputs.armFollowerStatorCurrentAmps = Math.max( inputs.armFollowerStatorCurrentAmps, Math.abs( current.getValueAsDouble() ) ); 
+        }
+
+        // Temperature - the follower temperature is the hottest of the followers
+        inputs.armTempCelsius = leaderTemp.getValueAsDouble(); 
+        inputs.armTempTimestampSecs = leaderTemp.getTimestamp().getTime(); 
+        inputs.armFollowerTempCelsius = 0.0; 
+        for ( StatusSignal<Double> temp : followerTemps ) {
+            inputs.armFollowerTempCelsius = Math.max( inputs.armFollowerTempCelsius, temp.getValueAsDouble() ); 
+        }
+
+        // Health
+        inputs.encoderHealthy = sensorHealthy; 
+        inputs.followerHealthy = followerHealth.isHealthy(); 
+        inputs.driveEnabled = requests.isDriveEnabled(); 
+    }
+
+    /**
+     * Checks the sensor and every follower from the signals refreshed this loop, and stops the
+     * leader as soon as it is no longer safe to drive.
+     */
+    private void updateHealth( double nowSecs, double sensorLatencySecs ) {
+        // Sensor - not trusted again until the robot code restarts
+        if ( sensorHealthy ) {
+            boolean sensorOk = sensorPosition.getStatus().isOK() && sensorLatencySecs <= ArmConstants.ENCODER_STALE_SECS; 
+            hasSensorSample |= sensorOk; 
+            boolean sensorStale = hasSensorSample ? !sensorOk : nowSecs - startTimeSecs > ArmConstants.ENCODER_BOOT_TIMEOUT_SECS; 
+            if ( sensorStale || ArmFollowerHealth.anyFaulted( sensorFaults ) ) {
+                sensorHealthy = false; 
+                DriverStation.reportError( mechanism.name() + ": sensor lost, the joint is disabled", false ); 
+            }
+        }
+
+        // Followers
+        boolean followerHealthy = followerHealth.update( nowSecs, followerStatorCurrents, followerFaults ); 
+
+        // Stopping the leader right away, not waiting for the next control request
+        requests.setDriveEnabled( sensorHealthy && followerHealthy ); 
+    }
+
+    @Override
+    public void stop() {
+        requests.stop(); 
+    }
+
+    @Override
+    public void setPositionControl( double positionRotations, double feedforwardVolts ) {
+        requests.setPositionControl( positionRotations, feedforwardVolts ); 
+    }
+
+    @Override
+    public void setMotionControl( double positionRotations, double cruiseVelocity, double acceleration, double jerk, double feedforwardVolts ) {
+        requests.setMotionControl( positionRotations, cruiseVelocity, acceleration, jerk, feedforwardVolts ); 
+    }
+
+    @Override
+    public void setProfiledPositionControl( double positionRotations, double velocityRotationsPerSec, double feedforwardVolts ) {
+        requests.setProfiledPositionControl( positionRotations, velocityRotationsPerSec, feedforwardVolts ); 
+    }
+
+    @Override
+    public void setVoltage( double volts ) {
+        requests.setVoltage( volts ); 
+    }
+
+    /**
+     * Applies the slots and constraints that changed to the leader, the followers only follow.
+     * This blocks on the CAN bus, so it must not be called from the robot loop.
+     */
+    @Override
+    public boolean applyConfig( ArmConfig config ) {
+        return requests.applyConfig( config ); 
+    }
+}
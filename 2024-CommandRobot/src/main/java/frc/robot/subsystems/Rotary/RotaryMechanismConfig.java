@@ -0,0 +1,51 @@
+/**
+ * @file RotaryMechanismConfig.java
+ * @brief The devices and wiring of one rotary joint
+ */
+
+package frc.robot.subsystems.Rotary;
+
+import java.util.List;
+
+import com.ctre.phoenix6.signals.GravityTypeValue;
+import com.ctre.phoenix6.signals.InvertedValue;
+
+import frc.robot.subsystems.Arm.ArmEnvelope;
+
+/**
+ * Everything that differs between two rotary joints apart from their tuning, which stays in an
+ * ArmConfig. A pivot, a wrist and a climber are each one of these:
+ *
+ *   new RotaryMechanismConfig( "Wrist", "", 10, InvertedValue.Clockwise_Positive,
+ *       List.of( new RotaryMechanismConfig.Follower( 11, true ) ),
+ *       new RotaryCANcoderSensor( 12, FeedbackSensorSourceValue.FusedCANcoder, 25.0,
+ *                                 SensorDirectionValue.Clockwise_Positive, 0.0 ),
+ *       GravityTypeValue.Arm_Cosine,
+ *       new ArmEnvelope( Math.toRadians( -90 ), Math.toRadians( 90 ), Math.toRadians( 0.5 ), 0.0, null ) )
+ *
+ * @param name The name used on the dashboard and when reporting
+ * @param canBus The CAN bus of every device of the joint, "" for the roboRIO bus
+ * @param leaderId The CAN ID of the leader motor, the only motor that is commanded
+ * @param leaderInverted The positive direction of the leader motor
+ * @param followers The motors that follow the leader, may be empty
+ * @param sensor Where the position of the joint comes from
+ * @param gravityType How gravity acts on the joint, Arm_Cosine for a joint that swings and Elevator_Static for one that lifts
+ * @param envelope The angles the joint may be commanded to, its edges are the soft limits of the leader
+ */
+public record RotaryMechanismConfig( String name, String canBus, int leaderId, InvertedValue leaderInverted,
+                                     List<Follower> followers, RotarySensor sensor, GravityTypeValue gravityType,
+                                     ArmEnvelope envelope ) {
+    /**
+     * A motor that follows the leader
+     * @param id The CAN ID of the motor
+     * @param opposeLeader True if the motor turns the other way to the leader
+     */
+    public record Follower( int id, boolean opposeLeader ) {}
+
+    /**
+     * Copies the followers so the config can not change after it is made
+     */
+    public RotaryMechanismConfig {
+        followers = List.copyOf( followers ); 
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * @file RotaryRotorSensor.java
+ * @brief The rotor of the leader motor, for joints without a sensor of their own
+ */
+
+package frc.robot.subsystems.Rotary;
+
+import java.util.List;
+
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.configs.FeedbackConfigs;
+import com.ctre.phoenix6.hardware.TalonFX;
+import com.ctre.phoenix6.signals.FeedbackSensorSourceValue;
+
+import frc.robot.util.DeviceBringUp;
+
+/**
+ * Reads the joint from the rotor of the leader motor through the gear ratio, e.g. for a climber.
+ * The position is relative, so the joint must be at its zero when the robot code starts.
+ */
+public class RotaryRotorSensor implements RotarySensor {
+    // Decleration
+    private final double sensorToMechanismRatio; 
+    private StatusSignal<Double> position; 
+    private StatusSignal<Double> velocity; 
+
+    /**
+     * Creates the sensor
+     * @param sensorToMechanismRatio Rotor Rotations per joint Rotation
+     */
+    public RotaryRotorSensor( double sensorToMechanismRatio ) {
+        this.sensorToMechanismRatio = sensorToMechanismRatio; 
+    }
+
+    @Override
+    public void configureFeedback( FeedbackConfigs feedback ) {
+        feedback.FeedbackSensorSource = FeedbackSensorSourceValue.RotorSensor; 
+        feedback.SensorToMechanismRatio = sensorToMechanismRatio; 
+    }
+
+    @Override
+    public void attach( TalonFX leader, String canBus, DeviceBringUp bringUp ) {
+        // The leader reports its position through the ratio, so it is already in joint Rotations
+        position = leader.getPosition(); 
+        velocity = leader.getVelocity(); 
+    }
+
+    @Override
+    public StatusSignal<Double> getPosition() {
+        return position; 
+    }
+
+    @Override
+    public StatusSignal<Double> getVelocity() {
+        return velocity; 
+    }
+
+    @Override
+    public List<StatusSignal<Boolean>> getFaults() {
+        return List.of(); 
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * @file RotarySensor.java
+ * @brief The sensor a rotary mechanism closes its loop on
+ */
+
+package frc.robot.subsystems.Rotary;
+
+import java.util.List;
+
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.configs.FeedbackConfigs;
+import com.ctre.phoenix6.hardware.TalonFX;
+
+import frc.robot.util.DeviceBringUp;
+
+/**
+ * Where a RotaryMechanism gets the position and velocity of its joint from, e.g. a CANcoder on
+ * the joint (RotaryCANcoderSensor) or the rotor of the leader motor (RotaryRotorSensor).
+ *
+ * The sensor points the feedback of the leader at itself, so the leader closes its loop on it,
+ * and it provides the signals the mechanism reads every loop. Everything is in mechanism
+ * Rotations.
+ */
+public interface RotarySensor {
+    /**
+     * Sets up the feedback of the leader motor to use this sensor
+     * @param feedback The feedback configs of the leader, changed in place
+     */
+    public void configureFeedback( FeedbackConfigs feedback ); 
+
+    /**
+     * Creates the sensor device, if it is one, and adds it to the bring up of the mechanism.
+     * Called once, before any of the signals are read.
+     * @param leader The leader motor of the mechanism
+     * @param canBus The CAN bus of the mechanism
+     * @param bringUp The bring up of the mechanism
+     */
+    public void attach( TalonFX leader, String canBus, DeviceBringUp bringUp ); 
+
+    /**
+     * @return The position of the joint (Rotations)
+     */
+    public StatusSignal<Double> getPosition(); 
+
+    /**
+     * @return The velocity of the joint (Rotations per second)
+     */
+    public StatusSignal<Double> getVelocity(); 
+
+    /**
+     * @return The fault signals of the sensor, empty if it has none of its own
+     */
+    public List<StatusSignal<Boolean>> getFaults(); 
+}
@@ -0,0 +1,107 @@
+/**
+ * @file CANSignalRefresher.java
+ * @brief Refreshes the Status Signals of every mechanism in one batched call per CAN bus
+ */
+
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+
+/**
+ * Collects the Status Signals of all the mechanisms on the robot and refreshes them together.
+ *
+ * Each mechanism refreshing its own signals costs one blocking call per mechanism every loop,
+ * so the time spent reading the CAN bus grows with every joint that is added. Here every
+ * mechanism registers its signals once when it is created, and the robot loop calls refreshAll()
+ * once before the scheduler runs. That is one refreshAll per CAN bus (a batch can only cover a
+ * single bus), no matter how many mechanisms there are.
+ *
+ * The signals are kept in arrays that are only rebuilt when something is registered, so
+ * refreshing never allocates. Registering and refreshing must both happen on the robot loop.
+ */
+public class CANSignalRefresher {
+    // Timing Settings - 1 s of loops, 10 us buckets up to 5 ms
+    private static final int TIMING_WINDOW = 50; 
+    private static final long TIMING_BUCKET_NANOS = 10_000; 
+    private static final long TIMING_MAX_NANOS = 5_000_000; 
+
+    // Decleration
+    private final List<String> canBuses = new ArrayList<>(); 
+    private BaseStatusSignal[][] signals = new BaseStatusSignal[0][]; 
+    private StatusCode[] lastStatus = new StatusCode[0]; 
+    private final LoopTimingStats timing = new LoopTimingStats( TIMING_WINDOW, TIMING_BUCKET_NANOS, TIMING_MAX_NANOS ); 
+
+    /**
+     * Adds signals to the batch of their CAN bus, meant to be called when a mechanism is created
+     * @param canBus The CAN bus the signals are on, "" or "rio" for the roboRIO bus
+     * @param newSignals The signals to refresh every loop
+     */
+    public void register( String canBus, BaseStatusSignal... newSignals ) {
+        String bus = canBus.equals( "rio" ) ? "" : canBus; 
+        int index = canBuses.indexOf( bus ); 
+        if ( index < 0 ) {
+            canBuses.add( bus ); 
+            index = canBuses.size() - 1; 
+            signals = Arrays.copyOf( signals, canBuses.size() ); 
+            signals[index] = new BaseStatusSignal[0]; 
+            lastStatus = Arrays.copyOf( lastStatus, canBuses.size() ); 
+        }
+        BaseStatusSignal[] batch = Arrays.copyOf( signals[index], signals[index].length + newSignals.length ); 
+        System.arraycopy( newSignals, 0, batch, signals[index].length, newSignals.length ); 
+        signals[index] = batch; 
+    }
+
+    /**
+     * Refreshes every registered signal, one batched call per CAN bus.
+     * Called once per loop before any mechanism reads its signals.
+     */
+    public void refreshAll() {
+        long startNanos = System.nanoTime(); 
+        for ( int i = 0; i < signals.length; i++ ) {
+            lastStatus[i] = BaseStatusSignal.refreshAll( signals[i] ); 
+        }
+        timing.record( System.nanoTime() - startNanos ); 
+    }
+
+    /**
+     * @return True if the last refresh of every CAN bus succeeded
+     */
+    public boolean isAllOK() {
+        for ( StatusCode status : lastStatus ) {
+            if ( status != null && !status.isOK() ) {
+                return false; 
+            }
+        }
+        return true; 
+    }
+
+    /**
+     * @return The number of signals refreshed every loop
+     */
+    public int getSignalCount() {
+        int count = 0; 
+        for ( BaseStatusSignal[] batch : signals ) {
+            count += batch.length; 
+        }
+        return count; 
+    }
+
+    /**
+     * @return The number of refreshAll calls made every loop, one per CAN bus
+     */
+    public int getBatchCount() {
+        return signals.length; 
+    }
+
+    /**
+     * @return How long the refreshes of the last loops took
+     */
+    public LoopTimingStats getTiming() {
+        return timing; 
+    }
+}
@@ -0,0 +1,234 @@
+/**
+ * @file DeviceBringUp.java
+ * @brief Configures a group of CTRE devices in parallel when the robot starts
+ */
+
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.DoubleFunction;
+import java.util.function.Supplier;
+
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.configs.CANcoderConfiguration;
+import com.ctre.phoenix6.configs.TalonFXConfiguration;
+import com.ctre.phoenix6.hardware.CANcoder;
+import com.ctre.phoenix6.hardware.TalonFX;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Applies the configurations of several devices at the same time instead of one after another.
+ *
+ * Every apply and refresh of a configuration blocks on a CAN round trip, so configuring the
+ * devices in series adds up all of those waits at startup. Here each device is brought up on its
+ * own thread, so startup only waits for the slowest device. For each device:
+ *   1. The configuration on the device is read back, and if it already matches nothing is applied
+ *   2. Otherwise the configuration is applied, read back and compared, retrying on a failure
+ *
+ * The time spent on every device is reported once all of them are done.
+ */
+public class DeviceBringUp {
+    /**
+     * The outcome of bringing up one device
+     * @param name The name of the device
+     * @param skipped True if the device already had the configuration, so nothing was applied
+     * @param verified True if the configuration on the device was read back and matches
+     * @param attempts The number of times the configuration was applied
+     * @param elapsedSecs The time spent on the device (Seconds)
+     * @param status The status of the last call to the device
+     */
+    public record Result( String name, boolean skipped, boolean verified, int attempts, double elapsedSecs, StatusCode status ) {}
+
+    /**
+     * One device to bring up
+     */
+    private record Device( String name, DoubleFunction<StatusCode> apply, DoubleFunction<StatusCode> refresh,
+                           String desired, Supplier<String> actual ) {}
+
+    // Tolerance when comparing the values read back, the devices store them with less precision
+    private static final double RELATIVE_TOLERANCE = 1e-4; 
+    private static final double ABSOLUTE_TOLERANCE = 1e-6; 
+
+    // Decleration
+    private final String groupName; 
+    private final double timeoutSecs; 
+    private final int maxAttempts; 
+    private final List<Device> devices = new ArrayList<>(); 
+
+    /**
+     * Creates an empty bring up
+     * @param groupName The name used when reporting, e.g. the mechanism
+     * @param timeoutSecs The timeout of every apply and refresh (Seconds)
+     * @param maxAttempts The number of times a configuration is applied before giving up
+     */
+    public DeviceBringUp( String groupName, double timeoutSecs, int maxAttempts ) {
+        this.groupName = groupName; 
+        this.timeoutSecs = timeoutSecs; 
+        this.maxAttempts = maxAttempts; 
+    }
+
+    /**
+     * Adds a motor to bring up
+     * @param name The name of the motor
+     * @param motor The motor
+     * @param config The configuration the motor must have, it must not be changed until run() returns
+     * @return This bring up, for chaining
+     */
+    public DeviceBringUp add( String name, TalonFX motor, TalonFXConfiguration config ) {
+        TalonFXConfiguration readBack = new TalonFXConfiguration(); 
+        devices.add( new Device( name,
+            timeout -> motor.getConfigurator().apply( config, timeout ),
+            timeout -> motor.getConfigurator().refresh( readBack, timeout ),
+            config.serialize(), readBack::serialize ) ); 
+        return this; 
+    }
+
+    /**
+     * Adds an encoder to bring up
+     * @param name The name of the encoder
+     * @param encoder The encoder
+     * @param config The configuration the encoder must have, it must not be changed until run() returns
+     * @return This bring up, for chaining
+     */
+    public DeviceBringUp add( String name, CANcoder encoder, CANcoderConfiguration config ) {
+        CANcoderConfiguration readBack = new CANcoderConfiguration(); 
+        devices.add( new Device( name,
+            timeout -> encoder.getConfigurator().apply( config, timeout ),
+            timeout -> encoder.getConfigurator().refresh( readBack, timeout ),
+            config.serialize(), readBack::serialize ) ); 
+        return this; 
+    }
+
+    /**
+     * Brings up all the devices in parallel and waits for them to finish.
+     * A device that could not be configured is reported as an error, it does not stop the others.
+     * @return The outcome of every device, in the order they were added
+     */
+    public List<Result> run() {
+        long startNanos = System.nanoTime(); 
+        ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, devices.size() ), runnable -> {
+            Thread thread = new Thread( runnable, groupName + " Bring Up" ); 
+            thread.setDaemon( true ); 
+            return thread; 
+        } ); 
+
+        List<Result> results = new ArrayList<>(); 
+        try {
+            List<Callable<Result>> tasks = new ArrayList<>(); 
+            for ( Device device : devices ) {
+                tasks.add( () -> bringUp( device ) ); 
+            }
+            List<Future<Result>> futures = executor.invokeAll( tasks ); 
+            for ( int i = 0; i < futures.size(); i++ ) {
+                try {
+                    results.add( futures.get( i ).get() ); 
+                }
+                catch ( ExecutionException e ) {
+                    DriverStation.reportError( groupName + ": " + devices.get( i ).name() + " bring up failed", e.getCause().getStackTrace() ); 
+                    results.add( new Result( devices.get( i ).name(), false, false, 0, 0.0, null ) ); 
+                }
+            }
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt(); 
+        }
+        finally {
+            executor.shutdownNow(); 
+        }
+
+        report( results, ( System.nanoTime() - startNanos ) / 1e9 ); 
+        return results; 
+    }
+
+    /**
+     * Brings up one device, runs on a thread of the executor
+     */
+    private Result bringUp( Device device ) {
+        long startNanos = System.nanoTime(); 
+
+        // Skip applying if the device already has the configuration (e.g. after a code restart)
+        StatusCode status = device.refresh().apply( timeoutSecs ); 
+        if ( status.isOK() && matches( device.desired(), device.actual().get() ) ) {
+            return new Result( device.name(), true, true, 0, ( System.nanoTime() - startNanos ) / 1e9, status ); 
+        }
+
+        int attempts = 0; 
+        boolean verified = false; 
+        while ( !verified && attempts < maxAttempts ) {
+            attempts++; 
+            status = device.apply().apply( timeoutSecs ); 
+            if ( status.isOK() ) {
+                status = device.refresh().apply( timeoutSecs ); 
+                verified = status.isOK() && matches( device.desired(), device.actual().get() ); 
+            }
+        }
+        return new Result( device.name(), false, verified, attempts, ( System.nanoTime() - startNanos ) / 1e9, status ); 
+    }
+
+    /**
+     * Compares two serialized configurations, numbers only need to match within the tolerance.
+     * Anything that does not look like a list of "key:value;" pairs is compared exactly.
+     */
+    private static boolean matches( String desired, String actual ) {
+        if ( desired.equals( actual ) ) {
+            return true; 
+        }
+        String[] desiredPairs = desired.split( ";" ); 
+        String[] actualPairs = actual.split( ";" ); 
+        if ( desiredPairs.length != actualPairs.length ) {
+            return false; 
+        }
+        for ( int i = 0; i < desiredPairs.length; i++ ) {
+            if ( desiredPairs[i].equals( actualPairs[i] ) ) {
+                continue; 
+            }
+            int desiredSplit = desiredPairs[i].lastIndexOf( ':' ); 
+            int actualSplit = actualPairs[i].lastIndexOf( ':' ); 
+            if ( desiredSplit < 0 || actualSplit < 0
+                 || !desiredPairs[i].substring( 0, desiredSplit ).equals( actualPairs[i].substring( 0, actualSplit ) ) ) {
+                return false; 
+            }
+            try {
+                double desiredValue = Double.parseDouble( desiredPairs[i].substring( desiredSplit + 1 ) ); 
+                double actualValue = Double.parseDouble( actualPairs[i].substring( actualSplit + 1 ) ); 
+                double tolerance = Math.max( ABSOLUTE_TOLERANCE, RELATIVE_TOLERANCE * Math.abs( desiredValue ) ); 
+                if ( Math.abs( desiredValue - actualValue ) > tolerance ) {
+                    return false; 
+                }
+            }
+            catch ( NumberFormatException e ) {
+                return false; 
+            }
+        }
+        return true; 
+    }
+
+    /**
+     * Reports the time spent on every device to the Driver Station, as an error if any device 
+     * could not be configured
+     */
+    private void report( List<Result> results, double totalSecs ) {
+        StringBuilder summary = new StringBuilder( groupName ).append( " bring up: " )
+            .append( String.format( "%.1f ms", totalSecs * 1000.0 ) ); 
+        boolean failed = false; 
+        for ( Result result : results ) {
+            String outcome = result.skipped() ? "already configured"
+                : result.verified() ? "applied, attempt " + result.attempts() : "could not be configured (" + result.status() + ")"; 
+            summary.append( String.format( "%n  %s: %s in %.1f ms", result.name(), outcome, result.elapsedSecs() * 1000.0 ) ); 
+            failed |= !result.verified(); 
+        }
+        if ( failed ) {
+            DriverStation.reportError( summary.toString(), false ); 
+        }
+        else {
+            DriverStation.reportWarning( summary.toString(), false ); 
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/**
+ * @file InputLatencyTracer.java
+ * @brief Traces the time from an operator input to the mechanism moving, stage by stage
+ */
+
+package frc.robot.util;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+import com.ctre.phoenix6.Utils;
+
+import edu.wpi.first.hal.DriverStationJNI;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.util.WPIUtilJNI;
+
+/**
+ * Stamps each stage between a button press and the mechanism moving, so the latency can be
+ * broken down and the stage that adds the most can be found:
+ *
+ *   DS_PACKET - the Driver Station packet that carried the press arrived
+ *   SCHEDULER_POLL - the scheduler polled the button and saw the press
+ *   COMMAND_INIT - the bound command started and set the new target
+ *   IO_WRITE - the subsystem wrote the new request to its IO
+ *   CAN_FRAME - the first status frame from the motor showed its output change
+ *   ENCODER_MOVE - the first encoder sample showed the mechanism move
+ *
+ * A trace starts when a traced button is pressed. The rest of the stages are stamped the first
+ * time they happen after that, and the trace ends at ENCODER_MOVE or after TRACE_TIMEOUT_SECS
+ * (e.g. a move to where the arm already is). The stamps go into a preallocated ring of the last
+ * RING_CAPACITY traces, and the time between each stage and the one before it goes into a
+ * LoopTimingStats. Nothing allocates after construction.
+ *
+ * Phoenix does not timestamp the request frame it sends, so the CAN_FRAME stage is the status
+ * frame that reports the new output. All the stamps are in the Phoenix timebase, the same as the
+ * timestamps of the status signals. In simulation the devices run on the virtual clock, so there
+ * the device stages are stamped when the robot loop sees them.
+ */
+public class InputLatencyTracer {
+    /**
+     * The stages of a trace, in the order they happen
+     */
+    public enum Stage {
+        DS_PACKET( "DSPacket" ),
+        SCHEDULER_POLL( "SchedulerPoll" ),
+        COMMAND_INIT( "CommandInit" ),
+        IO_WRITE( "IOWrite" ),
+        CAN_FRAME( "CANFrame" ),
+        ENCODER_MOVE( "EncoderMove" ); 
+
+        private final String displayName; 
+
+        Stage( String displayName ) {
+            this.displayName = displayName; 
+        }
+    }
+
+    // Trace Settings
+    public static final int RING_CAPACITY = 64; 
+    public static final double TRACE_TIMEOUT_SECS = 1.0; 
+    private static final int STAGE_COUNT = Stage.values().length; 
+    private static final Stage[] STAGES = Stage.values(); 
+
+    // Statistic Settings - the last 50 traces, 0.5 ms buckets up to 250 ms
+    private static final int WINDOW_SIZE = 50; 
+    private static final long BUCKET_WIDTH_NANOS = 500_000; 
+    private static final long MAX_NANOS = 250_000_000; 
+
+    // Decleration
+    private final boolean useDeviceTimestamps; 
+    private final double[] stamps = new double[RING_CAPACITY * STAGE_COUNT]; // Seconds, NaN when the stage was not stamped
+    private int traceIndex; 
+    private boolean tracing; 
+    private long completedTraces; 
+    private long timedOutTraces; 
+
+    // Time Between Each Stage and the One Before It, the first entry is the whole trace
+    private final LoopTimingStats[] stageStats = new LoopTimingStats[STAGE_COUNT]; 
+
+    // Driver Station Packets - written by the listener thread
+    private volatile double lastPacketSecs = Double.NaN; 
+    private Thread packetListener; 
+
+    // Dashboard - null when not publishing
+    private final DoublePublisher[] lastMsPublishers; 
+    private final DoublePublisher[] p99MsPublishers; 
+    private final IntegerPublisher completedPublisher; 
+    private final IntegerPublisher timedOutPublisher; 
+
+    /**
+     * Creates the tracer, call startPacketListener() to also stamp the Driver Station packets
+     * @param table The table to publish the breakdown to, or null to not publish
+     * @param useDeviceTimestamps True to stamp the device stages with the timestamps of the
+     *                            status frames, false when the devices run on another clock (simulation)
+     */
+    public InputLatencyTracer( NetworkTable table, boolean useDeviceTimestamps ) {
+        this.useDeviceTimestamps = useDeviceTimestamps; 
+        Arrays.fill( stamps, Double.NaN ); 
+        for ( int i = 0; i < STAGE_COUNT; i++ ) {
+            stageStats[i] = new LoopTimingStats( WINDOW_SIZE, BUCKET_WIDTH_NANOS, MAX_NANOS ); 
+        }
+
+        if ( table == null ) {
+            lastMsPublishers = null; 
+            p99MsPublishers = null; 
+            completedPublisher = null; 
+            timedOutPublisher = null; 
+            return; 
+        }
+        lastMsPublishers = new DoublePublisher[STAGE_COUNT]; 
+        p99MsPublishers = new DoublePublisher[STAGE_COUNT]; 
+        for ( int i = 0; i < STAGE_COUNT; i++ ) {
+            // The DS packet has no stage before it, its entry is the whole trace
+            String name = i == 0 ? "Total" : STAGES[i].displayName; 
+            lastMsPublishers[i] = table.getDoubleTopic( name + "LastMs" ).publish(); 
+            p99MsPublishers[i] = table.getDoubleTopic( name + "P99Ms" ).publish(); 
+        }
+        completedPublisher = table.getIntegerTopic( "Completed" ).publish(); 
+        timedOutPublisher = table.getIntegerTopic( "TimedOut" ).publish(); 
+    }
+
+    /**
+     * Starts a daemon thread that stamps every Driver Station packet as it arrives, waiting on the
+     * HAL new data event rather than polling
+     */
+    public void startPacketListener() {
+        if ( packetListener != null ) {
+            return; 
+        }
+        int event = WPIUtilJNI.createEvent( false, false ); 
+        DriverStationJNI.provideNewDataEventHandle( event ); 
+        packetListener = new Thread( () -> {
+            try {
+                while ( !Thread.currentThread().isInterrupted() ) {
+                    WPIUtilJNI.waitForObject( event ); 
+                    lastPacketSecs = Utils.getCurrentTimeSeconds(); 
+                }
+            }
+            catch ( InterruptedException e ) {
+                Thread.currentThread().interrupt(); 
+            }
+            finally {
+                DriverStationJNI.removeNewDataEventHandle( event ); 
+                WPIUtilJNI.destroyEvent( event ); 
+            }
+        }, "DSPacketListener" ); 
+        packetListener.setDaemon( true ); 
+        packetListener.start(); 
+    }
+
+    /**
+     * Wraps a button so pressing it starts a trace. The button is read once per poll as before.
+     * @param button The button, e.g. controller.a()
+     * @return The button, to bind commands to through a Trigger
+     */
+    public BooleanSupplier trace( BooleanSupplier button ) {
+        return new BooleanSupplier() {
+            private boolean wasPressed; 
+
+            @Override
+            public boolean getAsBoolean() {
+                boolean pressed = button.getAsBoolean(); 
+                if ( pressed && !wasPressed ) {
+                    start(); 
+                }
+                wasPressed = pressed; 
+                return pressed; 
+            }
+        }; 
+    }
+
+    /**
+     * @param stage The stage
+     * @return True if a trace is running and the stage has not been stamped yet
+     */
+    public boolean isWaitingFor( Stage stage ) {
+        return tracing && Double.isNaN( stamps[traceIndex * STAGE_COUNT + stage.ordinal()] ); 
+    }
+
+    /**
+     * Stamps a stage with the current time, if the running trace is waiting for it
+     * @param stage The stage
+     */
+    public void mark( Stage stage ) {
+        mark( stage, Utils.getCurrentTimeSeconds() ); 
+    }
+
+    /**
+     * Stamps a device stage with the timestamp of the frame that showed it, if the running trace
+     * is waiting for it. Ending the trace at ENCODER_MOVE.
+     * @param stage The stage
+     * @param deviceTimestampSecs The timestamp of the status frame (Seconds)
+     */
+    public void markDevice( Stage stage, double deviceTimestampSecs ) {
+        mark( stage, useDeviceTimestamps ? deviceTimestampSecs : Utils.getCurrentTimeSeconds() ); 
+    }
+
+    /**
+     * Ends a trace that has run for longer than TRACE_TIMEOUT_SECS, called once per loop
+     */
+    public void update() {
+        if ( tracing && Utils.getCurrentTimeSeconds() - stamps[traceIndex * STAGE_COUNT + Stage.SCHEDULER_POLL.ordinal()] > TRACE_TIMEOUT_SECS ) {
+            tracing = false; 
+            timedOutTraces++; 
+            traceIndex = ( traceIndex + 1 ) % RING_CAPACITY; 
+            if ( timedOutPublisher != null ) {
+                timedOutPublisher.set( timedOutTraces ); 
+            }
+        }
+    }
+
+    /**
+     * @param tracesAgo 0 for the last finished trace, 1 for the one before it...
+     * @param stage The stage
+     * @return The stamp of the stage (Seconds), NaN if it was not stamped
+     */
+    public double getStampSecs( int tracesAgo, Stage stage ) {
+        int index = Math.floorMod( traceIndex - 1 - tracesAgo, RING_CAPACITY ); 
+        return stamps[index * STAGE_COUNT + stage.ordinal()]; 
+    }
+
+    /**
+     * @param stage The stage
+     * @return The time from the stage before to this stage over the last traces, or of the whole
+     *         trace for DS_PACKET
+     */
+    public LoopTimingStats getStageStats( Stage stage ) {
+        return stageStats[stage.ordinal()]; 
+    }
+
+    /**
+     * @return The number of traces that reached ENCODER_MOVE
+     */
+    public long getCompletedTraces() {
+        return completedTraces; 
+    }
+
+    /**
+     * @return The number of traces that ended at the timeout
+     */
+    public long getTimedOutTraces() {
+        return timedOutTraces; 
+    }
+
+    /**
+     * Starts a trace at the scheduler poll, dropping a trace that was still running
+     */
+    private void start() {
+        double nowSecs = Utils.getCurrentTimeSeconds(); 
+        if ( tracing ) {
+            timedOutTraces++; 
+            traceIndex = ( traceIndex + 1 ) % RING_CAPACITY; 
+        }
+        int base = traceIndex * STAGE_COUNT; 
+        for ( int i = 0; i < STAGE_COUNT; i++ ) {
+            stamps[base + i] = Double.NaN; 
+        }
+        // The last packet before the poll, NaN until the listener has seen one
+        double packetSecs = lastPacketSecs; 
+        stamps[base + Stage.DS_PACKET.ordinal()] = packetSecs <= nowSecs ? packetSecs : Double.NaN; 
+        stamps[base + Stage.SCHEDULER_POLL.ordinal()] = nowSecs; 
+        tracing = true; 
+    }
+
+    private void mark( Stage stage, double timestampSecs ) {
+        if ( !isWaitingFor( stage ) ) {
+            return; 
+        }
+        stamps[traceIndex * STAGE_COUNT + stage.ordinal()] = timestampSecs; 
+        if ( stage == Stage.ENCODER_MOVE ) {
+            finish(); 
+        }
+    }
+
+    /**
+     * Records the time between the stages of the finished trace and publishes them
+     */
+    private void finish() {
+        int base = traceIndex * STAGE_COUNT; 
+        double firstSecs = Double.isNaN( stamps[base] ) ? stamps[base + Stage.SCHEDULER_POLL.ordinal()] : stamps[base]; 
+        stageStats[0].record( toNanos( stamps[base + STAGE_COUNT - 1] - firstSecs ) ); 
+        for ( int i = 1; i < STAGE_COUNT; i++ ) {
+            // A stage that was not stamped leaves out both of its gaps rather than merging them
+            double stampSecs = stamps[base + i]; 
+            double previousSecs = stamps[base + i - 1]; 
+            if ( !Double.isNaN( stampSecs ) && !Double.isNaN( previousSecs ) ) {
+                stageStats[i].record( toNanos( stampSecs - previousSecs ) ); 
+            }
+        }
+        tracing = false; 
+        completedTraces++; 
+        traceIndex = ( traceIndex + 1 ) % RING_CAPACITY; 
+        publish(); 
+    }
+
+    /**
+     * Publishes the breakdown to NetworkTables, once per finished trace
+     */
+    private void publish() {
+        if ( lastMsPublishers == null ) {
+            return; 
+        }
+        for ( int i = 0; i < STAGE_COUNT; i++ ) {
+            lastMsPublishers[i].set( stageStats[i].getLastNanos() / 1e6 ); 
+            p99MsPublishers[i].set( stageStats[i].getPercentileNanos( 0.99 ) / 1e6 ); 
+        }
+        completedPublisher.set( completedTraces ); 
+    }
+
+    private static long toNanos( double secs ) {
+        return (long) ( secs * 1e9 ); 
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * @file LoopTimingStats.java
+ * @brief Sliding window statistics of how long a section of the robot loop takes
+ */
+
+package frc.robot.util;
+
+/**
+ * Keeps the last N timings of a section of the robot loop in a fixed size histogram. 
+ * 
+ * Recording a timing is O(1) and never allocates: the timing is stored in a ring of the last N 
+ * samples and counted in its histogram bucket, and the sample it replaces is removed from its 
+ * bucket. The max and percentiles are only worked out when asked for, which is meant to happen 
+ * at a low rate (e.g. when publishing to the dashboard). 
+ */
+public class LoopTimingStats {
+    // Histogram Settings
+    private final long bucketWidthNanos; 
+    private final int[] bucketCounts; // The last bucket also holds everything above the range
+
+    // Sliding Window
+    private final long[] windowNanos; 
+    private int windowIndex; 
+    private int windowCount; 
+
+    // Lifetime Stats
+    private long lastNanos; 
+    private long totalSamples; 
+
+    /**
+     * Creates the statistics
+     * @param windowSize The number of most recent timings that the statistics cover
+     * @param bucketWidthNanos The resolution of the histogram (Nanoseconds)
+     * @param maxNanos The largest timing that is resolved, anything larger is counted as this (Nanoseconds)
+     */
+    public LoopTimingStats( int windowSize, long bucketWidthNanos, long maxNanos ) {
+        this.bucketWidthNanos = bucketWidthNanos; 
+        this.bucketCounts = new int[(int) ( maxNanos / bucketWidthNanos ) + 1]; 
+        this.windowNanos = new long[windowSize]; 
+    }
+
+    /**
+     * Records the timing of one loop
+     * @param nanos How long the section took (Nanoseconds)
+     */
+    public void record( long nanos ) {
+        if ( windowCount == windowNanos.length ) {
+            // Window is full, the oldest timing leaves the histogram
+            bucketCounts[bucketOf( windowNanos[windowIndex] )]--; 
+        } 
+        else {
+            windowCount++; 
+        }
+        windowNanos[windowIndex] = nanos; 
+        bucketCounts[bucketOf( nanos )]++; 
+        windowIndex = ( windowIndex + 1 ) % windowNanos.length; 
+
+        lastNanos = nanos; 
+        totalSamples++; 
+    }
+
+    /**
+     * @return The most recent timing (Nanoseconds)
+     */
+    public long getLastNanos() {
+        return lastNanos; 
+    }
+
+    /**
+     * @return The longest timing in the window (Nanoseconds)
+     */
+    public long getMaxNanos() {
+        long max = 0; 
+        for ( int i = 0; i < windowCount; i++ ) {
+            max = Math.max( max, windowNanos[i] ); 
+        }
+        return max; 
+    }
+
+    /**
+     * Works out a percentile of the window from the histogram
+     * @param percentile The percentile, between 0 and 1 (e.g. 0.99)
+     * @return The upper edge of the bucket that holds the percentile (Nanoseconds)
+     */
+    public long getPercentileNanos( double percentile ) {
+        if ( windowCount == 0 ) {
+            return 0; 
+        }
+        long rank = (long) Math.ceil( percentile * windowCount ); 
+        long cumulative = 0; 
+        for ( int bucket = 0; bucket < bucketCounts.length; bucket++ ) {
+            cumulative += bucketCounts[bucket]; 
+            if ( cumulative >= rank ) {
+                return ( bucket + 1 ) * bucketWidthNanos; 
+            }
+        }
+        return bucketCounts.length * bucketWidthNanos; 
+    }
+
+    /**
+     * @return The number of timings recorded since the statistics were created
+     */
+    public long getTotalSamples() {
+        return totalSamples; 
+    }
+
+    /**
+     * Finds the histogram bucket of a timing
+     */
+    private int bucketOf( long nanos ) {
+        return (int) Math.min( Math.max( nanos, 0 ) / bucketWidthNanos, bucketCounts.length - 1 ); 
+    }
+}
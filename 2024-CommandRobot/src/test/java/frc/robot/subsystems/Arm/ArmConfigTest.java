@@ -0,0 +1,57 @@
+/**
+ * @file ArmConfigTest.java
+ * @brief Checks which file the gains of the Arm are loaded from
+ */
+
+package frc.robot.subsystems.Arm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The deployed arm.properties must win over the arm_gains.properties a SysId run left in the
+ * operating directory, unless it opts in with ArmConfig.SYSID_GAINS_KEY.
+ */
+class ArmConfigTest {
+    @Test
+    void deployedGainsWinWithoutTheOptIn() throws IOException {
+        Path directory = Files.createTempDirectory( "armConfig" ); 
+        Path configPath = Files.writeString( directory.resolve( ArmConfig.CONFIG_FILE_NAME ), "slot1.kG=0.5\n" ); 
+        Path sysIdGainsPath = Files.writeString( directory.resolve( ArmConfig.SYSID_GAINS_FILE_NAME ), "slot1.kG=0.9\n" ); 
+
+        ArmConfig config = ArmConfig.load( configPath, sysIdGainsPath ); 
+
+        assertEquals( 0.5, config.gains().slot1().kG() ); 
+        assertEquals( "arm.properties (arm_gains.properties ignored, sysIdGains.apply is not true)", config.gainsSource() ); 
+    }
+
+    @Test
+    void sysIdGainsApplyOnceOptedIn() throws IOException {
+        Path directory = Files.createTempDirectory( "armConfig" ); 
+        Path configPath = Files.writeString( directory.resolve( ArmConfig.CONFIG_FILE_NAME ),
+                                             "slot1.kG=0.5\nslot1.kP=40\n" + ArmConfig.SYSID_GAINS_KEY + "=true\n" ); 
+        Path sysIdGainsPath = Files.writeString( directory.resolve( ArmConfig.SYSID_GAINS_FILE_NAME ), "slot1.kG=0.9\n" ); 
+
+        ArmConfig config = ArmConfig.load( configPath, sysIdGainsPath ); 
+
+        assertEquals( 0.9, config.gains().slot1().kG() ); 
+        assertEquals( 40.0, config.gains().slot1().kP() ); // Not in the SysId file, kept from the deploy file
+        assertEquals( "arm_gains.properties over arm.properties", config.gainsSource() ); 
+    }
+
+    @Test
+    void missingFilesKeepTheDefaults() throws IOException {
+        Path directory = Files.createTempDirectory( "armConfig" ); 
+
+        ArmConfig config = ArmConfig.load( directory.resolve( ArmConfig.CONFIG_FILE_NAME ),
+                                           directory.resolve( ArmConfig.SYSID_GAINS_FILE_NAME ) ); 
+
+        assertEquals( ArmConfig.DEFAULTS, config ); 
+        assertEquals( "ArmConstants", config.gainsSource() ); 
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * @file ArmEncoderHealthTest.java
+ * @brief Checks that a stalled robot loop is not mistaken for a lost encoder
+ */
+
+package frc.robot.subsystems.Arm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Feeds an ArmSampleBuffer the way the sampling thread does and checks the encoder the way 
+ * ArmDefinition does, including a robot loop that stalls for longer than the buffer holds (e.g. 
+ * at boot or in a collection pause).
+ */
+class ArmEncoderHealthTest {
+    private static final double SAMPLE_PERIOD_SECS = 1.0 / ArmConstants.SAMPLE_FREQUENCY_HZ; 
+    private static final int SAMPLES_PER_LOOP = (int) Math.round( ArmConstants.LOOP_PERIOD_SECS / SAMPLE_PERIOD_SECS ); 
+    private static final double STALL_SECS = 1.0; // Far longer than the 64 samples of the buffer
+
+    @Test
+    void aStalledLoopDoesNotLoseTheEncoder() {
+        ArmSampleBuffer buffer = new ArmSampleBuffer( ArmConstants.SAMPLE_BUFFER_CAPACITY ); 
+        ArmEncoderHealth health = new ArmEncoderHealth(); 
+        ArmIO.ArmIOInputs inputs = new ArmIO.ArmIOInputs(); 
+        int sample = 0; 
+
+        for ( int loop = 0; loop < 10; loop++ ) {
+            for ( int i = 0; i < SAMPLES_PER_LOOP; i++, sample++ ) {
+                buffer.offer( sample * SAMPLE_PERIOD_SECS, 0.0, 0.0 ); 
+            }
+            buffer.drainTo( inputs ); 
+            assertTrue( health.update( sample * SAMPLE_PERIOD_SECS, buffer.getNewestTimestampSecs(), false ) ); 
+        }
+
+        // The loop stalls while the sampling thread keeps going
+        int stallSamples = (int) Math.round( STALL_SECS / SAMPLE_PERIOD_SECS ); 
+        assertTrue( stallSamples > ArmConstants.SAMPLE_BUFFER_CAPACITY ); 
+        for ( int i = 0; i < stallSamples; i++, sample++ ) {
+            buffer.offer( sample * SAMPLE_PERIOD_SECS, 0.0, 0.0 ); 
+        }
+        double nowSecs = sample * SAMPLE_PERIOD_SECS; 
+        int count = buffer.drainTo( inputs ); 
+
+        assertTrue( health.update( nowSecs, buffer.getNewestTimestampSecs(), false ), "Encoder lost after a stalled loop" ); 
+        assertEquals( ( sample - 1 ) * SAMPLE_PERIOD_SECS, inputs.sampleTimestampsSecs[count - 1], 1e-9, "Not the newest sample" ); 
+    }
+
+    @Test
+    void bootTimeoutStartsAtTheFirstCheck() {
+        ArmEncoderHealth health = new ArmEncoderHealth(); 
+        double firstLoopSecs = 5.0; // The robot took a while to get to its first loop
+        assertTrue( health.update( firstLoopSecs, Double.NaN, false ) ); 
+        assertTrue( health.update( firstLoopSecs + ArmConstants.ENCODER_BOOT_TIMEOUT_SECS * 0.9, Double.NaN, false ) ); 
+        assertFalse( health.update( firstLoopSecs + ArmConstants.ENCODER_BOOT_TIMEOUT_SECS * 1.1, Double.NaN, false ) ); 
+        assertFalse( health.hasSample() ); 
+    }
+
+    @Test
+    void staleSamplesLoseTheEncoderForGood() {
+        ArmEncoderHealth health = new ArmEncoderHealth(); 
+        assertTrue( health.update( 1.0, 1.0, false ) ); 
+        assertFalse( health.update( 1.0 + ArmConstants.ENCODER_STALE_SECS * 2, 1.0, false ) ); 
+        assertFalse( health.update( 2.0, 2.0, false ), "A lost encoder was trusted again" ); 
+    }
+}
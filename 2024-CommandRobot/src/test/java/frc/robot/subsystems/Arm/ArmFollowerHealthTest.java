@@ -0,0 +1,62 @@
+/**
+ * @file ArmFollowerHealthTest.java
+ * @brief Checks the follower check shared by the Arm and every RotaryMechanism
+ */
+
+package frc.robot.subsystems.Arm;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+
+/**
+ * A follower is dropped on the first failed check and only trusted again once it has passed the
+ * checks for the whole recovery time, so one that drops in and out does not turn the leader on
+ * and off.
+ */
+class ArmFollowerHealthTest {
+    private static final double RECOVERY_SECS = 0.5; 
+    private static final double LOOP_SECS = ArmConstants.LOOP_PERIOD_SECS; 
+
+    @BeforeAll
+    static void setUp() {
+        HAL.initialize( 500, 0 ); 
+    }
+
+    @Test
+    void healthyUntilTheFirstFailedCheck() {
+        ArmFollowerHealth health = new ArmFollowerHealth( "Test", RECOVERY_SECS ); 
+        assertTrue( health.update( 0.0, true ) ); 
+        assertTrue( health.update( LOOP_SECS, true ) ); 
+        assertFalse( health.update( 2 * LOOP_SECS, false ) ); 
+        assertFalse( health.isHealthy() ); 
+    }
+
+    @Test
+    void recoversOnlyAfterTheRecoveryTime() {
+        ArmFollowerHealth health = new ArmFollowerHealth( "Test", RECOVERY_SECS ); 
+        double nowSecs = 0.0; 
+        health.update( nowSecs, false ); 
+
+        // Passing every check, but not yet for the whole recovery time
+        int loops = (int) Math.round( RECOVERY_SECS / LOOP_SECS ); 
+        for ( int i = 1; i < loops; i++ ) {
+            nowSecs = i * LOOP_SECS; 
+            assertFalse( health.update( nowSecs, true ), "Recovered after " + nowSecs + " s" ); 
+        }
+        assertTrue( health.update( loops * LOOP_SECS, true ) ); 
+    }
+
+    @Test
+    void aFollowerThatDropsInAndOutStaysLost() {
+        ArmFollowerHealth health = new ArmFollowerHealth( "Test", RECOVERY_SECS ); 
+        // Failing one loop in every five, for far longer than the recovery time
+        for ( int i = 0; i < 200; i++ ) {
+            assertFalse( health.update( i * LOOP_SECS, i % 5 != 0 ), "Recovered at loop " + i ); 
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * @file ArmGainSweep.java
+ * @brief Runs the simulated arm over a grid of gains and Motion Magic constraints and ranks them
+ */
+
+package frc.robot.subsystems.Arm;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import edu.wpi.first.hal.HAL;
+
+/**
+ * Finds good gains on the desktop instead of trying one change at a time on the robot.
+ *
+ * The grid file has the same keys as arm.properties, each with a comma separated list of values
+ * to try. Every combination of the values is one config, and every key that is not in the grid
+ * keeps its value from the base config:
+ *
+ *   slot0.kP=40,60,80
+ *   slot1.kP=40,60,80
+ *   motionMagic.cruiseVelocity=0.8,1.0,1.2
+ *
+ * Each config moves the simulated arm through every Motion Magic scenario of ArmSimHarness, on
+ * an arm whose feedforward is the Slot 1 feedforward of the base config (the arm as identified,
+ * whatever the grid does to the gains). The configs are split across a ForkJoinPool until each
+ * task is one config. A task only reads the immutable config and scenarios and builds its own
+ * subsystem and simulated arm, so nothing mutable is shared between threads.
+ *
+ * The configs are ranked by a cost in seconds: the mean settle time of the moves (a move that
+ * does not settle counts as the whole run), plus a penalty for the worst overshoot and for the
+ * peak current. Run it with ./gradlew sweepArmGains, the best config is written out in the
+ * format of arm.properties to be copied into the deploy directory.
+ */
+public final class ArmGainSweep {
+    /**
+     * How one config did over all the scenarios
+     * @param config The gains and Motion Magic constraints
+     * @param unsettledMoves The number of moves that did not settle
+     * @param meanSettleTimeSecs The mean settle time, a move that did not settle counts as the whole run (Seconds)
+     * @param maxOvershootRads The worst overshoot of any move (Radians)
+     * @param peakCurrentAmps The highest stator current of any move (Amps)
+     * @param cost The ranking cost, lower is better (Seconds)
+     */
+    public record Candidate( ArmConfig config, int unsettledMoves, double meanSettleTimeSecs, double maxOvershootRads,
+                             double peakCurrentAmps, double cost ) {}
+
+    // Ranking Penalties - 0.01 rad of overshoot costs as much as 0.1 s of settling, 100 A as much as 0.5 s
+    public static final double OVERSHOOT_COST_SECS_PER_RAD = 10.0; 
+    public static final double CURRENT_COST_SECS_PER_AMP = 0.005; 
+
+    // The number of configs printed
+    private static final int PRINTED_CANDIDATES = 10; 
+
+    private ArmGainSweep() {}
+
+    /**
+     * Makes every combination of the values in the grid
+     * @param grid Keys of arm.properties, each with a comma separated list of values
+     * @param base The config that every key not in the grid is taken from
+     * @return The configs
+     * @throws IllegalArgumentException If a value is not a number or a combination has invalid constraints
+     */
+    public static List<ArmConfig> expand( Properties grid, ArmConfig base ) {
+        List<String> keys = new ArrayList<>( grid.stringPropertyNames() ); 
+        keys.sort( null ); 
+        List<Properties> combinations = new ArrayList<>(); 
+        combinations.add( new Properties() ); 
+        for ( String key : keys ) {
+            List<Properties> expanded = new ArrayList<>(); 
+            for ( Properties combination : combinations ) {
+                for ( String value : grid.getProperty( key ).split( "," ) ) {
+                    Properties next = new Properties(); 
+                    next.putAll( combination ); 
+                    next.setProperty( key, value.trim() ); 
+                    expanded.add( next ); 
+                }
+            }
+            combinations = expanded; 
+        }
+
+        List<ArmConfig> configs = new ArrayList<>(); 
+        for ( Properties combination : combinations ) {
+            configs.add( ArmConfig.fromProperties( combination, base ) ); 
+        }
+        return configs; 
+    }
+
+    /**
+     * Runs every config over the scenarios on all the cores and ranks them
+     * @param configs The configs to try
+     * @param scenarios The moves every config is run through
+     * @param plant The feedforward of the simulated arm
+     * @return The configs, best first
+     */
+    public static List<Candidate> sweep( List<ArmConfig> configs, List<ArmSimHarness.Scenario> scenarios, ArmGains.Slot plant ) {
+        // The common pool has a worker per core less one, the calling thread works as the last one
+        List<Candidate> candidates = ForkJoinPool.commonPool().invoke( new SweepTask( configs, 0, configs.size(), scenarios, plant ) ); 
+        List<Candidate> ranked = new ArrayList<>( candidates ); 
+        ranked.sort( Comparator.comparingDouble( Candidate::cost ) ); 
+        return ranked; 
+    }
+
+    /**
+     * Runs one config over every scenario
+     * @param config The config
+     * @param scenarios The moves to run
+     * @param plant The feedforward of the simulated arm
+     * @return How the config did
+     */
+    public static Candidate evaluate( ArmConfig config, List<ArmSimHarness.Scenario> scenarios, ArmGains.Slot plant ) {
+        int unsettledMoves = 0; 
+        double totalSettleTimeSecs = 0.0; 
+        double maxOvershootRads = 0.0; 
+        double peakCurrentAmps = 0.0; 
+        for ( ArmSimHarness.Scenario scenario : scenarios ) {
+            ArmSimHarness.Result result = ArmSimHarness.run( scenario, config, plant ); 
+            if ( !result.settled() ) {
+                unsettledMoves++; 
+            }
+            totalSettleTimeSecs += result.settleTimeSecs(); 
+            maxOvershootRads = Math.max( maxOvershootRads, result.overshootRads() ); 
+            peakCurrentAmps = Math.max( peakCurrentAmps, result.peakCurrentAmps() ); 
+        }
+        double meanSettleTimeSecs = totalSettleTimeSecs / scenarios.size(); 
+        double cost = meanSettleTimeSecs + OVERSHOOT_COST_SECS_PER_RAD * maxOvershootRads + CURRENT_COST_SECS_PER_AMP * peakCurrentAmps; 
+        return new Candidate( config, unsettledMoves, meanSettleTimeSecs, maxOvershootRads, peakCurrentAmps, cost ); 
+    }
+
+    /**
+     * Splits a range of the configs in half until it is one config, then evaluates it
+     */
+    private static final class SweepTask extends RecursiveTask<List<Candidate>> {
+        private final List<ArmConfig> configs; 
+        private final int from; 
+        private final int to; 
+        private final List<ArmSimHarness.Scenario> scenarios; 
+        private final ArmGains.Slot plant; 
+
+        SweepTask( List<ArmConfig> configs, int from, int to, List<ArmSimHarness.Scenario> scenarios, ArmGains.Slot plant ) {
+            this.configs = configs; 
+            this.from = from; 
+            this.to = to; 
+            this.scenarios = scenarios; 
+            this.plant = plant; 
+        }
+
+        @Override
+        protected List<Candidate> compute() {
+            if ( to - from <= 1 ) {
+                return from < to ? List.of( evaluate( configs.get( from ), scenarios, plant ) ) : List.of(); 
+            }
+            int middle = ( from + to ) >>> 1; 
+            SweepTask lower = new SweepTask( configs, from, middle, scenarios, plant ); 
+            lower.fork(); 
+            List<Candidate> upper = new SweepTask( configs, middle, to, scenarios, plant ).compute(); 
+            List<Candidate> merged = new ArrayList<>( lower.join() ); 
+            merged.addAll( upper ); 
+            return merged; 
+        }
+    }
+
+    /**
+     * Sweeps the grid and writes out the best config.
+     * Usage: ArmGainSweep &lt;grid.properties&gt; &lt;arm.properties&gt; &lt;best.properties&gt; 
+     * @param args The grid, the base config and the file to write the best config to
+     * @throws IOException If a file cannot be read or written
+     */
+    public static void main( String[] args ) throws IOException {
+        if ( args.length < 3 ) {
+            System.err.println( "Usage: ArmGainSweep <grid.properties> <arm.properties> <best.properties>" ); 
+            System.exit( 2 ); 
+        }
+        HAL.initialize( 500, 0 ); 
+        ArmConfig base = ArmConfig.fromProperties( ArmConfig.readProperties( Path.of( args[1] ) ), ArmConfig.DEFAULTS ); 
+        List<ArmConfig> configs = expand( ArmConfig.readProperties( Path.of( args[0] ) ), base ); 
+        List<ArmSimHarness.Scenario> scenarios = ArmSimHarness.matrix().stream().filter( scenario -> !scenario.streamed() ).toList(); 
+
+        System.out.println( String.format( "Sweeping %d configs x %d moves on %d cores",
+                                           configs.size(), scenarios.size(), Runtime.getRuntime().availableProcessors() ) ); 
+        long startNanos = System.nanoTime(); 
+        List<Candidate> ranked = sweep( configs, scenarios, base.gains().slot1() ); 
+        double elapsedSecs = ( System.nanoTime() - startNanos ) / 1e9; 
+        System.out.println( String.format( "%d moves in %.1f s", configs.size() * scenarios.size(), elapsedSecs ) ); 
+
+        for ( int i = 0; i < Math.min( PRINTED_CANDIDATES, ranked.size() ); i++ ) {
+            Candidate candidate = ranked.get( i ); 
+            System.out.println( String.format( "%2d. cost %.3f s, settle %.3f s (%d unsettled), overshoot %.4f rad, peak %.0f A",
+                i + 1, candidate.cost(), candidate.meanSettleTimeSecs(), candidate.unsettledMoves(),
+                candidate.maxOvershootRads(), candidate.peakCurrentAmps() ) ); 
+            System.out.println( "    " + candidate.config() ); 
+        }
+
+        // Written in the format of arm.properties, to be copied into the deploy directory
+        Candidate best = ranked.get( 0 ); 
+        Properties properties = new Properties(); 
+        best.config().toProperties( properties ); 
+        Path bestPath = Path.of( args[2] ); 
+        Files.createDirectories( bestPath.toAbsolutePath().getParent() ); 
+        try ( Writer writer = Files.newBufferedWriter( bestPath ) ) {
+            properties.store( writer, String.format( "Best of %d configs from ArmGainSweep, cost %.3f s", configs.size(), best.cost() ) ); 
+        }
+        System.out.println( "Wrote " + bestPath ); 
+        System.exit( 0 ); 
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * @file ArmIOReplayTest.java
+ * @brief Checks that a logged run of the simulated arm replays without a mismatch
+ */
+
+package frc.robot.subsystems.Arm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+/**
+ * Records a run of the simulated arm with ArmTelemetryLogger, with a config that differs from the
+ * defaults and a reload half way, then replays the log through ArmIOReplay into a fresh subsystem
+ * that starts on the defaults. Every control request has to match the recording.
+ */
+class ArmIOReplayTest {
+    private static final int LOOPS_PER_MOVE = 150; 
+
+    @BeforeAll
+    static void setUp() {
+        HAL.initialize( 500, 0 ); 
+    }
+
+    @Test
+    void replaysTheRecordedRunWithoutMismatches() throws IOException, InterruptedException {
+        // Enough kS that the arm is left stopped at the score position, which the defaults never do
+        ArmConfig recordedConfig = withSlot1KS( ArmConfig.DEFAULTS, 0.5 ); 
+        ArmConfig reloadedConfig = withSlot1KS( ArmConfig.DEFAULTS, 0.1 ); 
+        Path path = Files.createTempDirectory( "armReplay" ).resolve( "arm_000001.armlog" ); 
+
+        // Recording
+        ArmTelemetryLogger logger = new ArmTelemetryLogger( path, ArmTelemetryLogger.DEFAULT_CAPACITY_RECORDS ); 
+        assertTrue( logger.awaitSegment( 5_000 ) ); 
+        // An arm without friction, so it sags once stopped and the stops and holds alternate
+        ArmIOSim sim = new ArmIOSim( recordedConfig, 0.0, ArmConstants.SLOT1_KG, ArmConstants.SLOT1_KV, ArmConstants.SLOT1_KA, 0.0 ); 
+        ArmSubsystem recorded = createArm( "ArmReplay-recorded", sim, recordedConfig ); 
+        recorded.setTelemetryLogger( logger ); 
+        recorded.periodic(); 
+        recorded.setTargetPosition( ArmConstants.SCORE_POSITION_RADS ); 
+        for ( int loop = 0; loop < LOOPS_PER_MOVE; loop++ ) {
+            recorded.periodic(); 
+        }
+        recorded.setConfig( reloadedConfig ); 
+        recorded.setTargetPosition( ArmConstants.STOW_POSITION_RADS ); 
+        for ( int loop = 0; loop < LOOPS_PER_MOVE; loop++ ) {
+            recorded.periodic(); 
+        }
+        logger.close(); 
+        assertEquals( 0, logger.getDroppedRecords() ); 
+
+        // Replay
+        ArmIOReplay replay = new ArmIOReplay( path ); 
+        ArmSubsystem replayed = createArm( "ArmReplay-replayed", replay, ArmConfig.DEFAULTS ); 
+        replay.setConfigListener( replayed::setConfig ); 
+        replay.setTargetListener( targetRads -> {
+            if ( Double.isNaN( targetRads ) ) {
+                replayed.clearTarget(); 
+            }
+            else {
+                replayed.setTargetPosition( targetRads ); 
+            }
+        } ); 
+        while ( !replay.isFinished() ) {
+            replayed.periodic(); 
+        }
+
+        assertEquals( 2 * LOOPS_PER_MOVE + 1, replay.getReplayedRecords() ); 
+        assertEquals( 2, replay.getReplayedConfigs() ); 
+        assertEquals( reloadedConfig.gains(), replayed.getConfig().gains() ); 
+        assertEquals( 0, replay.getMismatches(), "First mismatch at cycle " + replay.getFirstMismatchCycle() ); 
+    }
+
+    private static ArmSubsystem createArm( String name, ArmIO io, ArmConfig config ) {
+        ArmSubsystem arm; 
+        synchronized ( ArmSimHarness.SCHEDULER_LOCK ) {
+            arm = new ArmSubsystem( name, io, config, ArmEnvelope.DEFAULT, null ); 
+            // The test calls periodic() itself, the scheduler must not also run it
+            CommandScheduler.getInstance().unregisterSubsystem( arm ); 
+        }
+        return arm; 
+    }
+
+    private static ArmConfig withSlot1KS( ArmConfig config, double kS ) {
+        ArmGains.Slot slot1 = config.gains().slot1(); 
+        return new ArmConfig( new ArmGains( config.gains().slot0(),
+                                            new ArmGains.Slot( slot1.kP(), slot1.kI(), slot1.kD(), kS, slot1.kV(), slot1.kA(), slot1.kG() ) ),
+                              config.motionMagic() ); 
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * @file ArmIOSimTest.java
+ * @brief Checks how the simulated arm handles its follower motor dropping off the bus
+ */
+
+package frc.robot.subsystems.Arm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+
+/**
+ * The follower goes to Neutral as soon as it drops off the bus, while the master keeps holding
+ * the arm until the follower check notices, as ArmDefinition does on the robot.
+ */
+class ArmIOSimTest {
+    private static final int STALE_LOOPS = (int) Math.ceil( ArmConstants.FOLLOWER_STALE_SECS / ArmConstants.LOOP_PERIOD_SECS ); 
+    private static final int RECOVERY_LOOPS = (int) Math.ceil( ArmConstants.FOLLOWER_RECOVERY_SECS / ArmConstants.LOOP_PERIOD_SECS ); 
+
+    @BeforeAll
+    static void setUp() {
+        HAL.initialize( 500, 0 ); 
+    }
+
+    @Test
+    void masterStopsOnceTheLostFollowerIsNoticed() {
+        ArmIOSim sim = new ArmIOSim(); 
+        ArmIO.ArmIOInputs inputs = new ArmIO.ArmIOInputs(); 
+        sim.setPositionControl( 0.0, 0.0 ); // Holding the arm horizontal, against the full weight
+        loop( sim, inputs, 50 ); 
+
+        sim.setFollowerFaulted( true ); 
+        loop( sim, inputs, 1 ); 
+        assertTrue( inputs.driveEnabled, "The follower check noticed before the follower went stale" ); 
+        assertTrue( sim.getMasterOutputVolts() > 0.0, "The master is not holding the arm up" ); 
+
+        loop( sim, inputs, STALE_LOOPS ); 
+        assertFalse( inputs.driveEnabled ); 
+        assertFalse( inputs.followerHealthy ); 
+        assertEquals( 0.0, sim.getMasterOutputVolts() ); 
+
+        // Requests are dropped until the follower has been back for the whole recovery time
+        sim.setFollowerFaulted( false ); 
+        sim.setPositionControl( 0.0, 0.0 ); 
+        loop( sim, inputs, RECOVERY_LOOPS - 1 ); 
+        assertFalse( inputs.driveEnabled ); 
+        loop( sim, inputs, 2 ); 
+        assertTrue( inputs.driveEnabled ); 
+        assertEquals( 0.0, sim.getMasterOutputVolts(), "The master was stopped, it waits for a new request" ); 
+        sim.setPositionControl( 0.0, 0.0 ); 
+        loop( sim, inputs, 1 ); 
+        assertTrue( sim.getMasterOutputVolts() > 0.0, "The master is not holding the arm up" ); 
+    }
+
+    private static void loop( ArmIOSim sim, ArmIO.ArmIOInputs inputs, int loops ) {
+        for ( int i = 0; i < loops; i++ ) {
+            sim.updateInputs( inputs ); 
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * @file ArmSampleBufferTest.java
+ * @brief Checks that the sample buffer hands the newest samples to the robot loop
+ */
+
+package frc.robot.subsystems.Arm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The robot loop only wants the newest samples, so a buffer that fills up while the loop is 
+ * stalled must keep the newest ones and drop the oldest.
+ */
+class ArmSampleBufferTest {
+    private static final int CAPACITY = 64; 
+
+    @Test
+    void keepsTheNewestSamplesAfterAnOverrun() {
+        ArmSampleBuffer buffer = new ArmSampleBuffer( CAPACITY ); 
+        ArmIO.ArmIOInputs inputs = new ArmIO.ArmIOInputs(); 
+        int offered = 3 * CAPACITY; 
+        boolean allFit = true; 
+        for ( int i = 0; i < offered; i++ ) {
+            allFit &= buffer.offer( i * 0.004, i, 0.0 ); 
+        }
+        assertFalse( allFit, "The buffer never filled up" ); 
+
+        int count = buffer.drainTo( inputs ); 
+
+        assertEquals( ArmConstants.MAX_SAMPLES_PER_LOOP, count ); 
+        assertEquals( ( offered - 1 ) * 0.004, inputs.sampleTimestampsSecs[count - 1], 1e-12 ); 
+        assertEquals( ( offered - count ) * 0.004, inputs.sampleTimestampsSecs[0], 1e-12 ); 
+        assertEquals( offered - count, buffer.getDroppedSamples() ); 
+    }
+
+    @Test
+    void drainsEverySampleWhenNotOverrun() {
+        ArmSampleBuffer buffer = new ArmSampleBuffer( CAPACITY ); 
+        ArmIO.ArmIOInputs inputs = new ArmIO.ArmIOInputs(); 
+        for ( int i = 0; i < 5; i++ ) {
+            assertTrue( buffer.offer( i * 0.004, i, 0.0 ) ); 
+        }
+
+        assertEquals( 5, buffer.drainTo( inputs ) ); 
+        assertEquals( 0.0, inputs.sampleTimestampsSecs[0] ); 
+        assertEquals( 0, buffer.drainTo( inputs ) ); 
+        assertEquals( 0L, buffer.getDroppedSamples() ); 
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * @file ArmSimHarness.java
+ * @brief Runs the Arm control loop against the simulated arm and checks it against a baseline
+ */
+
+package frc.robot.subsystems.Arm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+/**
+ * Moves the simulated arm through a matrix of setpoints and measures how well the control loop
+ * does, so a change to the gains, thresholds or mode logic that makes the arm worse fails the build.
+ *
+ * Every scenario is a fresh ArmSubsystem on a fresh ArmIOSim (behind ArmIOCached, as on the robot)
+ * and calls periodic() once per virtual loop, the same call the CommandScheduler makes. Time only
+ * moves when the simulation is stepped, so nothing sleeps and a 4 second move takes a few
+ * milliseconds. The loop is timed by counting loops, so every run gives exactly the same numbers,
+ * and the scenarios share nothing, so ArmSimHarnessTest runs them in parallel on the JUnit threads.
+ *
+ * For each scenario it measures:
+ *   Settle time - from the target being set until the arm stays within SETTLE_TOLERANCE_RADS of it
+ *   Overshoot - the furthest the arm went past the target
+ *   Mode switches - the changes of control mode made by the mode state machine
+ * and compares them with the baseline file. It runs with ./gradlew test (part of ./gradlew build),
+ * accept new numbers on purpose with ./gradlew test -PupdateBaseline.
+ */
+public final class ArmSimHarness {
+    /**
+     * One move of the simulated arm
+     * @param name The name of the scenario, used as the key in the baseline
+     * @param startRads Where the arm starts (Radians)
+     * @param targetRads Where the arm is sent (Radians)
+     * @param plantKGScale The gravity of the simulated arm compared to the configured kG, above 1 models a game piece
+     * @param streamed True to move with the streamed profiles instead of Motion Magic
+     */
+    public record Scenario( String name, double startRads, double targetRads, double plantKGScale, boolean streamed ) {}
+
+    /**
+     * How the control loop did in one scenario
+     * @param scenario The scenario
+     * @param settled True if the arm settled at the target before the run ended
+     * @param settleTimeSecs Time from the target being set until the arm stayed within the tolerance (Seconds)
+     * @param overshootRads The furthest the arm went past the target (Radians)
+     * @param modeSwitches The number of control mode changes
+     * @param peakCurrentAmps The highest stator current of the master motor (Amps)
+     * @param finalMode The mode of the mode state machine when the run ended
+     */
+    public record Result( Scenario scenario, boolean settled, double settleTimeSecs, double overshootRads, long modeSwitches,
+                          double peakCurrentAmps, ArmControlMode finalMode ) {}
+
+    // Simulation Settings
+    public static final double RUN_DURATION_SECS = 4.0; 
+    public static final double SETTLE_TOLERANCE_RADS = 0.01; 
+
+    // Allowed Regression - anything worse than the baseline by more than this fails
+    public static final double SETTLE_TIME_TOLERANCE_SECS = 2 * ArmConstants.LOOP_PERIOD_SECS; 
+    public static final double OVERSHOOT_TOLERANCE_RADS = 0.002; 
+    public static final long MODE_SWITCH_TOLERANCE = 0; 
+
+    // Subsystems register with the CommandScheduler when they are created, which is not thread safe
+    static final Object SCHEDULER_LOCK = new Object(); 
+
+    private ArmSimHarness() {}
+
+    /**
+     * @return Every move between 0, 30, 60 and 90 degrees (stow, score and up to the top of the SysId range), with and
+     *         without a game piece, with Motion Magic and with streamed profiles
+     */
+    public static List<Scenario> matrix() {
+        double[] positionsDegrees = { 0, 30, 60, 90 }; 
+        double[] kGScales = { 1.0, 1.3 }; 
+        List<Scenario> scenarios = new ArrayList<>(); 
+        for ( boolean streamed : new boolean[] { false, true } ) {
+            for ( double kGScale : kGScales ) {
+                for ( double startDegrees : positionsDegrees ) {
+                    for ( double targetDegrees : positionsDegrees ) {
+                        if ( startDegrees == targetDegrees ) {
+                            continue; 
+                        }
+                        String name = String.format( "%s.%s.%.0fto%.0f", streamed ? "streamed" : "motionMagic",
+                                                     kGScale == 1.0 ? "nominal" : "gamePiece", startDegrees, targetDegrees ); 
+                        scenarios.add( new Scenario( name, Math.toRadians( startDegrees ), Math.toRadians( targetDegrees ), kGScale, streamed ) ); 
+                    }
+                }
+            }
+        }
+        return scenarios; 
+    }
+
+    /**
+     * Runs one scenario on its own subsystem and simulated arm, with the default config on an
+     * arm that matches its Slot 1 feedforward
+     * @param scenario The scenario
+     * @return How the control loop did
+     */
+    public static Result run( Scenario scenario ) {
+        return run( scenario, ArmConfig.DEFAULTS, ArmConfig.DEFAULTS.gains().slot1() ); 
+    }
+
+    /**
+     * Runs one scenario on its own subsystem and simulated arm
+     * @param scenario The scenario
+     * @param config The gains and Motion Magic constraints of the control loop
+     * @param plant The feedforward of the simulated arm (kS, kG, kV and kA), the rest is ignored
+     * @return How the control loop did
+     */
+    public static Result run( Scenario scenario, ArmConfig config, ArmGains.Slot plant ) {
+        ArmIOSim sim = new ArmIOSim( config, plant.kS(), plant.kG() * scenario.plantKGScale(), plant.kV(), plant.kA(), scenario.startRads() ); 
+        ArmSubsystem arm; 
+        synchronized ( SCHEDULER_LOCK ) {
+            arm = new ArmSubsystem( "ArmSim-" + scenario.name(), new ArmIOCached( sim ), config, ArmEnvelope.DEFAULT, null ); 
+            // The harness calls periodic() itself, the scheduler must not also run it
+            CommandScheduler.getInstance().unregisterSubsystem( arm ); 
+        }
+        if ( scenario.streamed() ) {
+            arm.setProfileStreaming( ArmProfileConstraints.STREAMED ); 
+        }
+
+        // One loop with no target so the inputs hold the start position, then the move
+        arm.periodic(); 
+        arm.setTargetPosition( scenario.targetRads() ); 
+        double direction = Math.signum( scenario.targetRads() - scenario.startRads() ); 
+        int loops = (int) Math.round( RUN_DURATION_SECS / ArmConstants.LOOP_PERIOD_SECS ); 
+        int lastOutsideLoop = 0; 
+        double overshootRads = 0.0; 
+        double peakCurrentAmps = 0.0; 
+        for ( int loop = 1; loop <= loops; loop++ ) {
+            arm.periodic(); 
+            peakCurrentAmps = Math.max( peakCurrentAmps, Math.abs( sim.getMasterCurrentAmps() ) ); 
+            double errorRads = sim.getPositionRads() - scenario.targetRads(); 
+            overshootRads = Math.max( overshootRads, direction * errorRads ); 
+            if ( Math.abs( errorRads ) > SETTLE_TOLERANCE_RADS ) {
+                lastOutsideLoop = loop; 
+            }
+        }
+        boolean settled = lastOutsideLoop < loops && arm.isAtSetpoint(); 
+        double settleTimeSecs = settled ? ( lastOutsideLoop + 1 ) * ArmConstants.LOOP_PERIOD_SECS : RUN_DURATION_SECS; 
+        return new Result( scenario, settled, settleTimeSecs, overshootRads, arm.getModeStateMachine().getTransitions(), peakCurrentAmps, 
+                           arm.getModeStateMachine().getState() ); 
+    }
+
+    /**
+     * Compares a result with the baseline
+     * @param result The result of the run
+     * @param baseline The baseline, as written by writeBaseline
+     * @return One line for everything that got worse, empty if nothing did
+     */
+    public static List<String> findRegressions( Result result, Properties baseline ) {
+        List<String> regressions = new ArrayList<>(); 
+        String name = result.scenario().name(); 
+        String settled = baseline.getProperty( name + ".settled" ); 
+        String settleTime = baseline.getProperty( name + ".settleTimeSecs" ); 
+        String overshoot = baseline.getProperty( name + ".overshootRads" ); 
+        String modeSwitches = baseline.getProperty( name + ".modeSwitches" ); 
+        if ( settled == null || settleTime == null || overshoot == null || modeSwitches == null ) {
+            regressions.add( name + ": not in the baseline" ); 
+            return regressions; 
+        }
+        // Some moves can not settle, e.g. a heavy game piece at horizontal leaves more error than the tolerance
+        if ( !result.settled() && Boolean.parseBoolean( settled ) ) {
+            regressions.add( name + ": did not settle within " + RUN_DURATION_SECS + " s" ); 
+        }
+        if ( result.settleTimeSecs() > Double.parseDouble( settleTime ) + SETTLE_TIME_TOLERANCE_SECS ) {
+            regressions.add( String.format( "%s: settle time %.2f s, baseline %s s", name, result.settleTimeSecs(), settleTime ) ); 
+        }
+        if ( result.overshootRads() > Double.parseDouble( overshoot ) + OVERSHOOT_TOLERANCE_RADS ) {
+            regressions.add( String.format( "%s: overshoot %.4f rad, baseline %s rad", name, result.overshootRads(), overshoot ) ); 
+        }
+        if ( result.modeSwitches() > Long.parseLong( modeSwitches ) + MODE_SWITCH_TOLERANCE ) {
+            regressions.add( String.format( "%s: %d mode switches, baseline %s", name, result.modeSwitches(), modeSwitches ) ); 
+        }
+        return regressions; 
+    }
+
+    /**
+     * Writes the results as the new baseline
+     * @param results The results of the runs
+     * @param path The baseline file
+     * @throws IOException If the file cannot be written
+     */
+    public static void writeBaseline( List<Result> results, Path path ) throws IOException {
+        // Sorted and without a date, so updating the baseline only changes the lines that moved
+        List<String> lines = new ArrayList<>(); 
+        for ( Result result : results ) {
+            String name = result.scenario().name(); 
+            lines.add( name + ".settled=" + result.settled() ); 
+            lines.add( name + ".settleTimeSecs=" + Math.round( result.settleTimeSecs() * 100.0 ) / 100.0 ); 
+            lines.add( name + ".overshootRads=" + Math.round( result.overshootRads() * 10000.0 ) / 10000.0 ); 
+            lines.add( name + ".modeSwitches=" + result.modeSwitches() ); 
+        }
+        Collections.sort( lines ); 
+        lines.add( 0, "# Arm control baseline, written by ./gradlew test -PupdateBaseline" ); 
+        Files.write( path, lines ); 
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * @file ArmSimHarnessTest.java
+ * @brief Checks every move of the simulated arm against the baseline
+ */
+
+package frc.robot.subsystems.Arm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import edu.wpi.first.hal.HAL;
+
+/**
+ * One test per scenario of ArmSimHarness, run in parallel on the JUnit threads (see
+ * junit-platform.properties). A scenario fails if it settles slower, overshoots further or
+ * switches modes more often than in arm_sim_baseline.properties.
+ *
+ * With -DarmSim.updateBaseline=true (./gradlew test -PupdateBaseline) nothing is compared, and
+ * the results are written as the new baseline once every scenario has run.
+ */
+class ArmSimHarnessTest {
+    // Relative to the project directory, the working directory of ./gradlew test
+    private static final Path BASELINE_PATH = Path.of( "arm_sim_baseline.properties" ); 
+    private static final boolean UPDATE_BASELINE = Boolean.getBoolean( "armSim.updateBaseline" ); 
+
+    private static Properties baseline; 
+    private static final Map<String, ArmSimHarness.Result> results = new ConcurrentHashMap<>(); 
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        HAL.initialize( 500, 0 ); 
+        baseline = UPDATE_BASELINE ? new Properties() : ArmConfig.readProperties( BASELINE_PATH ); 
+    }
+
+    static Stream<Named<ArmSimHarness.Scenario>> scenarios() {
+        return ArmSimHarness.matrix().stream().map( scenario -> Named.of( scenario.name(), scenario ) ); 
+    }
+
+    @ParameterizedTest( name = "{0}" )
+    @MethodSource( "scenarios" )
+    void noWorseThanBaseline( ArmSimHarness.Scenario scenario ) {
+        ArmSimHarness.Result result = ArmSimHarness.run( scenario ); 
+        results.put( scenario.name(), result ); 
+        if ( UPDATE_BASELINE ) {
+            return; 
+        }
+        List<String> regressions = ArmSimHarness.findRegressions( result, baseline ); 
+        assertTrue( regressions.isEmpty(), () -> String.join( "\n", regressions ) ); 
+    }
+
+    /**
+     * Gravity has no pull on the arm straight up, so once it settles there the state machine steps 
+     * down to Neutral and the motors are stopped. Everywhere else the stopped arm would drop, so 
+     * it is held in Position instead of cycling between Neutral and Position.
+     */
+    @ParameterizedTest( name = "{0}" )
+    @MethodSource( "scenarios" )
+    void restsInTheLowestModeThatHoldsTheArm( ArmSimHarness.Scenario scenario ) {
+        ArmSimHarness.Result result = ArmSimHarness.run( scenario ); 
+        boolean vertical = scenario.targetRads() == Math.toRadians( 90 ); 
+        if ( vertical ) {
+            assertTrue( result.settled(), scenario.name() + " did not settle" ); 
+        }
+        if ( result.settled() ) {
+            assertEquals( vertical ? ArmControlMode.NEUTRAL : ArmControlMode.POSITION, result.finalMode(), scenario.name() ); 
+        }
+    }
+
+    @AfterAll
+    static void updateBaseline() throws IOException {
+        if ( !UPDATE_BASELINE ) {
+            return; 
+        }
+        // Only a complete run is written, a filtered run would drop the other scenarios
+        List<ArmSimHarness.Result> ordered = new ArrayList<>(); 
+        for ( ArmSimHarness.Scenario scenario : ArmSimHarness.matrix() ) {
+            ArmSimHarness.Result result = results.get( scenario.name() ); 
+            if ( result == null ) {
+                throw new IllegalStateException( scenario.name() + " did not run, the baseline was not updated" ); 
+            }
+            ordered.add( result ); 
+        }
+        ArmSimHarness.writeBaseline( ordered, BASELINE_PATH ); 
+    }
+}
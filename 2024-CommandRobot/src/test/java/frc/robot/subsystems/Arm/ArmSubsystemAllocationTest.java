@@ -0,0 +1,84 @@
+/**
+ * @file ArmSubsystemAllocationTest.java
+ * @brief Checks that the control loop of the Arm does not allocate once it is warmed up
+ */
+
+package frc.robot.subsystems.Arm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+/**
+ * Runs periodic() on a simulated arm behind the ArmIOCached, the same stack as the robot in
+ * simulation, and counts the bytes the test thread allocates over the measured loops with the
+ * allocation counter of the JVM. Any garbage made every loop would end up in a collection pause
+ * during a match.
+ *
+ * A loop over its budget reports a warning, which is allowed to allocate since it is already a
+ * slow loop, so the measurement is taken again if the machine running the test was too slow.
+ */
+class ArmSubsystemAllocationTest {
+    // Loops (20 ms each)
+    private static final int WARMUP_MOVES = 40; // Enough for the JIT to compile the loop
+    private static final int LOOPS_PER_MOVE = 150; // The move and a while settled at the target
+    private static final int MEASURED_MOVES = 4; 
+    private static final int MAX_ATTEMPTS = 5; // Measurements thrown away for an overrun
+
+    @BeforeAll
+    static void setUp() {
+        HAL.initialize( 500, 0 ); 
+    }
+
+    @Test
+    void periodicDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean(); 
+        assertTrue( threads.isThreadAllocatedMemorySupported(), "The JVM does not count allocations per thread" ); 
+        threads.setThreadAllocatedMemoryEnabled( true ); 
+        long threadId = Thread.currentThread().getId(); 
+
+        ArmIOSim sim = new ArmIOSim( ArmConfig.DEFAULTS ); 
+        ArmSubsystem arm; 
+        synchronized ( ArmSimHarness.SCHEDULER_LOCK ) {
+            arm = new ArmSubsystem( "ArmAllocation", new ArmIOCached( sim ), ArmConfig.DEFAULTS, ArmEnvelope.DEFAULT, null ); 
+            CommandScheduler.getInstance().unregisterSubsystem( arm ); 
+        }
+
+        // Warm Up - every branch of the loop runs: moving, stepping down the modes and settled
+        for ( int move = 0; move < WARMUP_MOVES; move++ ) {
+            runMove( arm, move ); 
+        }
+
+        long allocatedBytes = 0; 
+        boolean overran = true; 
+        for ( int attempt = 0; attempt < MAX_ATTEMPTS && overran; attempt++ ) {
+            long overrunsBefore = arm.getLoopTiming().getOverruns(); 
+            long before = threads.getThreadAllocatedBytes( threadId ); 
+            for ( int move = 0; move < MEASURED_MOVES; move++ ) {
+                runMove( arm, move ); 
+            }
+            allocatedBytes = threads.getThreadAllocatedBytes( threadId ) - before; 
+            overran = arm.getLoopTiming().getOverruns() != overrunsBefore; 
+        }
+
+        assertEquals( 0L, allocatedBytes, "Bytes allocated over " + MEASURED_MOVES * LOOPS_PER_MOVE + " loops" ); 
+    }
+
+    /**
+     * Sends the arm between the score position and straight up, so both the Position and the
+     * Neutral resting modes are covered
+     */
+    private static void runMove( ArmSubsystem arm, int move ) {
+        arm.setTargetPosition( move % 2 == 0 ? Math.toRadians( 90 ) : ArmConstants.SCORE_POSITION_RADS ); 
+        for ( int loop = 0; loop < LOOPS_PER_MOVE; loop++ ) {
+            arm.periodic(); 
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * @file ArmSysIdFitterTest.java
+ * @brief Fits the gains of a simulated arm whose feedforward is known
+ */
+
+package frc.robot.subsystems.Arm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Records the four SysId tests on an ArmIOSim built with known kS, kG, kV and kA, the same way
+ * ArmSubsystem records them (every encoder sample with the voltage of the loop it was measured
+ * in), and checks that the fit gives the gains of the plant back.
+ */
+class ArmSysIdFitterTest {
+    // The Simulated Plant - deliberately not the configured gains
+    private static final double PLANT_KS = 0.12; 
+    private static final double PLANT_KG = 0.42; 
+    private static final double PLANT_KV = 7.0; 
+    private static final double PLANT_KA = 0.25; 
+
+    // The Tests
+    private static final double QUASISTATIC_RAMP_VOLTS_PER_SEC = 1.0; 
+    private static final double QUASISTATIC_SECS = 1.5; 
+    private static final double DYNAMIC_STEP_VOLTS = 2.0; 
+    private static final double DYNAMIC_SECS = 0.4; 
+    private static final double FORWARD_START_RADS = 0.0; 
+    private static final double REVERSE_START_RADS = Math.toRadians( 90 ); 
+
+    // Allowed Error - of each gain, relative to the plant
+    private static final double TOLERANCE = 0.05; 
+
+    @Test
+    void fitsTheGainsOfTheSimulatedArm() {
+        ArmSysIdLog log = new ArmSysIdLog( ArmConstants.SYSID_LOG_CAPACITY ); 
+        recordQuasistatic( log, FORWARD_START_RADS, 1.0 ); 
+        recordQuasistatic( log, REVERSE_START_RADS, -1.0 ); 
+        recordDynamic( log, FORWARD_START_RADS, 1.0 ); 
+        recordDynamic( log, REVERSE_START_RADS, -1.0 ); 
+        assertEquals( 0L, log.getDroppedSamples() ); 
+
+        ArmSysIdFitter.Result result = ArmSysIdFitter.fit( log, ArmSysIdFitter.DEFAULT_MIN_VELOCITY_ROTATIONS_PER_SEC ); 
+
+        String fit = ArmSysIdFitter.describe( result ); 
+        assertEquals( PLANT_KS, result.kS(), PLANT_KS * TOLERANCE, fit ); 
+        assertEquals( PLANT_KG, result.kG(), PLANT_KG * TOLERANCE, fit ); 
+        assertEquals( PLANT_KV, result.kV(), PLANT_KV * TOLERANCE, fit ); 
+        assertEquals( PLANT_KA, result.kA(), PLANT_KA * TOLERANCE, fit ); 
+        assertTrue( result.rSquared() > 0.99, fit ); 
+    }
+
+    @Test
+    void rejectsALogThatDoesNotSeparateTheGains() {
+        // Constant velocity throughout, so nothing tells kA apart
+        ArmSysIdLog log = new ArmSysIdLog( 200 ); 
+        log.startTest(); 
+        double velocityRadsPerSec = 0.5; 
+        for ( int i = 0; i < 100; i++ ) {
+            double timestampSecs = i * 0.004; 
+            double positionRads = velocityRadsPerSec * timestampSecs; 
+            double velocityRotationsPerSec = velocityRadsPerSec / ( 2.0 * Math.PI ); 
+            log.record( timestampSecs, positionRads, velocityRadsPerSec,
+                        PLANT_KS + PLANT_KG * Math.cos( positionRads ) + PLANT_KV * velocityRotationsPerSec ); 
+        }
+
+        IllegalArgumentException e = assertThrows( IllegalArgumentException.class,
+            () -> ArmSysIdFitter.fit( log, ArmSysIdFitter.DEFAULT_MIN_VELOCITY_ROTATIONS_PER_SEC ) ); 
+        assertTrue( e.getMessage().contains( "does not separate" ), e.getMessage() ); 
+    }
+
+    @Test
+    void rejectsALogWithTooFewSamples() {
+        // A dynamic step cut short, and samples of an arm that never moved
+        ArmSysIdLog log = new ArmSysIdLog( ArmConstants.SYSID_LOG_CAPACITY ); 
+        ArmIOSim sim = new ArmIOSim( PLANT_KS, PLANT_KG, PLANT_KV, PLANT_KA, FORWARD_START_RADS ); 
+        ArmIO.ArmIOInputs inputs = new ArmIO.ArmIOInputs(); 
+        log.startTest(); 
+        sim.setVoltage( DYNAMIC_STEP_VOLTS ); 
+        loop( sim, inputs, log, DYNAMIC_STEP_VOLTS ); 
+        log.startTest(); 
+        for ( int i = 0; i < 50; i++ ) {
+            log.record( i * 0.004, 0.0, 0.0, 0.0 ); 
+        }
+
+        IllegalArgumentException e = assertThrows( IllegalArgumentException.class,
+            () -> ArmSysIdFitter.fit( log, ArmSysIdFitter.DEFAULT_MIN_VELOCITY_ROTATIONS_PER_SEC ) ); 
+        assertTrue( e.getMessage().contains( "usable samples" ), e.getMessage() ); 
+    }
+
+    /**
+     * Records a quasistatic test, the voltage ramps up from 0 in the given direction
+     */
+    private static void recordQuasistatic( ArmSysIdLog log, double startRads, double direction ) {
+        ArmIOSim sim = new ArmIOSim( PLANT_KS, PLANT_KG, PLANT_KV, PLANT_KA, startRads ); 
+        ArmIO.ArmIOInputs inputs = new ArmIO.ArmIOInputs(); 
+        log.startTest(); 
+        int loops = (int) Math.round( QUASISTATIC_SECS / ArmConstants.LOOP_PERIOD_SECS ); 
+        for ( int i = 0; i < loops; i++ ) {
+            double volts = direction * QUASISTATIC_RAMP_VOLTS_PER_SEC * i * ArmConstants.LOOP_PERIOD_SECS; 
+            sim.setVoltage( volts ); 
+            loop( sim, inputs, log, volts ); 
+        }
+    }
+
+    /**
+     * Records a dynamic test, a voltage step in the given direction
+     */
+    private static void recordDynamic( ArmSysIdLog log, double startRads, double direction ) {
+        ArmIOSim sim = new ArmIOSim( PLANT_KS, PLANT_KG, PLANT_KV, PLANT_KA, startRads ); 
+        ArmIO.ArmIOInputs inputs = new ArmIO.ArmIOInputs(); 
+        log.startTest(); 
+        int loops = (int) Math.round( DYNAMIC_SECS / ArmConstants.LOOP_PERIOD_SECS ); 
+        double volts = direction * DYNAMIC_STEP_VOLTS; 
+        sim.setVoltage( volts ); 
+        for ( int i = 0; i < loops; i++ ) {
+            loop( sim, inputs, log, volts ); 
+        }
+    }
+
+    /**
+     * Runs one robot loop and records its encoder samples, which were measured under the given voltage
+     */
+    private static void loop( ArmIOSim sim, ArmIO.ArmIOInputs inputs, ArmSysIdLog log, double volts ) {
+        sim.updateInputs( inputs ); 
+        for ( int i = 0; i < inputs.sampleCount; i++ ) {
+            log.record( inputs.sampleTimestampsSecs[i], inputs.samplePositionsRads[i], inputs.sampleVelocitiesRadsPerSec[i], volts ); 
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * @file ArmTelemetryLoggerTest.java
+ * @brief Checks how many arm logs are kept, when a new one is not opened and logging across segments
+ */
+
+package frc.robot.subsystems.Arm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+
+/**
+ * Only the newest logs are kept, by the number in their names (the clock may not be set), none is
+ * opened when the disk would be left short, and the records run on across the mapped segments.
+ */
+class ArmTelemetryLoggerTest {
+    private static final long CAPACITY_RECORDS = 16; 
+    private static final int MAX_LOG_FILES = 3; 
+    private static final int SEGMENT_RECORDS = 5; 
+
+    @BeforeAll
+    static void setUp() {
+        HAL.initialize( 500, 0 ); 
+    }
+
+    @Test
+    void keepsOnlyTheNewestLogs() throws IOException {
+        Path directory = Files.createTempDirectory( "armLogs" ); 
+        // Numbers of different lengths, the names do not sort by number
+        for ( long number = 8; number <= 12; number++ ) {
+            Files.createFile( directory.resolve( "arm_" + number + ".armlog" ) ); 
+        }
+        Path other = Files.createFile( directory.resolve( "notes.txt" ) ); 
+
+        ArmTelemetryLogger logger = ArmTelemetryLogger.open( directory, CAPACITY_RECORDS, MAX_LOG_FILES, 0 ); 
+        assertNotNull( logger ); 
+        logger.close(); 
+
+        assertEquals( MAX_LOG_FILES, countLogs( directory ) ); 
+        assertTrue( Files.exists( directory.resolve( "arm_000013.armlog" ) ) ); 
+        assertTrue( Files.exists( directory.resolve( "arm_12.armlog" ) ) ); 
+        assertTrue( Files.exists( directory.resolve( "arm_11.armlog" ) ) ); 
+        assertTrue( Files.exists( other ) ); // Only the logs are deleted
+    }
+
+    @Test
+    void refusesToLogWhenTheDiskIsShort() throws IOException {
+        Path directory = Files.createTempDirectory( "armLogs" ); 
+
+        assertNull( ArmTelemetryLogger.open( directory, CAPACITY_RECORDS, MAX_LOG_FILES, Long.MAX_VALUE / 2 ) ); 
+        assertEquals( 0, countLogs( directory ) ); 
+    }
+
+    @Test
+    void logsAcrossSegments() throws IOException, InterruptedException {
+        Path path = Files.createTempDirectory( "armLogs" ).resolve( "arm_000001.armlog" ); 
+        ArmTelemetryLogger logger = new ArmTelemetryLogger( path, CAPACITY_RECORDS, SEGMENT_RECORDS, 0 ); 
+        ArmIO.ArmIOInputs inputs = new ArmIO.ArmIOInputs(); 
+        assertTrue( logger.awaitSegment( 5_000 ) ); 
+        assertTrue( logger.logConfig( 0, ArmConfig.DEFAULTS ) ); 
+        for ( long cycle = 0; cycle < CAPACITY_RECORDS + 2; cycle++ ) {
+            assertTrue( logger.awaitSegment( 5_000 ) || cycle >= CAPACITY_RECORDS - 1 ); 
+            inputs.armPositionRads = cycle; 
+            logger.log( cycle, inputs, Double.NaN, ArmControlMode.POSITION, cycle ); 
+        }
+        logger.close(); 
+        assertEquals( CAPACITY_RECORDS, logger.getRecordCount() ); // Full, the rest are dropped
+        assertEquals( 0, logger.getDroppedRecords() ); 
+
+        // The config, then every loop that fit, in order
+        ByteBuffer log = ArmTelemetryLogger.openForReading( path ); 
+        assertEquals( ArmTelemetryLogger.CONFIG_RECORD, log.getLong() ); 
+        log.getLong(); 
+        ArmConfig config = ArmConfig.readFrom( log, path.toString() ); 
+        assertEquals( ArmConfig.DEFAULTS.gains(), config.gains() ); 
+        assertEquals( ArmConfig.DEFAULTS.motionMagic(), config.motionMagic() ); 
+        log.position( ArmTelemetryLogger.HEADER_BYTES + ArmTelemetryLogger.RECORD_BYTES ); 
+        for ( long cycle = 0; cycle < CAPACITY_RECORDS - 1; cycle++ ) {
+            assertEquals( cycle, log.getLong() ); 
+            inputs.readFrom( log ); 
+            assertEquals( (double) cycle, inputs.armPositionRads ); 
+            log.position( log.position() + Double.BYTES + Integer.BYTES + Double.BYTES ); 
+        }
+        assertEquals( 0, log.remaining() ); 
+    }
+
+    private static long countLogs( Path directory ) throws IOException {
+        try ( Stream<Path> files = Files.list( directory ) ) {
+            return files.filter( file -> file.getFileName().toString().endsWith( ".armlog" ) ).count(); 
+        }
+    }
+}